@@ -0,0 +1,59 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds, updates and looks for missing edges of a hub node with a given
+ * number of friends. Updating an existing edge's weight keeps the graph the
+ * same size however often it runs.
+ */
+public class EdgeWorkload implements benchmarks.Workload {
+
+    // the number of people who are not friends with the hub
+    public static final int STRANGERS = 1024;
+
+    protected DijkstraGraph<String, Integer> graph;
+    protected String operation;
+    protected String[] friends;
+    protected String[] strangers;
+
+    @Override
+    public void setUp(Map<String, String> parameters) {
+        int degree = Integer.parseInt(parameters.get("degree"));
+        operation = parameters.get("operation");
+        graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        graph.insertNode("hub");
+        friends = new String[degree];
+        strangers = new String[STRANGERS];
+        List<WeightedEdge<String, Integer>> edges = new ArrayList<>();
+        for (int i = 0; i < degree; i++) {
+            friends[i] = "friend" + i;
+            graph.insertNode(friends[i]);
+            edges.add(new WeightedEdge<>("hub", friends[i], 1));
+        }
+        for (int i = 0; i < STRANGERS; i++) {
+            strangers[i] = "stranger" + i;
+            graph.insertNode(strangers[i]);
+        }
+        graph.insertEdges(edges);
+    }
+
+    @Override
+    public int operationCount() {
+        return operation.equals("containsMissingEdge") ? strangers.length : friends.length;
+    }
+
+    @Override
+    public Object run(int i) {
+        switch (operation) {
+            case "getEdgeHelper":
+                return graph.getEdgeHelper("hub", friends[i]);
+            case "insertEdge":
+                return graph.insertEdge("hub", friends[i], 1 + (i & 1));
+            case "containsMissingEdge":
+                return graph.containsEdge("hub", strangers[i]);
+            default:
+                throw new IllegalArgumentException("unknown operation " + operation);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Searches for the shortest paths between random pairs of nodes in one of
+ * the search modes of DijkstraGraph, with a landmark index built up front.
+ * The graph is a road like network, a grid with random weights and a few
+ * long random edges, on which landmarks guide searches best, or a synthetic
+ * social network of a named size.
+ */
+public class LandmarkWorkload implements benchmarks.Workload {
+
+    // the number of random pairs of nodes the queries cycle through
+    public static final int QUERIES = 1000;
+
+    // the number of nodes along each side of the road network's grid
+    public static final int ROAD_GRID_SIDE = 300;
+
+    protected DijkstraGraph<String, Integer> graph;
+    protected String[] starts;
+    protected String[] ends;
+
+    @Override
+    public void setUp(Map<String, String> parameters) {
+        Random random = new Random(42);
+        String network = parameters.get("network");
+        graph = network.equals("road") ? roadNetwork(random)
+                : SyntheticGraphs.generate(network);
+        graph.buildLandmarks(Integer.parseInt(parameters.get("landmarks")),
+                LandmarkIndex.Selection.FARTHEST);
+        graph.setSearchMode(DijkstraGraph.SearchMode.valueOf(parameters.get("mode")));
+
+        starts = new String[QUERIES];
+        ends = new String[QUERIES];
+        int nodeCount = graph.nodeTable.size();
+        for (int i = 0; i < QUERIES; i++) {
+            starts[i] = graph.nodeTable.get(random.nextInt(nodeCount)).data;
+            ends[i] = graph.nodeTable.get(random.nextInt(nodeCount)).data;
+        }
+    }
+
+    /**
+     * Builds a grid of ROAD_GRID_SIDE by ROAD_GRID_SIDE nodes, joined to
+     * their neighbors by edges of random weights from 1 to 100, along with
+     * ROAD_GRID_SIDE long edges between random nodes, of weights from 1000
+     * to 1999.
+     */
+    protected static DijkstraGraph<String, Integer> roadNetwork(Random random) {
+        int side = ROAD_GRID_SIDE;
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        for (int i = 0; i < side * side; i++)
+            graph.insertNode("n" + i);
+        for (int i = 0; i < side * side; i++) {
+            if (i % side > 0)
+                graph.insertEdge("n" + (i - 1), "n" + i, 1 + random.nextInt(100));
+            if (i >= side)
+                graph.insertEdge("n" + (i - side), "n" + i, 1 + random.nextInt(100));
+        }
+        for (int i = 0; i < side; i++)
+            graph.insertEdge("n" + random.nextInt(side * side),
+                    "n" + random.nextInt(side * side), 1000 + random.nextInt(1000));
+        return graph;
+    }
+
+    @Override
+    public int operationCount() {
+        return QUERIES;
+    }
+
+    /**
+     * Searches for the shortest path between one pair of nodes.
+     *
+     * @return the number of nodes the search settled, which is 0 when the
+     *         nodes are in different components
+     */
+    @Override
+    public Object run(int operation) {
+        try {
+            graph.shortestPathCost(starts[operation], ends[operation]);
+        } catch (NoSuchElementException e) {
+            // the nodes are not connected
+        }
+        return graph.getLastSettledCount();
+    }
+}
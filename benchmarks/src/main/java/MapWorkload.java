@@ -0,0 +1,49 @@
+import java.util.Map;
+
+/**
+ * Looks up, checks for missing, and removes and puts back the names of the
+ * people in a network, in one of the MapADT implementations.
+ */
+public class MapWorkload implements benchmarks.Workload {
+
+    protected MapADT<String, Integer> map;
+    protected String operation;
+    protected String[] keys;
+    protected String[] missingKeys;
+
+    @Override
+    public void setUp(Map<String, String> parameters) {
+        int size = SyntheticGraphs.nodeCount(parameters.get("size"));
+        operation = parameters.get("operation");
+        map = parameters.get("map").equals("PlaceholderMap") ? new PlaceholderMap<>()
+                : new OpenAddressingMap<>();
+        keys = new String[size];
+        missingKeys = new String[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = "user" + i;
+            missingKeys[i] = "missing" + i;
+            map.put(keys[i], i);
+        }
+    }
+
+    @Override
+    public int operationCount() {
+        return keys.length;
+    }
+
+    @Override
+    public Object run(int i) {
+        switch (operation) {
+            case "get":
+                return map.get(keys[i]);
+            case "containsMissingKey":
+                return map.containsKey(missingKeys[i]);
+            case "removeAndPut":
+                Integer value = map.remove(keys[i]);
+                map.put(keys[i], value);
+                return value;
+            default:
+                throw new IllegalArgumentException("unknown operation " + operation);
+        }
+    }
+}
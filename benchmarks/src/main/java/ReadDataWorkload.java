@@ -0,0 +1,50 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Loads a synthetic network into an empty graph through Backend.readData,
+ * from a DOT file or a snapshot written to a temporary directory.
+ */
+public class ReadDataWorkload implements benchmarks.Workload {
+
+    protected Path directory;
+    protected Path file;
+
+    @Override
+    public void setUp(Map<String, String> parameters) throws IOException {
+        SocialGraphGenerator generator = SyntheticGraphs.generator(parameters.get("size"));
+        directory = Files.createTempDirectory("readdata");
+        if (parameters.get("format").equals("snapshot")) {
+            file = directory.resolve("network.snapshot");
+            generator.writeSnapshot(file);
+        } else {
+            file = directory.resolve("network.dot");
+            generator.writeDot(file);
+        }
+    }
+
+    @Override
+    public int operationCount() {
+        return 1;
+    }
+
+    @Override
+    public Object run(int operation) {
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        try {
+            new Backend(graph).readData(file.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return graph;
+    }
+
+    @Override
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(directory);
+    }
+}
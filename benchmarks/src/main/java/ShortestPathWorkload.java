@@ -0,0 +1,65 @@
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Searches for the shortest paths between pairs of people in a synthetic
+ * network. Both people in a pair are hubs, among the people with the most
+ * friends, or leaves, among those with the fewest. Each pair connects one of
+ * them to the other one of the same kind that is nearest to it, or farthest
+ * from it. The network is stored in a directed DijkstraGraph, or in an
+ * UndirectedGraph that lists each friendship once.
+ */
+public class ShortestPathWorkload implements benchmarks.Workload {
+
+    // the number of hubs or leaves that pairs are made from
+    public static final int CANDIDATES = 32;
+
+    protected DijkstraGraph<String, Integer> graph;
+    protected String[] starts;
+    protected String[] ends;
+
+    @Override
+    public void setUp(Map<String, String> parameters) {
+        graph = SyntheticGraphs.generate(parameters.get("size"),
+                parameters.getOrDefault("graph", "directed"));
+        boolean hubs = parameters.get("endpoints").equals("hub");
+        boolean near = parameters.get("distance").equals("near");
+
+        // order people by number of friends, most first for hubs
+        int nodeCount = graph.nodeTable.size();
+        long[] keys = new long[nodeCount];
+        for (int id = 0; id < nodeCount; id++) {
+            BaseGraph<String, Integer>.Node node = graph.nodeTable.get(id);
+            long degree = node.edgesLeaving.size() + node.edgesEntering.size();
+            keys[id] = ((hubs ? -degree : degree) << 32) | id;
+        }
+        Arrays.sort(keys);
+        String[] candidates = new String[CANDIDATES];
+        for (int i = 0; i < CANDIDATES; i++)
+            candidates[i] = graph.nodeTable.get((int) keys[i]).data;
+
+        starts = new String[CANDIDATES];
+        ends = new String[CANDIDATES];
+        for (int i = 0; i < CANDIDATES; i++) {
+            Map<String, Integer> hops = graph.nodesWithinHops(candidates[i], Integer.MAX_VALUE);
+            starts[i] = candidates[i];
+            for (String candidate : candidates) {
+                if (candidate.equals(candidates[i]) || !hops.containsKey(candidate))
+                    continue;
+                if (ends[i] == null || (near ? hops.get(candidate) < hops.get(ends[i])
+                        : hops.get(candidate) > hops.get(ends[i])))
+                    ends[i] = candidate;
+            }
+        }
+    }
+
+    @Override
+    public int operationCount() {
+        return CANDIDATES;
+    }
+
+    @Override
+    public Object run(int operation) {
+        return graph.computeShortestPath(starts[operation], ends[operation]);
+    }
+}
@@ -0,0 +1,76 @@
+/**
+ * SyntheticGraphs generates the social networks the benchmarks run on. Each
+ * network grows by preferential attachment, so that a few people collect
+ * many friends while most have only a few, as in real social networks, and
+ * is the same every time for the same size.
+ */
+public class SyntheticGraphs {
+
+    // the number of friends each person makes when they join the network
+    public static final int FRIENDS_PER_PERSON = 3;
+
+    /**
+     * Returns the number of people in the network of a named size.
+     *
+     * @param size "small", "medium" or "large"
+     * @return the number of people
+     */
+    public static int nodeCount(String size) {
+        switch (size) {
+            case "small":
+                return 1_000;
+            case "medium":
+                return 20_000;
+            case "large":
+                return 200_000;
+            default:
+                throw new IllegalArgumentException("unknown graph size " + size);
+        }
+    }
+
+    /**
+     * Returns a generator for the network of a named size.
+     *
+     * @param size "small", "medium" or "large"
+     * @return the generator
+     */
+    public static SocialGraphGenerator generator(String size) {
+        int nodeCount = nodeCount(size);
+        return SocialGraphGenerator.barabasiAlbert(nodeCount, FRIENDS_PER_PERSON, nodeCount);
+    }
+
+    /**
+     * Generates the network of a named size, with people named user0,
+     * user1 and so on, and friendships of weight 1.
+     *
+     * @param size "small", "medium" or "large"
+     * @return the network
+     */
+    public static DijkstraGraph<String, Integer> generate(String size) {
+        return generate(size, "directed");
+    }
+
+    /**
+     * Generates the network of a named size into a graph of a named type.
+     *
+     * @param size "small", "medium" or "large"
+     * @param type "directed" for a DijkstraGraph, or "undirected" for an
+     *        UndirectedGraph
+     * @return the network
+     */
+    public static DijkstraGraph<String, Integer> generate(String size, String type) {
+        DijkstraGraph<String, Integer> graph;
+        switch (type) {
+            case "directed":
+                graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+                break;
+            case "undirected":
+                graph = new UndirectedGraph<>(new OpenAddressingMap<>());
+                break;
+            default:
+                throw new IllegalArgumentException("unknown graph type " + type);
+        }
+        generator(size).insertInto(graph);
+        return graph;
+    }
+}
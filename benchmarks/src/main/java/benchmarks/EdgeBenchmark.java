@@ -0,0 +1,53 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures finding and updating the edges of a node with many edges, and
+ * looking for edges it does not have.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EdgeBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    public String degree;
+
+    @Param({"getEdgeHelper", "insertEdge", "containsMissingEdge"})
+    public String operation;
+
+    private Workload workload;
+    private int operationCount;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws Exception {
+        workload = Workload.create("EdgeWorkload",
+                Map.of("degree", degree, "operation", operation));
+        operationCount = workload.operationCount();
+    }
+
+    @Benchmark
+    public Object edgeOperation() {
+        if (++next == operationCount)
+            next = 0;
+        return workload.run(next);
+    }
+}
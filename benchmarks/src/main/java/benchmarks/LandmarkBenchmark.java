@@ -0,0 +1,83 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the search modes of DijkstraGraph on the same random queries, by
+ * the time each search takes and by the number of nodes it settles, which
+ * is reported as the settledPerQuery counter alongside the time.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LandmarkBenchmark {
+
+    @Param({"road", "medium"})
+    public String network;
+
+    @Param({"UNIDIRECTIONAL", "BIDIRECTIONAL", "LANDMARKS"})
+    public String mode;
+
+    @Param({"16"})
+    public String landmarks;
+
+    private Workload workload;
+    private int operationCount;
+    private int next = 0;
+
+    /**
+     * Counts the nodes the searches of one iteration settle.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class SettledNodes {
+
+        public long settled;
+        public long queries;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            settled = 0;
+            queries = 0;
+        }
+
+        public double settledPerQuery() {
+            return queries == 0 ? 0 : (double) settled / queries;
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        workload = Workload.create("LandmarkWorkload",
+                Map.of("network", network, "mode", mode, "landmarks", landmarks));
+        operationCount = workload.operationCount();
+    }
+
+    @Benchmark
+    public int search(SettledNodes counters) {
+        if (++next == operationCount)
+            next = 0;
+        int settled = (Integer) workload.run(next);
+        counters.settled += settled;
+        counters.queries++;
+        return settled;
+    }
+}
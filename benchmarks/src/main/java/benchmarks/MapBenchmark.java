@@ -0,0 +1,56 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the MapADT operations the graph uses to find nodes by name, for
+ * PlaceholderMap and, for comparison, OpenAddressingMap.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MapBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    @Param({"PlaceholderMap", "OpenAddressingMap"})
+    public String map;
+
+    @Param({"get", "containsMissingKey", "removeAndPut"})
+    public String operation;
+
+    private Workload workload;
+    private int operationCount;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws Exception {
+        workload = Workload.create("MapWorkload",
+                Map.of("size", size, "map", map, "operation", operation));
+        operationCount = workload.operationCount();
+    }
+
+    @Benchmark
+    public Object mapOperation() {
+        if (++next == operationCount)
+            next = 0;
+        return workload.run(next);
+    }
+}
@@ -0,0 +1,25 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runs the JMH benchmarks with any JMH command line options, writing the
+ * results as JSON to jmh-result-VERSION.json, named after the version of
+ * the benchmarks jar, unless a result format or file is chosen explicitly.
+ */
+public class RunBenchmarks {
+
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-rf") && !options.contains("-rff")) {
+            String version = RunBenchmarks.class.getPackage().getImplementationVersion();
+            options.add(0, "-rf");
+            options.add(1, "json");
+            options.add(2, "-rff");
+            options.add(3, "jmh-result-" + (version != null ? version : "dev") + ".json");
+        }
+        org.openjdk.jmh.Main.main(options.toArray(new String[0]));
+    }
+}
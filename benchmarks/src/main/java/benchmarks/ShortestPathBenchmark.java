@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures DijkstraGraph.computeShortestPath between pairs of people that
+ * are close to or far from each other, and that have the most friends (hubs)
+ * or the fewest (leaves), in a directed graph and in an undirected graph
+ * that stores each friendship once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShortestPathBenchmark {
+
+    @Param({"small", "medium", "large"})
+    public String size;
+
+    @Param({"near", "far"})
+    public String distance;
+
+    @Param({"hub", "leaf"})
+    public String endpoints;
+
+    @Param({"directed", "undirected"})
+    public String graph;
+
+    private Workload workload;
+    private int operationCount;
+    private int next = 0;
+
+    @Setup
+    public void setUp() throws Exception {
+        workload = Workload.create("ShortestPathWorkload",
+                Map.of("size", size, "distance", distance, "endpoints", endpoints,
+                        "graph", graph));
+        operationCount = workload.operationCount();
+    }
+
+    @Benchmark
+    public Object computeShortestPath() {
+        if (++next == operationCount)
+            next = 0;
+        return workload.run(next);
+    }
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.util.Map;
+
+/**
+ * A Workload prepares the graph, files or map one benchmark measures, and
+ * runs the operation being measured. Workloads are implemented in the
+ * default package, next to the classes they exercise, and are created by
+ * name, since code in a package cannot refer to the default package.
+ */
+public interface Workload {
+
+    /**
+     * Prepares the workload from the benchmark's parameters.
+     *
+     * @param parameters the value of each of the benchmark's parameters
+     * @throws Exception if the workload cannot be prepared
+     */
+    void setUp(Map<String, String> parameters) throws Exception;
+
+    /**
+     * Returns the number of different operations the workload cycles
+     * through, such as different pairs of people to connect.
+     *
+     * @return the number of operations, at least 1
+     */
+    int operationCount();
+
+    /**
+     * Runs one of the workload's operations.
+     *
+     * @param operation the operation to run, from 0 to operationCount()-1
+     * @return the result of the operation, for the benchmark to consume
+     */
+    Object run(int operation);
+
+    /**
+     * Releases anything the workload created outside of memory, such as
+     * temporary files.
+     *
+     * @throws Exception if the workload cannot be released
+     */
+    default void tearDown() throws Exception {
+    }
+
+    /**
+     * Creates and prepares a workload that is implemented in the default
+     * package.
+     *
+     * @param className the name of the class implementing the workload
+     * @param parameters the value of each of the benchmark's parameters
+     * @return the prepared workload
+     * @throws Exception if the workload cannot be created or prepared
+     */
+    static Workload create(String className, Map<String, String> parameters)
+            throws Exception {
+        Workload workload = (Workload) Class.forName(className)
+                .getDeclaredConstructor().newInstance();
+        workload.setUp(parameters);
+        return workload;
+    }
+}
@@ -1,55 +1,100 @@
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class Backend implements BackendInterface {
 
+    // the number of pairs whose closest connection is cached by default
+    public static final int DEFAULT_CACHE_CAPACITY = 10000;
+
     private DijkstraGraph<String, Integer> socialGraph;
 
+    // Closest connections by pair of people, valid for the graph version
+    // they were computed at. cacheVersion is guarded by the cache's lock,
+    // since batches of queries run on many threads at once
+    private ResultCache<FriendPair, List<String>> connectionCache;
+    private long cacheVersion;
+
+    // the metrics that queries and loads are recorded in
+    private QueryMetrics metrics = new QueryMetrics();
+
+    // the statistics last computed, valid for the graph version they describe
+    private volatile GraphStats<String> graphStats;
+    private volatile NeighborhoodFunction neighborhoodFunction;
+
     public Backend(DijkstraGraph<String, Integer> socialGraph) {
-        this.socialGraph = socialGraph;
+        this(socialGraph, DEFAULT_CACHE_CAPACITY, ResultCache.EvictionPolicy.WINDOW_TINY_LFU);
     }
 
     /**
-     * method reads the data file by parsing a dot file
+     * Constructor for a backend that caches the closest connections between
+     * up to cacheCapacity pairs of people. Friendships are symmetric, so the
+     * graph is normally an UndirectedGraph, which stores each of them once.
+     * A directed graph works as well, such as a ConcurrentDijkstraGraph for
+     * a graph that other threads change, since searches and statistics
+     * follow its edges in both directions.
+     *
+     * @param socialGraph the graph of people and their friendships
+     * @param cacheCapacity the number of pairs to cache connections for
+     * @param evictionPolicy how the cache chooses which pair to forget
      */
-    public void readData(String filePath) {
-        try {
-            File file = new File(filePath);
-            Scanner scanner = new Scanner(file);
-
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine().trim();
-
-                if (line.isEmpty() || line.startsWith("graph") || line.equals("}")) {
-                    continue;
-                }
-
-                if (line.endsWith(";")) {
-                    line = line.substring(0, line.length() - 1).trim();
-                }
-                if (!line.contains("--")) {
-                    continue;
-                }
-
-                // Split nodes 
-                String[] edges = line.split("--");
-                String node1 = edges[0].replaceAll("\"", "").trim();
-                String node2 = edges[1].replaceAll("\"", "").trim();
+    public Backend(DijkstraGraph<String, Integer> socialGraph, int cacheCapacity,
+            ResultCache.EvictionPolicy evictionPolicy) {
+        this.socialGraph = socialGraph;
+        this.connectionCache = new ResultCache<>(cacheCapacity, evictionPolicy);
+        this.cacheVersion = socialGraph.getVersion();
+        this.metrics.setConnectionCache(connectionCache);
+        socialGraph.setQueryMetrics(metrics);
+    }
 
-                // Insert nodes and edges into the graph
-                socialGraph.insertNode(node1);
-                socialGraph.insertNode(node2);
+    /**
+     * method reads the data file, either a binary snapshot written by
+     * GraphSnapshot or a dot file, which is parsed in parallel. A distance
+     * index written by PrunedLandmarkIndex next to the file, with the same
+     * name followed by .pll, is loaded too, and answers closest connection
+     * queries for as long as it matches the graph.
+     */
+    public void readData(String filePath) throws IOException {
+        Path path = Paths.get(filePath);
+        long start = System.nanoTime();
+        int edges;
+        if (GraphSnapshot.isSnapshot(path)) {
+            edges = GraphSnapshot.load(path, socialGraph, weight -> (int) weight);
+        } else {
+            edges = new DotLoader().load(path, socialGraph);
+        }
+        metrics.recordLoad(edges, System.nanoTime() - start);
+        Path indexPath = Paths.get(filePath + ".pll");
+        if (Files.exists(indexPath)) {
+            socialGraph.setHopIndex(PrunedLandmarkIndex.read(indexPath, socialGraph));
+        }
+    }
 
-                // Default weight = 1
-                socialGraph.insertEdge(node1, node2, 1);
-            }
-            scanner.close();
-        } catch (FileNotFoundException e) {
-            System.out.println("Error: File not found - " + filePath);
-        }        
+    /**
+     * method reads a dot file and then keeps following it, applying lines
+     * appended to it on a background thread. The graph should be a
+     * ConcurrentDijkstraGraph when it is queried while the file is followed.
+     *
+     * @param filePath the dot file to follow
+     * @param intervalMillis the longest time between checks for new lines
+     * @return the tailer following the file, which stops when closed
+     */
+    public DotTailer followData(String filePath, long intervalMillis) throws IOException {
+        DotTailer tailer = new DotTailer(Paths.get(filePath), socialGraph);
+        tailer.poll();
+        tailer.start(intervalMillis);
+        return tailer;
     }
 
     /**
@@ -58,21 +103,237 @@ public class Backend implements BackendInterface {
     public String getStats() {
         int numNodes = socialGraph.getNodeCount();
         int numEdges = socialGraph.getEdgeCount();
-        double avgFriends = (double) numEdges / numNodes;
-        return "Number of Nodes: " + numNodes + "\nNumber of Edges: " + numEdges + "\nAverage Number of Friends: " + String.format("%.2f", avgFriends);
+        GraphStats<String> stats = getGraphStats();
+        // count each person's distinct friends, in either direction and
+        // without themselves, however the graph stores friendships
+        double avgFriends = stats.getAverageDegree();
+        // people with no friends but themselves are components of their own
+        int[] componentSizes = socialGraph.getComponentSizes();
+        int largestComponent = componentSizes.length == 0 ? 0 : componentSizes[0];
+        int isolated = 0;
+        for (int i = componentSizes.length - 1; i >= 0 && componentSizes[i] == 1; i--) {
+            isolated++;
+        }
+        NeighborhoodFunction distances = getNeighborhoodFunction();
+        return "Number of Nodes: " + numNodes + "\nNumber of Edges: " + numEdges + "\nAverage Number of Friends: " + String.format("%.2f", avgFriends)
+                + "\nNumber of Components: " + componentSizes.length + "\nLargest Component Size: " + largestComponent
+                + "\nNumber of Isolated People: " + isolated
+                + "\nNumber of Triangles: " + stats.getTriangleCount()
+                + "\nAverage Clustering Coefficient: " + String.format("%.3f", stats.getAverageClusteringCoefficient())
+                + "\nGlobal Clustering Coefficient: " + String.format("%.3f", stats.getGlobalClusteringCoefficient())
+                + "\nAverage Degrees of Separation: " + String.format("%.2f", distances.getAverageDistance())
+                + "\nEffective Diameter: " + String.format("%.2f", distances.getEffectiveDiameter());
+    }
+
+    /**
+     * method gets the neighborhood statistics of the graph, which are
+     * computed again only once the graph has changed
+     */
+    public GraphStats<String> getGraphStats() {
+        GraphStats<String> stats = graphStats;
+        if (stats == null || stats.getVersion() != socialGraph.getVersion()) {
+            stats = socialGraph.getGraphStats();
+            graphStats = stats;
+        }
+        return stats;
+    }
+
+    /**
+     * method gets an estimate of how far apart people are, which is computed
+     * again only once the graph has changed. The counters it is estimated
+     * with are kept to a quarter of the largest heap
+     */
+    public NeighborhoodFunction getNeighborhoodFunction() {
+        NeighborhoodFunction distances = neighborhoodFunction;
+        if (distances == null || distances.getVersion() != socialGraph.getVersion()) {
+            int precision = NeighborhoodFunction.precisionFor(socialGraph.getNodeCount(),
+                    NeighborhoodFunction.DEFAULT_PRECISION, Runtime.getRuntime().maxMemory() / 4);
+            distances = socialGraph.getNeighborhoodFunction(precision);
+            neighborhoodFunction = distances;
+        }
+        return distances;
     }
 
     /**
      * method gets the shortest path to from one person to another
      */
     public ClosestConnectionInterface<String> getDistanceBetween(String person1, String person2) {
-        System.out.println("function call");
-        List<String> shortestPath = socialGraph.shortestPathData(person1, person2);
+        List<String> shortestPath = findShortestPath(person1, person2);
         int intermediateFriends = shortestPath.size() - 2;
 
         return new ClosestConnection(shortestPath, intermediateFriends);
     }
 
+    /**
+     * method gets the closest connections between many pairs of people in
+     * parallel. Each pair is searched for on a thread of the common
+     * ForkJoinPool, and every thread searches with its own workspaces in the
+     * graph, so the searches share nothing but the graph itself. These
+     * searches bypass the connection cache, so that the threads do not
+     * contend for it.
+     */
+    public List<ClosestConnectionInterface<String>> getDistancesBetween(
+            List<? extends Map.Entry<String, String>> pairs) {
+        // the collected list keeps the order of the pairs, and allows nulls
+        return IntStream.range(0, pairs.size()).parallel()
+                .mapToObj(i -> findConnection(pairs.get(i)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Helper method that searches for the closest connection between a pair
+     * of people, without the cache.
+     *
+     * @return the connection, or null if there is none or either person is
+     *         not in the graph
+     */
+    private ClosestConnectionInterface<String> findConnection(Map.Entry<String, String> pair) {
+        try {
+            List<String> shortestPath = socialGraph.shortestPathData(pair.getKey(), pair.getValue());
+            return new ClosestConnection(shortestPath, shortestPath.size() - 2);
+        } catch (NoSuchElementException e) {
+            return null;
+        }
+    }
+
+    /**
+     * method gets the number of friendships separating one person from each
+     * of many others, with a single search that stops once every one of
+     * them has been reached
+     */
+    public Map<String, Integer> getDistancesFrom(String person, Collection<String> others) {
+        Map<String, Integer> distances = new LinkedHashMap<>();
+        // every friendship has weight 1, so each cost is a number of friendships
+        for (Map.Entry<String, Double> entry : socialGraph.shortestPathCosts(person, others).entrySet()) {
+            distances.put(entry.getKey(), entry.getValue().intValue());
+        }
+        return distances;
+    }
+
+    /**
+     * method gets everyone within a number of friendships of a person, with
+     * a single search that stops at that number of friendships
+     */
+    public Map<String, Integer> getPeopleWithinHops(String person, int hops) {
+        Map<String, Integer> people = socialGraph.nodesWithinHops(person, hops);
+        people.remove(person);
+        return people;
+    }
+
+    /**
+     * method gets the friends two people have in common
+     */
+    public List<String> getMutualFriends(String person1, String person2) {
+        return socialGraph.getMutualFriends(person1, person2);
+    }
+
+    /**
+     * method gets the people someone may know, from the friends they share
+     */
+    public List<FriendRecommender.Recommendation<String>> getFriendRecommendations(
+            String person, int count, FriendRecommender.Score score) {
+        return socialGraph.getFriendRecommendations(person, count, score);
+    }
+
+    /**
+     * method gets the metrics of the queries answered and files loaded so
+     * far as text
+     */
+    public String getMetrics() {
+        return metrics.format();
+    }
+
+    /**
+     * Returns the metrics that this backend records queries and loads in,
+     * so that they can be reset or registered with JMX.
+     *
+     * @return the metrics
+     */
+    public QueryMetrics getQueryMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Returns the cache of closest connections, so that its hit and miss
+     * counts can be inspected.
+     *
+     * @return the cache used by getDistanceBetween
+     */
+    public ResultCache<?, List<String>> getConnectionCache() {
+        return connectionCache;
+    }
+
+    /**
+     * Helper method that returns the shortest path between two people from
+     * the cache when possible. The cache is emptied first whenever the graph
+     * changed since the cached paths were computed. Paths are cached once
+     * per unordered pair, since a shortest path read backwards is also a
+     * shortest path between the same people in the opposite order. A path
+     * is only cached if the graph did not change while it was computed.
+     */
+    private List<String> findShortestPath(String person1, String person2) {
+        if (person1 == null || person2 == null) {
+            return socialGraph.shortestPathData(person1, person2);
+        }
+        long version = socialGraph.getVersion();
+        synchronized (connectionCache) {
+            // versions only grow, so a thread that read an older version
+            // leaves the cache to the threads that saw the newer one
+            if (version > cacheVersion) {
+                connectionCache.clear();
+                cacheVersion = version;
+            }
+        }
+
+        FriendPair pair = new FriendPair(person1, person2);
+        List<String> path = connectionCache.get(pair);
+        if (path == null) {
+            path = Collections.unmodifiableList(
+                    new ArrayList<>(socialGraph.shortestPathData(pair.first, pair.second)));
+            synchronized (connectionCache) {
+                if (version == cacheVersion && version == socialGraph.getVersion()) {
+                    connectionCache.put(pair, path);
+                }
+            }
+        }
+        if (pair.first.equals(person1)) {
+            return path;
+        }
+        List<String> reversed = new ArrayList<>(path);
+        Collections.reverse(reversed);
+        return reversed;
+    }
+
+    /**
+     * Key for the connection cache that identifies a pair of people without
+     * regard to their order.
+     */
+    private static class FriendPair {
+
+        private String first;
+        private String second;
+
+        public FriendPair(String person1, String person2) {
+            boolean inOrder = person1.compareTo(person2) <= 0;
+            this.first = inOrder ? person1 : person2;
+            this.second = inOrder ? person2 : person1;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof FriendPair)) {
+                return false;
+            }
+            FriendPair pair = (FriendPair) other;
+            return first.equals(pair.first) && second.equals(pair.second);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * first.hashCode() + second.hashCode();
+        }
+    }
+
     /**
      * Nested class
      */
@@ -1,3 +1,9 @@
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
 /**
  * This is the individual backend interface for the backend class of the social app.
  * @param <T> generic type
@@ -10,11 +16,14 @@ public interface BackendInterface {
     //public IndividualBackendInterface(GraphADT data)
 
     /**
-     * This method is to read data from a file.
+     * This method is to read data from a file, either a DOT file or a binary snapshot of one.
      *
      * @param filePath that stores the data's file path
+     * @throws java.nio.file.NoSuchFileException if there is no file at filePath
+     * @throws DotFormatException if the file is not a valid DOT file, naming the line at fault
+     * @throws IOException if the file cannot be read
      */
-    public void readData(String filePath);
+    public void readData(String filePath) throws IOException;
 
     /**
      * This method gets a string with statistics about the dataset that includes the number of
@@ -25,6 +34,32 @@ public interface BackendInterface {
      */
     public String getStats();
 
+    /**
+     * This method gets the statistics of the neighborhoods in the dataset: the number of friends
+     * and of triangles of friends each participant has, and the clustering coefficients derived
+     * from them.
+     *
+     * @return the statistics of the dataset as it is now
+     */
+    public GraphStats<String> getGraphStats();
+
+    /**
+     * This method gets an estimate of how far apart participants are: for every number of hops,
+     * how many pairs of participants are connected within it, along with the average degrees of
+     * separation and the effective diameter derived from them.
+     *
+     * @return the estimate for the dataset as it is now
+     */
+    public NeighborhoodFunction getNeighborhoodFunction();
+
+    /**
+     * This method gets a string with metrics about the queries answered and the files loaded so
+     * far: the number of queries, the work and time they took, and how fast files were read.
+     *
+     * @return the string that contains the metrics
+     */
+    public String getMetrics();
+
     /**
      * This method gets the closest connection (shortest path of friends) between two participants.
      *
@@ -33,4 +68,66 @@ public interface BackendInterface {
      * @return the instance of ClosestConnectionInterface
      */
     public ClosestConnectionInterface<String> getDistanceBetween(String person1, String person2);
+
+    /**
+     * This method gets the closest connections between many pairs of participants at once,
+     * spreading the searches for them across all available processors. The dataset must not be
+     * changed while this method runs.
+     *
+     * @param pairs the pairs of participants, each with the first participant as its key and the
+     *              second participant as its value
+     * @return the closest connection for each pair, in the same order as pairs, or null for a
+     *         pair that is not connected or that names someone who is not in the dataset
+     */
+    public List<ClosestConnectionInterface<String>> getDistancesBetween(
+            List<? extends Map.Entry<String, String>> pairs);
+
+    /**
+     * This method gets the number of friendships separating one participant from each of many
+     * others, using a single search from that participant.
+     *
+     * @param person the participant to measure from
+     * @param others the participants to measure to
+     * @return a map from each of others who is connected to person to the number of friendships
+     *         along their closest connection, ordered from the closest to the farthest; others
+     *         who are not connected or not in the dataset are left out
+     * @throws NoSuchElementException if person is not in the dataset
+     */
+    public Map<String, Integer> getDistancesFrom(String person, Collection<String> others);
+
+    /**
+     * This method gets every participant who is connected to a participant through at most a
+     * given number of friendships, such as the people someone may know within three hops, using
+     * a single search from that participant.
+     *
+     * @param person the participant to search from
+     * @param hops the largest number of friendships to follow
+     * @return a map from each such participant, other than person, to the number of friendships
+     *         along their closest connection, ordered from the closest to the farthest
+     * @throws NoSuchElementException if person is not in the dataset
+     */
+    public Map<String, Integer> getPeopleWithinHops(String person, int hops);
+
+    /**
+     * This method gets the friends two participants have in common.
+     *
+     * @param person1 first participant
+     * @param person2 second participant
+     * @return the participants who are friends of both
+     * @throws NoSuchElementException if either participant is not in the dataset
+     */
+    public List<String> getMutualFriends(String person1, String person2);
+
+    /**
+     * This method gets the people a participant may know: participants who share friends with
+     * them but are not yet their friends, ranked by a score of how many friends they share.
+     *
+     * @param person the participant to recommend friends to
+     * @param count the largest number of participants to recommend
+     * @param score how to rank the participants who share friends with person
+     * @return up to count recommendations, best first
+     * @throws NoSuchElementException if person is not in the dataset
+     */
+    public List<FriendRecommender.Recommendation<String>> getFriendRecommendations(String person,
+            int count, FriendRecommender.Score score);
 }
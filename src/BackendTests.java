@@ -1,15 +1,27 @@
-import static org.junit.Assert.*;
-import java.util.List;
-import java.util.Arrays;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
-public class BackendDeveloperTests {
+public class BackendTests {
     /**
      * Test case for the readData method in the Backend class.
      */
     @Test
-    public void testReadData() {
-        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new PlaceholderMap<>());
+    public void testReadData() throws IOException {
+        UndirectedGraph<String, Integer> graph = new UndirectedGraph<>(new PlaceholderMap<>());
         BackendInterface backend = new Backend(graph);
         String filePath = "socialnetwork.dot";
 
@@ -18,62 +30,198 @@ public class BackendDeveloperTests {
         });
 
         backend.readData(filePath);
-        assertTrue(graph.containsNode>0);
+        assertEquals(100, graph.getNodeCount());
+        assertTrue(graph.containsEdge("user0", "user37"));
     }
+
     /**
-     * Test case for the getStats method in the Backend class.
+     * Test case for the readData method loading the distance index that the
+     * PrunedLandmarkIndex command wrote next to the file, whichever way the
+     * graph it is loaded into stores its edges.
      */
     @Test
-    public void testGetStats() {
+    public void testReadDataWithDistanceIndex(@TempDir Path directory) throws IOException {
+        Path dot = directory.resolve("socialnetwork.dot");
+        Files.copy(Paths.get("socialnetwork.dot"), dot);
+        PrunedLandmarkIndex.main(new String[] {dot.toString(), "100"});
+
+        UndirectedGraph<String, Integer> graph = new UndirectedGraph<>(new PlaceholderMap<>());
+        Backend backend = new Backend(graph);
+        backend.readData(dot.toString());
+        assertTrue(graph.isHopIndexFresh());
+        assertEquals(1, backend.getDistanceBetween("user1", "user13").numberOfIntermediaryFriends());
+
+        DijkstraGraph<String, Integer> directed = new DijkstraGraph<>(new PlaceholderMap<>());
+        new Backend(directed).readData(dot.toString());
+        assertTrue(directed.isHopIndexFresh());
+    }
 
-        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new PlaceholderMap<>());
+    /**
+     * Test case for the getStats method in the Backend class.
+     */
+    @Test
+    public void testGetStats() throws IOException {
+        UndirectedGraph<String, Integer> graph = new UndirectedGraph<>(new PlaceholderMap<>());
         BackendInterface backend = new Backend(graph);
         backend.readData("socialnetwork.dot");
 
-        String stats = backend.getStats();
-
-        assertEquals("Nodes: 21, Edges: 22, Average friends: 2.5", backend.getStats());
-
+        assertEquals("Number of Nodes: 100\nNumber of Edges: 343\nAverage Number of Friends: 4.88"
+                + "\nNumber of Components: 1\nLargest Component Size: 100\nNumber of Isolated People: 0"
+                + "\nNumber of Triangles: 234\nAverage Clustering Coefficient: 0.537"
+                + "\nGlobal Clustering Coefficient: 0.104"
+                + "\nAverage Degrees of Separation: 1.95\nEffective Diameter: 1.89",
+                backend.getStats());
+
+        graph.insertNode("loner");
+        graph.insertNode("hermit");
+        graph.insertEdge("hermit", "hermit", 1);
+        assertTrue(backend.getStats().contains(
+                "\nNumber of Components: 3\nLargest Component Size: 100\nNumber of Isolated People: 2\n"));
     }
+
     /**
      * Test case for the getDistanceBetween method in the Backend class.
      */
     @Test
-    public void testGetDistanceBetween() {
-
-        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new PlaceholderMap<>());
+    public void testGetDistanceBetween() throws IOException {
+        UndirectedGraph<String, Integer> graph = new UndirectedGraph<>(new PlaceholderMap<>());
         BackendInterface backend = new Backend(graph);
         backend.readData("socialnetwork.dot");
 
+        ClosestConnectionInterface<String> connection = backend.getDistanceBetween("user0", "user37");
+        assertEquals(List.of("user0", "user37"), connection.getPathBetweenFriends());
+        assertEquals(0, connection.numberOfIntermediaryFriends());
+
+        // a connection through other people lists each of them once, in order
+        connection = backend.getDistanceBetween("user0", "user99");
+        List<String> path = connection.getPathBetweenFriends();
+        assertEquals("user0", path.get(0));
+        assertEquals("user99", path.get(path.size() - 1));
+        assertEquals(path.size() - 2, connection.numberOfIntermediaryFriends());
+        assertEquals(path.size() - 1, (int) graph.shortestPathCost("user0", "user99"));
+        for (int i = 0; i + 1 < path.size(); i++) {
+            assertTrue(graph.containsEdge(path.get(i), path.get(i + 1))
+                    || graph.containsEdge(path.get(i + 1), path.get(i)));
+        }
+
+        assertThrows(NoSuchElementException.class,
+                () -> backend.getDistanceBetween("user0", "nobody"));
+    }
 
+    /**
+     * Test case for the getDistancesBetween method in the Backend class,
+     * which answers in the order of the pairs, with null for pairs that are
+     * not connected or name someone who is not in the dataset.
+     */
+    @Test
+    public void testGetDistancesBetween() throws IOException {
+        UndirectedGraph<String, Integer> graph = new UndirectedGraph<>(new PlaceholderMap<>());
+        BackendInterface backend = new Backend(graph);
+        backend.readData("socialnetwork.dot");
+        graph.insertNode("loner");
+
+        List<Map.Entry<String, String>> pairs = new ArrayList<>();
+        for (int i = 0; i < 100; i++)
+            pairs.add(Map.entry("user" + i, "user" + (99 - i)));
+        pairs.add(Map.entry("user0", "loner"));
+        pairs.add(Map.entry("nobody", "user0"));
+        pairs.add(Map.entry("user5", "user5"));
+
+        List<ClosestConnectionInterface<String>> connections = backend.getDistancesBetween(pairs);
+        assertEquals(pairs.size(), connections.size());
+        for (int i = 0; i < 100; i++) {
+            Map.Entry<String, String> pair = pairs.get(i);
+            List<String> path = connections.get(i).getPathBetweenFriends();
+            assertEquals(pair.getKey(), path.get(0));
+            assertEquals(pair.getValue(), path.get(path.size() - 1));
+            assertEquals(backend.getDistanceBetween(pair.getKey(), pair.getValue())
+                    .numberOfIntermediaryFriends(), connections.get(i).numberOfIntermediaryFriends());
+        }
+        assertNull(connections.get(100));
+        assertNull(connections.get(101));
+        assertEquals(List.of("user5"), connections.get(102).getPathBetweenFriends());
+        assertEquals(List.of(), backend.getDistancesBetween(List.of()));
+    }
 
-        ClosestConnectionInterface<String> connection = backend.getDistanceBetween("user0", "user37");
+    /**
+     * Test case for the getDistancesFrom method in the Backend class, which
+     * leaves out people who are not connected or not in the dataset.
+     */
+    @Test
+    public void testGetDistancesFrom() throws IOException {
+        UndirectedGraph<String, Integer> graph = new UndirectedGraph<>(new PlaceholderMap<>());
+        BackendInterface backend = new Backend(graph);
+        backend.readData("socialnetwork.dot");
+        graph.insertNode("loner");
+
+        List<String> others = List.of("user99", "user13", "user0", "loner", "nobody", "user50");
+        Map<String, Integer> distances = backend.getDistancesFrom("user13", others);
+        assertEquals(Set.of("user13", "user0", "user50", "user99"), distances.keySet());
+        int previous = 0;
+        for (Map.Entry<String, Integer> entry : distances.entrySet()) {
+            assertEquals((int) graph.shortestPathCost("user13", entry.getKey()), entry.getValue());
+            assertTrue(entry.getValue() >= previous);
+            previous = entry.getValue();
+        }
+        assertEquals(0, distances.get("user13"));
+        assertEquals(1, distances.get("user0"));
+        assertThrows(NoSuchElementException.class, () -> backend.getDistancesFrom("nobody", others));
+    }
 
-        assertEquals(List.of("user8", "user26", "user16", "user10"), connection.getPathBetweenFriends());
-        assertEquals(2, connection.numberOfIntermediaryFriends());
+    /**
+     * Test case for the getPeopleWithinHops method in the Backend class,
+     * against the closest connection to every person in the dataset.
+     */
+    @Test
+    public void testGetPeopleWithinHops() throws IOException {
+        UndirectedGraph<String, Integer> graph = new UndirectedGraph<>(new PlaceholderMap<>());
+        BackendInterface backend = new Backend(graph);
+        backend.readData("socialnetwork.dot");
+
+        for (int hops = 0; hops <= 3; hops++) {
+            Map<String, Integer> people = backend.getPeopleWithinHops("user13", hops);
+            assertFalse(people.containsKey("user13"));
+            int previous = 1;
+            for (Map.Entry<String, Integer> entry : people.entrySet()) {
+                assertTrue(entry.getValue() >= previous && entry.getValue() <= hops);
+                previous = entry.getValue();
+            }
+            for (int i = 0; i < 100; i++) {
+                String person = "user" + i;
+                if (person.equals("user13"))
+                    continue;
+                int distance = (int) graph.shortestPathCost("user13", person);
+                assertEquals(distance <= hops, people.containsKey(person));
+                if (distance <= hops)
+                    assertEquals(distance, people.get(person));
+            }
+        }
+        assertEquals(List.of("user0"), List.copyOf(backend.getPeopleWithinHops("user13", 1).keySet()));
+        assertThrows(NoSuchElementException.class, () -> backend.getPeopleWithinHops("nobody", 2));
     }
+
     /**
      * Test case for the getPathBetweenFriends method in the ClosestConnection class.
      */
-
     @Test
     public void testGetPathBetweenFriends() {
+        Backend backend = new Backend(new UndirectedGraph<>(new PlaceholderMap<>()));
         List<String> expectedPath = Arrays.asList("user1", "user2", "user3");
-        ClosestConnectionInterface<String> closestConnection = new ClosestConnection<>(expectedPath, 2);
+        ClosestConnectionInterface<String> closestConnection =
+                backend.new ClosestConnection(expectedPath, 1);
 
-        assertEquals(expectedPath,closestConnection.getPathBetweenFriends());
+        assertEquals(expectedPath, closestConnection.getPathBetweenFriends());
     }
+
     /**
      * Test case for the numberOfIntermediaryFriends method in the ClosestConnection class.
      */
     @Test
     public void testNumberOfIntermediaryFriends() {
+        Backend backend = new Backend(new UndirectedGraph<>(new PlaceholderMap<>()));
+        ClosestConnectionInterface<String> closestConnection =
+                backend.new ClosestConnection(Arrays.asList("user1", "user2", "user3"), 1);
 
-        ClosestConnectionInterface<String> closestConnection = new ClosestConnection<>(Arrays.asList("user1", "user2", "u\
-ser3"), expectedNumberOfIntermediaryFriends);
-
-        int intermediaryFriends = closestConnection.numberOfIntermediaryFriends();
-assertEquals(3, intermediaryFriends);
+        assertEquals(1, closestConnection.numberOfIntermediaryFriends());
     }
-
 }
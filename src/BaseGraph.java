@@ -1,5 +1,9 @@
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 
 /**
@@ -8,11 +12,19 @@ import java.util.NoSuchElementException;
  */
 public class BaseGraph<NodeType, EdgeType extends Number> {
 
+    // Nodes with more leaving edges than this index them by successor, so
+    // that finding one of their edges does not scan all of them
+    public static final int EDGE_INDEX_THRESHOLD = 8;
+
     // Each node contains unique data along with two lists of directed edges
     protected class Node {
         public NodeType data;
-        public List<Edge> edgesLeaving = new LinkedList<>();
-        public List<Edge> edgesEntering = new LinkedList<>();
+        public int id; // this node's position within nodeTable
+        public List<Edge> edgesLeaving = new ArrayList<>();
+        public List<Edge> edgesEntering = new ArrayList<>();
+        // the edges leaving this node by the node at their other end, or null
+        // while there are no more than EDGE_INDEX_THRESHOLD of them
+        public Map<Node, Edge> successorIndex = null;
 
         public Node(NodeType data) {
             this.data = data;
@@ -22,22 +34,52 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     // Nodes can be retrieved from this map by their unique data
     protected MapADT<NodeType, Node> nodes = null;
 
+    // Nodes are also stored in this list at the position of their id, so that
+    // they can be enumerated and numbered densely from 0 to getNodeCount()-1
+    protected ArrayList<Node> nodeTable = new ArrayList<>();
+
     // Each edge contains data/weight, and two nodes that it connects
     protected class Edge {
         public EdgeType data; // the weight or cost of this edge
         public Node predecessor;
         public Node successor;
+        // this edge's positions within predecessor.edgesLeaving and
+        // successor.edgesEntering, so that it can be removed from both lists
+        // without searching them
+        public int leavingPosition;
+        public int enteringPosition;
 
         public Edge(EdgeType data, Node pred, Node succ) {
             this.data = data;
             this.predecessor = pred;
             this.successor = succ;
         }
+
+        /**
+         * Returns the node at the other end of this edge from node, which is
+         * the successor when this edge is one of node's leaving edges.
+         *
+         * @param node one of this edge's nodes
+         * @return the other one, or node itself for a self loop
+         */
+        public Node other(Node node) {
+            return node == predecessor ? successor : predecessor;
+        }
     }
 
     protected int edgeCount = 0;
     // Edges can be retrieved through the edge lists in either connected node
 
+    // Incremented by every change to the graph's nodes or edges, so that
+    // results derived from the graph can tell when they have become stale
+    protected long version = 0;
+
+    // The weight of the first edge inserted into the graph, and the number of
+    // edges whose weight differs from it: while that number is zero, every
+    // edge in the graph has the same weight
+    protected double uniformWeight = Double.NaN;
+    protected int nonUniformEdgeCount = 0;
+
     /**
      * Constructor for BaseGraph that provides the map the graph uses.
      * 
@@ -59,7 +101,11 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     public boolean insertNode(NodeType data) {
         if (nodes.containsKey(data))
             return false; // throws NPE when data's null
-        nodes.put(data, new Node(data));
+        Node newNode = createNode(data);
+        newNode.id = nodeTable.size();
+        nodes.put(data, newNode);
+        nodeTable.add(newNode);
+        version++;
         return true;
     }
 
@@ -76,16 +122,106 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
         // remove this node from nodes collection
         if (!nodes.containsKey(data))
             return false; // throws NPE when data==null
-        Node oldNode = nodes.remove(data);
-        // remove all edges entering neighboring nodes from this one
-        for (Edge edge : oldNode.edgesLeaving)
-            edge.successor.edgesEntering.remove(edge);
-        // remove all edges leaving neighboring nodes toward this one
-        for (Edge edge : oldNode.edgesEntering)
-            edge.predecessor.edgesLeaving.remove(edge);
+        detachNode(nodes.remove(data));
+        version++;
         return true;
     }
 
+    /**
+     * Creates a node for new data, with empty edge lists.
+     * 
+     * @param data the data item to store in the node
+     * @return the node, which is not yet in the graph
+     */
+    protected Node createNode(NodeType data) {
+        return new Node(data);
+    }
+
+    /**
+     * Removes a node from nodeTable, by moving the last node in nodeTable
+     * into its position.
+     * 
+     * @param oldNode the node to remove
+     */
+    protected void removeFromTable(Node oldNode) {
+        Node lastNode = nodeTable.remove(nodeTable.size() - 1);
+        if (lastNode != oldNode) {
+            nodeTable.set(oldNode.id, lastNode);
+            lastNode.id = oldNode.id;
+        }
+    }
+
+    /**
+     * Removes a node that was already removed from the nodes map from
+     * nodeTable, along with all edges adjacent to it.
+     * 
+     * @param oldNode the node to remove
+     */
+    protected void detachNode(Node oldNode) {
+        removeFromTable(oldNode);
+        // remove all edges entering neighboring nodes from this one
+        for (Edge edge : oldNode.edgesLeaving) {
+            unlinkEntering(edge);
+            weightRemoved(edge.data);
+            this.edgeCount--;
+            edgeRemoved(edge);
+        }
+        // remove all edges leaving neighboring nodes toward this one, which
+        // no longer include self loops, as the loop above removed them
+        for (Edge edge : oldNode.edgesEntering) {
+            unlinkLeaving(edge);
+            weightRemoved(edge.data);
+            this.edgeCount--;
+            edgeRemoved(edge);
+        }
+    }
+
+    /**
+     * Insert many new nodes into the graph at once. Data that is already in
+     * the graph, or that appears more than once, is inserted only once.
+     * 
+     * @param data the data items to store in the new nodes
+     * @return the number of nodes inserted
+     * @throws NullPointerException if any data item is null
+     */
+    public int insertNodes(Collection<? extends NodeType> data) {
+        nodeTable.ensureCapacity(nodeTable.size() + data.size());
+        int inserted = 0;
+        for (NodeType item : data) {
+            if (nodes.containsKey(item))
+                continue; // throws NPE when item's null
+            Node newNode = createNode(item);
+            newNode.id = nodeTable.size();
+            nodes.put(item, newNode);
+            nodeTable.add(newNode);
+            inserted++;
+        }
+        if (inserted > 0)
+            version++;
+        return inserted;
+    }
+
+    /**
+     * Remove many nodes from the graph at once, along with all edges adjacent
+     * to them.
+     * 
+     * @param data the data items stored in the nodes to be removed
+     * @return the number of nodes found and removed
+     * @throws NullPointerException if any data item is null
+     */
+    public int removeNodes(Collection<? extends NodeType> data) {
+        int removed = 0;
+        for (NodeType item : data) {
+            if (!nodes.containsKey(item))
+                continue; // throws NPE when item's null
+            detachNode(nodes.remove(item));
+            removed++;
+        }
+        if (removed > 0)
+            version++;
+        return removed;
+    }
+
     /**
      * Check whether the graph contains a node with the provided data.
      * 
@@ -119,23 +255,39 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      */
     public boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight) {
         // find nodes associated with node data, and return false when not found
-        Node predNode = nodes.get(pred);
-        Node succNode = nodes.get(succ);
+        Node predNode = nodes.getOrNull(pred);
+        Node succNode = nodes.getOrNull(succ);
         if (predNode == null || succNode == null)
             return false;
-        try {
+        putEdge(predNode, succNode, weight);
+        version++;
+        return true;
+    }
+
+    /**
+     * Inserts an edge between two nodes, or updates the weight of the edge
+     * between them if there already is one.
+     * 
+     * @param predNode the source node for the edge
+     * @param succNode the target node for the edge
+     * @param weight the non-negative weight of the edge
+     */
+    protected void putEdge(Node predNode, Node succNode, EdgeType weight) {
+        Edge existingEdge = findEdge(predNode, succNode);
+        if (existingEdge != null) {
             // when an edge alread exists within the graph, update its weight
-            Edge existingEdge = getEdgeHelper(pred, succ);
+            weightRemoved(existingEdge.data);
+            weightAdded(weight);
             existingEdge.data = weight;
-        } catch (NoSuchElementException e) {
+        } else {
             // otherwise create a new edges
             Edge newEdge = new Edge(weight, predNode, succNode);
+            weightAdded(weight);
             this.edgeCount++;
             // and insert it into each of its adjacent nodes' respective lists
-            predNode.edgesLeaving.add(newEdge);
-            succNode.edgesEntering.add(newEdge);
+            link(newEdge);
+            edgeAdded(newEdge);
         }
-        return true;
     }
 
     /**
@@ -147,19 +299,154 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      *         false if such an edge is not found in the graph
      */
     public boolean removeEdge(NodeType pred, NodeType succ) {
-        try {
-            // when an edge exists
-            Edge oldEdge = getEdgeHelper(pred, succ);
-            // remove it from the edge lists of each adjacent node
-            oldEdge.predecessor.edgesLeaving.remove(oldEdge);
-            oldEdge.successor.edgesEntering.remove(oldEdge);
-            // and decrement the edge count before removing
-            this.edgeCount--;
-            return true;
-        } catch (NoSuchElementException e) {
-            // when no such edge exists, return false instead
+        Edge oldEdge = findEdge(pred, succ);
+        // when no such edge exists, return false
+        if (oldEdge == null)
             return false;
+        // remove it from the edge lists of each adjacent node
+        unlinkLeaving(oldEdge);
+        unlinkEntering(oldEdge);
+        weightRemoved(oldEdge.data);
+        // and decrement the edge count before removing
+        this.edgeCount--;
+        edgeRemoved(oldEdge);
+        version++;
+        return true;
+    }
+
+    /**
+     * Insert or update many edges at once, with the same result as calling
+     * insertEdge for each of them in order. The edges are sorted by their
+     * nodes, so that when the same edge appears more than once only its last
+     * weight is applied, and so that each node's edges are added together.
+     * Nodes that gain enough leaving edges are indexed once, after all of
+     * their edges have been added.
+     * 
+     * @param edges the edges to insert, with their weights
+     * @return the number of edges that were inserted or updated, counting
+     *         repeated edges each time, which leaves out only edges whose
+     *         nodes are not found in the graph
+     */
+    public int insertEdges(Collection<? extends WeightedEdge<NodeType, EdgeType>> edges) {
+        int size = edges.size();
+        List<Node> predNodes = new ArrayList<>(size);
+        List<Node> succNodes = new ArrayList<>(size);
+        List<EdgeType> weights = new ArrayList<>(size);
+        long[] keys = new long[size];
+        int count = 0;
+        for (WeightedEdge<NodeType, EdgeType> edge : edges) {
+            Node predNode = nodes.getOrNull(edge.predecessor);
+            Node succNode = nodes.getOrNull(edge.successor);
+            if (predNode == null || succNode == null)
+                continue;
+            predNodes.add(predNode);
+            succNodes.add(succNode);
+            weights.add(edge.weight);
+            keys[count++] = ((long) predNode.id << 32) | succNode.id;
+        }
+
+        int[] order = sortedOrder(keys, count);
+        int i = 0;
+        while (i < count) {
+            Node predNode = predNodes.get(order[i]);
+            // only the edges the node had before this batch can be duplicates
+            int existingCount = predNode.edgesLeaving.size();
+            for (; i < count && predNodes.get(order[i]) == predNode; i++) {
+                int position = order[i];
+                if (i + 1 < count && keys[order[i + 1]] == keys[position])
+                    continue; // a later weight for the same edge wins
+                Node succNode = succNodes.get(position);
+                EdgeType weight = weights.get(position);
+                Edge existingEdge = null;
+                if (predNode.successorIndex != null) {
+                    existingEdge = predNode.successorIndex.get(succNode);
+                } else {
+                    for (int j = 0; j < existingCount && existingEdge == null; j++)
+                        if (predNode.edgesLeaving.get(j).successor == succNode)
+                            existingEdge = predNode.edgesLeaving.get(j);
+                }
+                if (existingEdge != null) {
+                    weightRemoved(existingEdge.data);
+                    weightAdded(weight);
+                    existingEdge.data = weight;
+                } else {
+                    Edge newEdge = new Edge(weight, predNode, succNode);
+                    weightAdded(weight);
+                    this.edgeCount++;
+                    append(newEdge);
+                    if (predNode.successorIndex != null)
+                        predNode.successorIndex.put(succNode, newEdge);
+                    edgeAdded(newEdge);
+                }
+            }
+            if (predNode.successorIndex == null
+                    && predNode.edgesLeaving.size() > EDGE_INDEX_THRESHOLD)
+                indexSuccessors(predNode);
+        }
+        if (count > 0)
+            version++;
+        return count;
+    }
+
+    /**
+     * Remove many edges from the graph at once. Each edge is found and
+     * removed in constant expected time, so unlike insertEdges, the edges are
+     * not sorted first.
+     * 
+     * @param edges the edges to remove, whose weights are ignored
+     * @return the number of edges found and removed
+     */
+    public int removeEdges(Collection<? extends WeightedEdge<NodeType, ?>> edges) {
+        int removed = 0;
+        for (WeightedEdge<NodeType, ?> edge : edges) {
+            Edge oldEdge = findEdge(edge.predecessor, edge.successor);
+            if (oldEdge == null)
+                continue;
+            unlinkLeaving(oldEdge);
+            unlinkEntering(oldEdge);
+            weightRemoved(oldEdge.data);
+            this.edgeCount--;
+            edgeRemoved(oldEdge);
+            removed++;
         }
+        if (removed > 0)
+            version++;
+        return removed;
+    }
+
+    /**
+     * Returns the positions of the first count keys in increasing order of
+     * their keys, keeping equal keys in their original order. This is a
+     * radix sort over the bytes of the keys, which must not be negative, and
+     * it skips the bytes that every key shares.
+     * 
+     * @param keys the keys to sort by
+     * @param count the number of keys to sort
+     * @return the positions of the keys, in sorted order
+     */
+    protected static int[] sortedOrder(long[] keys, int count) {
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++)
+            order[i] = i;
+        int[] sorted = new int[count];
+        int[] starts = new int[257];
+        for (int shift = 0; shift < 64 && count > 1; shift += 8) {
+            Arrays.fill(starts, 0);
+            for (int i = 0; i < count; i++)
+                starts[(int) ((keys[i] >>> shift) & 0xFF) + 1]++;
+            if (starts[(int) ((keys[0] >>> shift) & 0xFF) + 1] == count)
+                continue;
+            for (int b = 0; b < 256; b++)
+                starts[b + 1] += starts[b];
+            for (int i = 0; i < count; i++) {
+                int position = order[i];
+                sorted[starts[(int) ((keys[position] >>> shift) & 0xFF)]++] = position;
+            }
+            int[] swap = order;
+            order = sorted;
+            sorted = swap;
+        }
+        return order;
     }
 
     /**
@@ -170,12 +457,7 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
      * @return true if the edge is found in the graph, or false other
      */
     public boolean containsEdge(NodeType pred, NodeType succ) {
-        try {
-            getEdgeHelper(pred, succ);
-            return true;
-        } catch (NoSuchElementException e) {
-            return false;
-        }
+        return findEdge(pred, succ) != null;
     }
 
     /**
@@ -192,15 +474,117 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     }
 
     protected Edge getEdgeHelper(NodeType pred, NodeType succ) {
-        Node predNode = nodes.get(pred);
-        // search for edge through the predecessor's list of leaving edges
-        for (Edge edge : predNode.edgesLeaving)
-            // compare succ to the data in each leaving edge's successor
-            if (edge.successor.data.equals(succ))
-                return edge;
+        Edge edge = findEdge(pred, succ);
         // when no such edge can be found, throw NSE
-        throw new NoSuchElementException("No edge from " + pred.toString() + " to " +
-                succ.toString());
+        if (edge == null)
+            throw new NoSuchElementException("No edge from " + pred + " to " + succ);
+        return edge;
+    }
+
+    /**
+     * Finds the edge between the nodes containing two data items, without
+     * throwing when there is none.
+     * 
+     * @param pred the data item contained in the source node for the edge
+     * @param succ the data item contained in the target node for the edge
+     * @return the edge, or null if either node or the edge is not found
+     */
+    protected Edge findEdge(NodeType pred, NodeType succ) {
+        Node predNode = nodes.getOrNull(pred);
+        Node succNode = nodes.getOrNull(succ);
+        if (predNode == null || succNode == null)
+            return null;
+        return findEdge(predNode, succNode);
+    }
+
+    /**
+     * Finds the edge between two nodes, through the predecessor's index when
+     * it has one, and otherwise by scanning its few leaving edges.
+     * 
+     * @param predNode the source node for the edge
+     * @param succNode the target node for the edge
+     * @return the edge, or null if there is none
+     */
+    protected Edge findEdge(Node predNode, Node succNode) {
+        if (predNode.successorIndex != null)
+            return predNode.successorIndex.get(succNode);
+        List<Edge> edges = predNode.edgesLeaving;
+        for (int i = 0; i < edges.size(); i++)
+            if (edges.get(i).successor == succNode)
+                return edges.get(i);
+        return null;
+    }
+
+    /**
+     * Appends a new edge to the edge lists of both of its nodes, and to its
+     * predecessor's index, which is built once the predecessor has more than
+     * EDGE_INDEX_THRESHOLD leaving edges.
+     * 
+     * @param edge the edge to add
+     */
+    protected void link(Edge edge) {
+        Node predNode = edge.predecessor;
+        append(edge);
+        if (predNode.successorIndex != null)
+            predNode.successorIndex.put(edge.successor, edge);
+        else if (predNode.edgesLeaving.size() > EDGE_INDEX_THRESHOLD)
+            indexSuccessors(predNode);
+    }
+
+    /**
+     * Appends a new edge to the edge lists of both of its nodes, without
+     * updating its predecessor's index.
+     * 
+     * @param edge the edge to add
+     */
+    protected void append(Edge edge) {
+        edge.leavingPosition = edge.predecessor.edgesLeaving.size();
+        edge.predecessor.edgesLeaving.add(edge);
+        edge.enteringPosition = edge.successor.edgesEntering.size();
+        edge.successor.edgesEntering.add(edge);
+    }
+
+    /**
+     * Builds the index of a node's leaving edges by successor.
+     * 
+     * @param node the node to index
+     */
+    protected void indexSuccessors(Node node) {
+        node.successorIndex = new HashMap<>(node.edgesLeaving.size() * 2);
+        for (Edge leaving : node.edgesLeaving)
+            node.successorIndex.put(leaving.successor, leaving);
+    }
+
+    /**
+     * Removes an edge from its predecessor's leaving edges and index, by
+     * moving the last leaving edge into its position.
+     * 
+     * @param edge the edge to remove
+     */
+    protected void unlinkLeaving(Edge edge) {
+        List<Edge> edges = edge.predecessor.edgesLeaving;
+        Edge last = edges.remove(edges.size() - 1);
+        if (last != edge) {
+            edges.set(edge.leavingPosition, last);
+            last.leavingPosition = edge.leavingPosition;
+        }
+        if (edge.predecessor.successorIndex != null)
+            edge.predecessor.successorIndex.remove(edge.successor);
+    }
+
+    /**
+     * Removes an edge from its successor's entering edges, by moving the
+     * last entering edge into its position.
+     * 
+     * @param edge the edge to remove
+     */
+    protected void unlinkEntering(Edge edge) {
+        List<Edge> edges = edge.successor.edgesEntering;
+        Edge last = edges.remove(edges.size() - 1);
+        if (last != edge) {
+            edges.set(edge.enteringPosition, last);
+            last.enteringPosition = edge.enteringPosition;
+        }
     }
 
     /**
@@ -211,4 +595,118 @@ public class BaseGraph<NodeType, EdgeType extends Number> {
     public int getEdgeCount() {
         return this.edgeCount;
     }
+
+    /**
+     * Return the average number of edges leaving each node.
+     * 
+     * @return the number of edges per node, or NaN for an empty graph
+     */
+    public double getAverageDegree() {
+        return (double) this.edgeCount / getNodeCount();
+    }
+
+    /**
+     * Return the version of the graph, which changes whenever a node or edge
+     * is inserted, updated or removed. Results computed from the graph can
+     * record the version they were computed at, and are out of date once the
+     * version differs.
+     * 
+     * @return the current version of the graph
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Builds an immutable snapshot of this graph in compressed sparse row
+     * form. The snapshot numbers nodes by their current ids and does not
+     * change when this graph is modified later.
+     * 
+     * @return a CsrGraph holding the current nodes and edges of this graph
+     */
+    public CsrGraph<NodeType> freeze() {
+        int nodeCount = nodeTable.size();
+        Object[] data = new Object[nodeCount];
+        int[] offsets = new int[nodeCount + 1];
+        for (Node node : nodeTable) {
+            data[node.id] = node.data;
+            offsets[node.id + 1] = node.edgesLeaving.size() + node.edgesEntering.size();
+        }
+        for (int i = 0; i < nodeCount; i++)
+            offsets[i + 1] += offsets[i];
+
+        // list the neighbors across edges in either direction, since searches
+        // treat every edge as a connection between both of its nodes
+        int[] neighbors = new int[offsets[nodeCount]];
+        double[] weights = new double[offsets[nodeCount]];
+        for (Node node : nodeTable) {
+            int position = offsets[node.id];
+            for (Edge edge : node.edgesLeaving) {
+                neighbors[position] = edge.other(node).id;
+                weights[position++] = edge.data.doubleValue();
+            }
+            for (Edge edge : node.edgesEntering) {
+                neighbors[position] = edge.predecessor.id;
+                weights[position++] = edge.data.doubleValue();
+            }
+        }
+        return new CsrGraph<>(data, offsets, neighbors, weights, edgeCount,
+                hasUniformWeights() ? uniformWeight : Double.NaN);
+    }
+
+    /**
+     * Check whether every edge in the graph currently has the same weight, in
+     * which case that weight is stored in uniformWeight. This check is
+     * conservative: after edge weights are updated it may return false for a
+     * graph whose weights happen to be equal again, but it never returns true
+     * for a graph with differing weights.
+     * 
+     * @return true if all edges are known to share the same weight
+     */
+    protected boolean hasUniformWeights() {
+        return nonUniformEdgeCount == 0;
+    }
+
+    /**
+     * Records the weight of an edge that is being added to the graph. Must be
+     * called before edgeCount is incremented for that edge.
+     * 
+     * @param weight the weight of the new edge
+     */
+    protected void weightAdded(EdgeType weight) {
+        double value = weight.doubleValue();
+        if (edgeCount == 0 && nonUniformEdgeCount == 0)
+            uniformWeight = value;
+        else if (value != uniformWeight)
+            nonUniformEdgeCount++;
+    }
+
+    /**
+     * Records the weight of an edge that is being removed from the graph.
+     * 
+     * @param weight the weight of the removed edge
+     */
+    protected void weightRemoved(EdgeType weight) {
+        if (weight.doubleValue() != uniformWeight)
+            nonUniformEdgeCount--;
+    }
+
+    /**
+     * Called after a new edge has been added to the graph, so that
+     * subclasses can keep what they derive from the graph up to date. Weight
+     * updates of existing edges are not reported.
+     * 
+     * @param edge the new edge
+     */
+    protected void edgeAdded(Edge edge) {
+    }
+
+    /**
+     * Called after an edge has been removed from the graph, including the
+     * edges removed along with a node.
+     * 
+     * @param edge the removed edge
+     */
+    protected void edgeRemoved(Edge edge) {
+    }
 }
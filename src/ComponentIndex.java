@@ -0,0 +1,182 @@
+import java.util.Arrays;
+
+/**
+ * A ComponentIndex records which connected component of a graph each node
+ * belongs to, treating every edge as a connection between both of its
+ * nodes as searches do, so that a query between two nodes in different
+ * components can be answered without a search, which would otherwise
+ * settle the whole component of its start node before giving up.
+ *
+ * The index is a union-find forest over node ids, joined by size: each
+ * component is a tree whose root is the node find returns for every node
+ * in it. Inserting an edge joins the trees of its two nodes, so the graph
+ * keeps the index up to date as nodes and edges are added, but removing an
+ * edge may split a component, and removing a node renumbers another, so
+ * after a removal the graph drops its index and builds a new one when it is
+ * next needed. Nodes whose ids are past the end of the forest, which were
+ * inserted after the index was built, have no edges yet and are each a
+ * component of their own.
+ *
+ * Only join changes the forest. find only reads it, without compressing
+ * the paths it follows, so that any number of threads can use the index at
+ * once. join must not run concurrently with them, which ConcurrentDijkstraGraph
+ * ensures by only searching copies of itself that are never changed, and so
+ * never join their indexes.
+ */
+public class ComponentIndex {
+
+    protected int[] parent; // parent[id] is the next node up the tree, or id for a root
+    protected int[] size; // size[root] is the number of nodes in its component
+    protected int joinCount; // the number of joins that merged two components
+
+    /**
+     * Creates an index in which each of the first nodes is a component of
+     * its own.
+     *
+     * @param nodeCount the number of nodes to start with
+     */
+    protected ComponentIndex(int nodeCount) {
+        parent = new int[nodeCount];
+        size = new int[nodeCount];
+        for (int id = 0; id < nodeCount; id++) {
+            parent[id] = id;
+            size[id] = 1;
+        }
+    }
+
+    /**
+     * Finds the connected components of a graph, by joining the nodes of
+     * each of its edges.
+     *
+     * @param graph the graph to index
+     * @return the new index
+     */
+    public static <NodeType, EdgeType extends Number> ComponentIndex build(
+            BaseGraph<NodeType, EdgeType> graph) {
+        ComponentIndex index = new ComponentIndex(graph.nodeTable.size());
+        for (BaseGraph<NodeType, EdgeType>.Node node : graph.nodeTable) {
+            // every edge leaves some node, so this visits each of them
+            for (BaseGraph<NodeType, EdgeType>.Edge edge : node.edgesLeaving) {
+                index.join(node.id, edge.other(node).id);
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the root of the component a node belongs to.
+     *
+     * @param id the id of the node
+     * @return the id of the root of its component, which is the same for
+     *         every node in that component
+     */
+    public int find(int id) {
+        int[] parent = this.parent;
+        if (id >= parent.length)
+            return id;
+        while (parent[id] != id)
+            id = parent[id];
+        return id;
+    }
+
+    /**
+     * Checks whether there is a path between two nodes.
+     *
+     * @param first the id of one node
+     * @param second the id of the other node
+     * @return true if both nodes are in the same component
+     */
+    public boolean isConnected(int first, int second) {
+        return first == second || find(first) == find(second);
+    }
+
+    /**
+     * Merges the components of the two nodes of an edge, by making the root
+     * of the smaller one a child of the root of the larger one, so that no
+     * tree grows deeper than the logarithm of its size. The paths from both
+     * nodes are halved on the way to their roots.
+     *
+     * @param first the id of one node of the edge
+     * @param second the id of the other node of the edge
+     */
+    public void join(int first, int second) {
+        ensureCapacity(Math.max(first, second) + 1);
+        first = findAndHalve(first);
+        second = findAndHalve(second);
+        if (first == second)
+            return;
+        if (size[first] < size[second]) {
+            int smaller = first;
+            first = second;
+            second = smaller;
+        }
+        size[first] += size[second];
+        parent[second] = first;
+        joinCount++;
+    }
+
+    /**
+     * Returns the root of a node's component, making every other node on the
+     * way point to its grandparent.
+     */
+    private int findAndHalve(int id) {
+        while (parent[id] != id) {
+            parent[id] = parent[parent[id]];
+            id = parent[id];
+        }
+        return id;
+    }
+
+    /**
+     * Grows the forest so that it has room for the nodes inserted since it
+     * was built, each of which starts as a component of its own.
+     */
+    private void ensureCapacity(int nodeCount) {
+        int oldLength = parent.length;
+        if (nodeCount <= oldLength)
+            return;
+        int newLength = Math.max(nodeCount, oldLength * 2);
+        int[] newParent = Arrays.copyOf(parent, newLength);
+        int[] newSize = Arrays.copyOf(size, newLength);
+        for (int id = oldLength; id < newLength; id++) {
+            newParent[id] = id;
+            newSize[id] = 1;
+        }
+        size = newSize;
+        parent = newParent;
+    }
+
+    /**
+     * Returns the number of connected components.
+     *
+     * @param nodeCount the number of nodes in the graph, which may be more
+     *        than the index has seen
+     * @return the number of components
+     */
+    public int getComponentCount(int nodeCount) {
+        return nodeCount - joinCount;
+    }
+
+    /**
+     * Returns the size of every connected component.
+     *
+     * @param nodeCount the number of nodes in the graph, which may be more
+     *        than the index has seen
+     * @return the number of nodes in each component, largest first
+     */
+    public int[] getComponentSizes(int nodeCount) {
+        int[] sizes = new int[getComponentCount(nodeCount)];
+        int count = 0;
+        for (int id = 0; id < nodeCount; id++) {
+            if (find(id) == id)
+                sizes[count++] = id < size.length ? size[id] : 1;
+        }
+        Arrays.sort(sizes);
+        for (int i = 0, j = sizes.length - 1; i < j; i++, j--) {
+            int larger = sizes[j];
+            sizes[j] = sizes[i];
+            sizes[i] = larger;
+        }
+        return sizes;
+    }
+}
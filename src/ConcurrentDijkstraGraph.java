@@ -0,0 +1,320 @@
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A ConcurrentDijkstraGraph is a DijkstraGraph that can be searched by many
+ * threads while other threads insert and remove nodes and edges, without
+ * readers and writers ever waiting for each other.
+ *
+ * Writers are serialized by a lock, and change this graph's own nodes and
+ * edges, which no reader ever looks at. When a writer is done, it publishes
+ * an immutable copy of the graph through a volatile field, and every query
+ * runs against the copy that was published last, without taking any lock.
+ * A reader therefore sees one consistent state of the graph, as of the last
+ * completed write, however long its query takes and whatever writers do in
+ * the meantime, and a thread always sees its own writes. The copies share
+ * this graph's search workspaces and settings, and build the indexes that
+ * queries need lazily, such as the components index.
+ *
+ * Copying the graph takes time linear in its size, once per write, so
+ * changes should come in batches: the bulk operations such as insertEdges
+ * are copied once for their whole batch, and applyBatch makes any number of
+ * changes, from one thread, that readers see all at once.
+ */
+public class ConcurrentDijkstraGraph<NodeType, EdgeType extends Number>
+        extends DijkstraGraph<NodeType, EdgeType> {
+
+    // serializes the writers, and may be held again by the writer holding it
+    protected final ReentrantLock writeLock = new ReentrantLock();
+
+    // the copy of the graph as of the last completed write, which is never
+    // changed once it is published, and which all queries run against
+    protected volatile DijkstraGraph<NodeType, EdgeType> snapshot;
+
+    /**
+     * Constructor that sets the map that the graph uses.
+     *
+     * @param map the map that the graph uses to map a data object to the node
+     * object it is stored in
+     */
+    public ConcurrentDijkstraGraph(MapADT<NodeType, Node> map) {
+        super(map);
+        snapshot = copy();
+    }
+
+    /**
+     * Runs a change to the graph while holding the write lock. Once the
+     * outermost change a writer makes is done, a copy of the graph is
+     * published for readers, if anything changed.
+     *
+     * @param change the change to make
+     * @return the result of the change
+     */
+    protected <T> T write(Supplier<T> change) {
+        writeLock.lock();
+        boolean completed = false;
+        try {
+            T result = change.get();
+            completed = true;
+            return result;
+        } finally {
+            try {
+                // a change that failed part way may have changed the graph
+                // without moving its version
+                if (writeLock.getHoldCount() == 1 && (!completed || snapshot.version != version)) {
+                    snapshot = copy();
+                }
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Copies the nodes and edges of this graph into a new graph, with the
+     * same ids, the same edges in the same order and the same version, along
+     * with the settings and indexes its queries use. Must be called while
+     * holding the write lock.
+     *
+     * @return the copy, which must not be changed
+     */
+    protected DijkstraGraph<NodeType, EdgeType> copy() {
+        DijkstraGraph<NodeType, EdgeType> copy =
+                new DijkstraGraph<>(new OpenAddressingMap<>(2 * nodeTable.size() + 1));
+        copy.nodeTable.ensureCapacity(nodeTable.size());
+        for (Node node : nodeTable) {
+            Node copied = copy.createNode(node.data);
+            copied.id = node.id;
+            copy.nodes.put(node.data, copied);
+            copy.nodeTable.add(copied);
+        }
+        for (Node node : nodeTable) {
+            Node predecessor = copy.nodeTable.get(node.id);
+            for (Edge edge : node.edgesLeaving) {
+                copy.append(copy.new Edge(edge.data, predecessor,
+                        copy.nodeTable.get(edge.successor.id)));
+            }
+            if (node.successorIndex != null) {
+                copy.indexSuccessors(predecessor);
+            }
+        }
+        copy.edgeCount = edgeCount;
+        copy.version = version;
+        copy.uniformWeight = uniformWeight;
+        copy.nonUniformEdgeCount = nonUniformEdgeCount;
+
+        copy.searchMode = searchMode;
+        copy.landmarkIndex = landmarkIndex;
+        copy.hopIndex = hopIndex;
+        copy.queryMetrics = queryMetrics;
+        copy.recommender = recommender;
+        copy.forwardWorkspace = forwardWorkspace;
+        copy.backwardWorkspace = backwardWorkspace;
+        return copy;
+    }
+
+    @Override
+    public void applyBatch(Runnable changes) {
+        write(() -> {
+            changes.run();
+            return null;
+        });
+    }
+
+    @Override
+    public boolean insertNode(NodeType data) {
+        return write(() -> super.insertNode(data));
+    }
+
+    @Override
+    public boolean removeNode(NodeType data) {
+        return write(() -> super.removeNode(data));
+    }
+
+    @Override
+    public boolean insertEdge(NodeType pred, NodeType succ, EdgeType weight) {
+        return write(() -> super.insertEdge(pred, succ, weight));
+    }
+
+    @Override
+    public boolean removeEdge(NodeType pred, NodeType succ) {
+        return write(() -> super.removeEdge(pred, succ));
+    }
+
+    @Override
+    public int insertNodes(Collection<? extends NodeType> data) {
+        return write(() -> super.insertNodes(data));
+    }
+
+    @Override
+    public int removeNodes(Collection<? extends NodeType> data) {
+        return write(() -> super.removeNodes(data));
+    }
+
+    @Override
+    public int insertEdges(Collection<? extends WeightedEdge<NodeType, EdgeType>> edges) {
+        return write(() -> super.insertEdges(edges));
+    }
+
+    @Override
+    public int removeEdges(Collection<? extends WeightedEdge<NodeType, ?>> edges) {
+        return write(() -> super.removeEdges(edges));
+    }
+
+    @Override
+    public void setSearchMode(SearchMode searchMode) {
+        write(() -> {
+            super.setSearchMode(searchMode);
+            snapshot.setSearchMode(searchMode);
+            return null;
+        });
+    }
+
+    @Override
+    public void setHopIndex(PrunedLandmarkIndex index) {
+        write(() -> {
+            super.setHopIndex(index);
+            snapshot.setHopIndex(index);
+            return null;
+        });
+    }
+
+    @Override
+    public void setQueryMetrics(QueryMetrics metrics) {
+        write(() -> {
+            super.setQueryMetrics(metrics);
+            snapshot.setQueryMetrics(metrics);
+            return null;
+        });
+    }
+
+    @Override
+    public LandmarkIndex buildLandmarks(int count, LandmarkIndex.Selection selection) {
+        // build the index without holding up writers, then hand it to the
+        // copies published from now on
+        LandmarkIndex index = snapshot.buildLandmarks(count, selection);
+        write(() -> {
+            landmarkIndex = index;
+            snapshot.landmarkIndex = index;
+            return null;
+        });
+        return index;
+    }
+
+    @Override
+    public PrunedLandmarkIndex buildHopIndex() {
+        PrunedLandmarkIndex index = snapshot.buildHopIndex();
+        setHopIndex(index);
+        return index;
+    }
+
+    @Override
+    public boolean isLandmarkIndexFresh() {
+        return snapshot.isLandmarkIndexFresh();
+    }
+
+    @Override
+    public boolean isHopIndexFresh() {
+        return snapshot.isHopIndexFresh();
+    }
+
+    @Override
+    public boolean containsNode(NodeType data) {
+        return snapshot.containsNode(data);
+    }
+
+    @Override
+    public int getNodeCount() {
+        return snapshot.getNodeCount();
+    }
+
+    @Override
+    public boolean containsEdge(NodeType pred, NodeType succ) {
+        return snapshot.containsEdge(pred, succ);
+    }
+
+    @Override
+    public EdgeType getEdge(NodeType pred, NodeType succ) {
+        return snapshot.getEdge(pred, succ);
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return snapshot.getEdgeCount();
+    }
+
+    @Override
+    public double getAverageDegree() {
+        return snapshot.getAverageDegree();
+    }
+
+    @Override
+    public long getVersion() {
+        return snapshot.getVersion();
+    }
+
+    @Override
+    public CsrGraph<NodeType> freeze() {
+        return snapshot.freeze();
+    }
+
+    @Override
+    public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+        return snapshot.shortestPathData(start, end);
+    }
+
+    @Override
+    public double shortestPathCost(NodeType start, NodeType end) {
+        return snapshot.shortestPathCost(start, end);
+    }
+
+    @Override
+    public Map<NodeType, Double> shortestPathCosts(NodeType source) {
+        return snapshot.shortestPathCosts(source);
+    }
+
+    @Override
+    public Map<NodeType, Double> shortestPathCosts(NodeType source,
+            Collection<? extends NodeType> targets) {
+        return snapshot.shortestPathCosts(source, targets);
+    }
+
+    @Override
+    public Map<NodeType, Double> nodesWithinCost(NodeType source, double maxCost) {
+        return snapshot.nodesWithinCost(source, maxCost);
+    }
+
+    @Override
+    public Map<NodeType, Integer> nodesWithinHops(NodeType source, int maxHops) {
+        return snapshot.nodesWithinHops(source, maxHops);
+    }
+
+    @Override
+    public int getComponentCount() {
+        return snapshot.getComponentCount();
+    }
+
+    @Override
+    public int[] getComponentSizes() {
+        return snapshot.getComponentSizes();
+    }
+
+    @Override
+    public List<NodeType> getMutualFriends(NodeType first, NodeType second) {
+        return snapshot.getMutualFriends(first, second);
+    }
+
+    @Override
+    public List<FriendRecommender.Recommendation<NodeType>> getFriendRecommendations(
+            NodeType person, int count, FriendRecommender.Score score) {
+        return snapshot.getFriendRecommendations(person, count, score);
+    }
+
+    @Override
+    public SortedAdjacency<NodeType> getSortedAdjacency() {
+        return snapshot.getSortedAdjacency();
+    }
+}
@@ -0,0 +1,160 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+public class ConcurrentDijkstraGraphTests {
+
+    private static final int CHAIN_LENGTH = 200;
+    // the number of extra nodes that hang off each node of the chain
+    private static final int EXTRAS_PER_NODE = 3;
+
+    /**
+     * Test case for searches that run while other threads keep inserting and
+     * removing nodes and edges, both while every edge has the same weight,
+     * so that searches take the breadth first path, and while the new edges
+     * are heavier, so that they run Dijkstra's algorithm.
+     */
+    @Test
+    public void testSearchesDuringConcurrentChanges() throws Exception {
+        assertSearchesDuringConcurrentChanges(1);
+        assertSearchesDuringConcurrentChanges(1000);
+    }
+
+    /**
+     * Test case for queries that run while a writer is part way through a
+     * batch of changes: they finish without waiting for the writer, and see
+     * none of the batch until all of it is done.
+     */
+    @Test
+    public void testReadersDoNotWaitForWriters() throws Exception {
+        ConcurrentDijkstraGraph<Integer, Integer> graph =
+                new ConcurrentDijkstraGraph<>(new OpenAddressingMap<>());
+        for (int i = 0; i < CHAIN_LENGTH; i++) {
+            graph.insertNode(i);
+            if (i > 0) {
+                graph.insertEdge(i - 1, i, 1);
+            }
+        }
+        long version = graph.getVersion();
+
+        CountDownLatch changing = new CountDownLatch(1);
+        CountDownLatch queried = new CountDownLatch(1);
+        ExecutorService threads = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> writer = threads.submit(() -> graph.applyBatch(() -> {
+                graph.insertNode(-1);
+                graph.insertEdge(0, -1, 1);
+                graph.insertEdge(-1, CHAIN_LENGTH - 1, 1);
+                changing.countDown();
+                try {
+                    // hold the batch open until the queries below are done
+                    assertTrue(queried.await(60, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }));
+            assertTrue(changing.await(60, TimeUnit.SECONDS));
+            assertFalse(graph.containsNode(-1));
+            assertEquals(CHAIN_LENGTH - 1, graph.getEdgeCount());
+            assertEquals(version, graph.getVersion());
+            assertEquals(CHAIN_LENGTH - 1, graph.shortestPathCost(0, CHAIN_LENGTH - 1));
+            queried.countDown();
+            writer.get(60, TimeUnit.SECONDS);
+        } finally {
+            queried.countDown();
+            threads.shutdown();
+        }
+
+        assertTrue(graph.containsNode(-1));
+        assertEquals(CHAIN_LENGTH + 1, graph.getEdgeCount());
+        assertEquals(2, graph.shortestPathCost(0, CHAIN_LENGTH - 1));
+        assertEquals(List.of(0, -1, CHAIN_LENGTH - 1), graph.shortestPathData(0, CHAIN_LENGTH - 1));
+    }
+
+    /**
+     * Searches the graph from many threads while others change it. The graph
+     * is a chain of nodes joined by edges of weight 1 that never changes,
+     * while the writers churn through extra nodes. Each extra node belongs to
+     * one node of the chain, and is only ever joined to that node and to the
+     * other extra nodes that belong to it, so no path through extra nodes
+     * leads anywhere along the chain. Every search between two chain nodes
+     * must therefore return the same path no matter what the writers are
+     * doing, unless it saw an inconsistent graph.
+     *
+     * @param weight the weight of the edges the writers insert
+     */
+    private static void assertSearchesDuringConcurrentChanges(int weight) throws Exception {
+        ConcurrentDijkstraGraph<Integer, Integer> graph =
+                new ConcurrentDijkstraGraph<>(new OpenAddressingMap<>());
+        for (int i = 0; i < CHAIN_LENGTH; i++) {
+            graph.insertNode(i);
+            if (i > 0) {
+                graph.insertEdge(i - 1, i, 1);
+            }
+        }
+
+        AtomicBoolean done = new AtomicBoolean(false);
+        ExecutorService threads = Executors.newFixedThreadPool(6);
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+        for (int writer = 0; writer < 2; writer++) {
+            Random random = new Random(writer);
+            writers.add(threads.submit(() -> {
+                while (!done.get()) {
+                    int owner = random.nextInt(CHAIN_LENGTH);
+                    int extra = owner + CHAIN_LENGTH * (1 + random.nextInt(EXTRAS_PER_NODE));
+                    if (random.nextInt(3) == 0) {
+                        graph.removeNode(extra);
+                        continue;
+                    }
+                    graph.insertNode(extra);
+                    int neighbor = random.nextBoolean() ? owner
+                            : owner + CHAIN_LENGTH * (1 + random.nextInt(EXTRAS_PER_NODE));
+                    // this fails without changing anything when the other
+                    // writer just removed one of the nodes
+                    graph.insertEdge(extra, neighbor, weight);
+                }
+            }));
+        }
+        for (int reader = 0; reader < 4; reader++) {
+            Random random = new Random(100 + reader);
+            readers.add(threads.submit(() -> {
+                for (int query = 0; query < 2000; query++) {
+                    int start = random.nextInt(CHAIN_LENGTH);
+                    int end = random.nextInt(CHAIN_LENGTH);
+                    List<Integer> path = graph.shortestPathData(start, end);
+                    assertEquals(Math.abs(end - start) + 1, path.size());
+                    for (int i = 0; i < path.size(); i++) {
+                        int expected = start < end ? start + i : start - i;
+                        assertEquals(expected, path.get(i));
+                    }
+                    assertEquals(Math.abs(end - start), graph.shortestPathCost(start, end));
+                    assertTrue(graph.getComponentCount() >= 1);
+                }
+            }));
+        }
+
+        try {
+            for (Future<?> reader : readers) {
+                reader.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            done.set(true);
+            for (Future<?> writer : writers) {
+                writer.get(60, TimeUnit.SECONDS);
+            }
+            threads.shutdown();
+        }
+        assertTrue(graph.getVersion() > CHAIN_LENGTH * 2);
+    }
+}
@@ -0,0 +1,242 @@
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A CsrGraph is an immutable snapshot of the nodes and edges of a BaseGraph,
+ * stored in compressed sparse row form. Nodes are numbered from 0 to
+ * getNodeCount()-1, and the neighbors of node i are stored in the neighbors
+ * array from position offsets[i] up to (but not including) offsets[i+1],
+ * with the weight of each connection at the same position of the weights
+ * array. Like DijkstraGraph's searches, a CsrGraph treats every edge as a
+ * connection between both of its nodes, so each edge appears in the rows of
+ * both its predecessor and its successor.
+ *
+ * Because all adjacency data lives in three primitive arrays, searches on a
+ * CsrGraph scan memory sequentially instead of following Node, Edge and list
+ * references, which makes a frozen graph well suited to serving many queries
+ * against data that no longer changes.
+ *
+ * @param NodeType is the data type stored at each graph node
+ */
+public class CsrGraph<NodeType> {
+
+    protected Object[] data; // the data stored at each node, by index
+    protected int[] offsets;
+    protected int[] neighbors;
+    protected double[] weights;
+    protected int edgeCount;
+    // the weight shared by every edge, or NaN when the weights differ
+    protected double uniformWeight;
+
+    // Assigns each node's data its index, so indices can be looked up by data
+    protected NodeInterner<NodeType> indices = new NodeInterner<>();
+
+    // Each thread that searches this graph reuses its own workspace, so that
+    // steady state searches allocate nothing but the paths they return
+    protected ThreadLocal<SearchWorkspace> workspaces = ThreadLocal.withInitial(SearchWorkspace::new);
+
+    /**
+     * Constructor for a CsrGraph over arrays that were already filled in, as
+     * done by BaseGraph.freeze(). The arrays are not copied, and must not be
+     * modified afterwards.
+     *
+     * @param data the data stored at each node
+     * @param offsets the start of each node's row, followed by neighbors.length
+     * @param neighbors the index of each node's neighbors, row by row
+     * @param weights the weight of each connection in neighbors
+     * @param edgeCount the number of edges in the graph this was built from
+     * @param uniformWeight the weight shared by every edge, or NaN when the
+     *        weights differ
+     */
+    protected CsrGraph(Object[] data, int[] offsets, int[] neighbors, double[] weights,
+            int edgeCount, double uniformWeight) {
+        this.data = data;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.weights = weights;
+        this.edgeCount = edgeCount;
+        this.uniformWeight = uniformWeight;
+        for (int i = 0; i < data.length; i++)
+            indices.intern(getData(i));
+    }
+
+    /**
+     * Return the number of nodes in the graph.
+     *
+     * @return the number of nodes in the graph
+     */
+    public int getNodeCount() {
+        return data.length;
+    }
+
+    /**
+     * Return the number of edges in the graph this snapshot was built from.
+     *
+     * @return the number of edges in the graph
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Check whether the graph contains a node with the provided data.
+     *
+     * @param data the node contents to check for
+     * @return true if data item is stored in a node within the graph, or
+     *         false otherwise
+     */
+    public boolean containsNode(NodeType data) {
+        return indexOf(data) != -1;
+    }
+
+    /**
+     * Return the index of the node that stores the provided data.
+     *
+     * @param data the node contents to look for
+     * @return the index of that node, or -1 if no node stores data, which
+     *         is always the case for null
+     */
+    public int indexOf(NodeType data) {
+        return data == null ? -1 : indices.idOf(data);
+    }
+
+    /**
+     * Return the data stored at a node.
+     *
+     * @param index the index of the node
+     * @return the data stored at that node
+     */
+    @SuppressWarnings("unchecked")
+    public NodeType getData(int index) {
+        return (NodeType) data[index];
+    }
+
+    /**
+     * Return the number of connections a node has, counting edges in both
+     * directions.
+     *
+     * @param index the index of the node
+     * @return the number of entries in that node's row
+     */
+    public int degree(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Returns the list of data values from nodes along the shortest path
+     * from the node with the provided start value through the node with the
+     * provided end value.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return list of data item from node along this shortest path
+     * @throws NoSuchElementException when no path from start to end is found or
+     *         when either start or end data do not correspond to a graph node
+     */
+    public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+        SearchWorkspace workspace = workspaces.get();
+        int endIndex = indexOf(end);
+        computeShortestPath(indexOf(start), endIndex, workspace);
+
+        List<NodeType> path = new LinkedList<>();
+        for (int node = endIndex; node != -1; node = workspace.predecessors[node])
+            path.add(0, getData(node));
+        return path;
+    }
+
+    /**
+     * Returns the cost of the path (sum over edge weights) of the shortest
+     * path from the node containing the start data to the node containing the
+     * end data.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end   the data item in the destination node for the path
+     * @return the cost of the shortest path between these nodes
+     * @throws NoSuchElementException when no path from start to end is found or
+     *         when either start or end data do not correspond to a graph node
+     */
+    public double shortestPathCost(NodeType start, NodeType end) {
+        return computeShortestPath(indexOf(start), indexOf(end), workspaces.get());
+    }
+
+    /**
+     * This helper method computes the shortest path between two nodes, using
+     * a breadth first search when all edges have the same weight and
+     * Dijkstra's algorithm otherwise.
+     *
+     * @param start the index of the starting node for the path
+     * @param end the index of the destination node for the path
+     * @param workspace reset for this search, after which its predecessors
+     *        hold the index of the previous node along the shortest path to
+     *        each node reached, or -1 for the start node
+     * @return the cost of the shortest path between these nodes
+     * @throws NoSuchElementException when no path from start to end is found or
+     *         when either start or end is not the index of a node
+     */
+    protected double computeShortestPath(int start, int end, SearchWorkspace workspace) {
+        if (start == -1 || end == -1)
+            throw new NoSuchElementException("start or end node not found in graph");
+        workspace.reset(data.length);
+        workspace.reach(start, 0, -1);
+        if (start == end)
+            return 0;
+        if (!Double.isNaN(uniformWeight))
+            return uniformWeight * computeHopCount(start, end, workspace);
+
+        IndexedDaryHeap queue = workspace.heap;
+        queue.insert(start, 0);
+
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            double cost = workspace.costs[node];
+            if (node == end)
+                return cost;
+
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int neighbor = neighbors[i];
+                double newCost = cost + weights[i];
+                if (newCost < workspace.getCost(neighbor)) {
+                    workspace.reach(neighbor, newCost, node);
+                    queue.insertOrDecrease(neighbor, newCost);
+                }
+            }
+        }
+        throw new NoSuchElementException("No path found");
+    }
+
+    /**
+     * This helper method finds the path with the fewest edges between two
+     * different nodes with a breadth first search that stops as soon as the
+     * end node is discovered.
+     *
+     * @param start the index of the starting node for the path
+     * @param end the index of the destination node for the path
+     * @param workspace the reset workspace in which start has been reached,
+     *        filled in as described by computeShortestPath, with the number
+     *        of edges to each node reached as its cost
+     * @return the number of edges along that path
+     * @throws NoSuchElementException when no path from start to end is found
+     */
+    protected int computeHopCount(int start, int end, SearchWorkspace workspace) {
+        int[] queue = workspace.queue;
+        queue[0] = start;
+        int head = 0;
+        int tail = 1;
+
+        while (head < tail) {
+            int node = queue[head++];
+            double hops = workspace.costs[node] + 1;
+            for (int i = offsets[node]; i < offsets[node + 1]; i++) {
+                int neighbor = neighbors[i];
+                if (!workspace.isReached(neighbor)) {
+                    workspace.reach(neighbor, hops, node);
+                    if (neighbor == end)
+                        return (int) hops;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        throw new NoSuchElementException("No path found");
+    }
+}
@@ -1,14 +1,19 @@
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This class extends the BaseGraph data structure with additional methods for
  * computing the total cost and list of node data along the shortest path
  * connecting a provided starting to ending nodes. This class makes use of
- * Dijkstra's shortest path algorithm.
+ * Dijkstra's shortest path algorithm, or of a breadth first search when every
+ * edge in the graph has the same weight.
  */
 public class DijkstraGraph<NodeType, EdgeType extends Number>
         extends BaseGraph<NodeType, EdgeType>
@@ -49,6 +54,57 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
         }
     }
 
+    /**
+     * The strategies this graph can use to search for a shortest path.
+     */
+    public enum SearchMode {
+        /** grow a single search outward from the start node */
+        UNIDIRECTIONAL,
+        /** grow one search from the start node and one from the end node */
+        BIDIRECTIONAL,
+        /**
+         * grow a single search from the start node towards the end node,
+         * guided by the landmark index, or grow it unidirectionally while the
+         * graph has no up to date landmark index
+         */
+        LANDMARKS
+    }
+
+    protected SearchMode searchMode = SearchMode.UNIDIRECTIONAL;
+
+    // the index used by SearchMode.LANDMARKS, or null until one is built
+    protected volatile LandmarkIndex landmarkIndex = null;
+
+    // the index that answers shortest path queries without searching, or
+    // null until one is built or set
+    protected volatile PrunedLandmarkIndex hopIndex = null;
+
+    // the metrics that shortest path queries are recorded in, or null
+    protected volatile QueryMetrics queryMetrics = null;
+
+    // the sorted neighborhoods of the graph, taken when they were last
+    // needed, or null until then
+    protected volatile SortedAdjacency<NodeType> sortedAdjacency = null;
+
+    // finds mutual friends and recommends friends from the nodes' edge lists
+    protected FriendRecommender recommender = new FriendRecommender();
+
+    // the connected components of the graph, kept up to date as edges are
+    // inserted, or null after a removal until it is found again
+    protected volatile ComponentIndex components = null;
+
+    // the number of edges searches relaxed while there was no components
+    // index, since it was last found
+    protected final AtomicLong searchWorkWithoutComponents = new AtomicLong();
+
+    // Each thread that searches this graph reuses its own pair of workspaces,
+    // one for the side of a search growing from the start node and one for
+    // the side growing from the end node
+    protected ThreadLocal<SearchWorkspace> forwardWorkspace =
+            ThreadLocal.withInitial(SearchWorkspace::new);
+    protected ThreadLocal<SearchWorkspace> backwardWorkspace =
+            ThreadLocal.withInitial(SearchWorkspace::new);
+
     /**
      * Constructor that sets the map that the graph uses.
      *
@@ -59,6 +115,295 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
         super(map);
     }
 
+    /**
+     * Sets the strategy used by shortestPathData and shortestPathCost. All
+     * strategies find paths with the same (shortest) cost.
+     *
+     * @param searchMode the strategy to use for later searches
+     */
+    public void setSearchMode(SearchMode searchMode) {
+        if (searchMode == null) {
+            throw new NullPointerException("search mode cannot be null");
+        }
+        this.searchMode = searchMode;
+    }
+
+    /**
+     * Returns the strategy used by shortestPathData and shortestPathCost.
+     *
+     * @return the current search mode
+     */
+    public SearchMode getSearchMode() {
+        return searchMode;
+    }
+
+    /**
+     * Builds a landmark index for this graph, and uses it for searches in
+     * SearchMode.LANDMARKS until the graph changes. More landmarks give
+     * tighter bounds, and so settle fewer nodes per search, but the index
+     * takes one single source search and one double per node to build and
+     * store for each landmark.
+     *
+     * @param count the number of landmarks to choose
+     * @param selection the strategy for choosing landmarks
+     * @return the new index
+     */
+    public LandmarkIndex buildLandmarks(int count, LandmarkIndex.Selection selection) {
+        LandmarkIndex index = LandmarkIndex.build(this, count, selection);
+        landmarkIndex = index;
+        return index;
+    }
+
+    /**
+     * Returns the landmark index that was last built for this graph.
+     *
+     * @return the index, which may be stale, or null if none was built
+     */
+    public LandmarkIndex getLandmarkIndex() {
+        return landmarkIndex;
+    }
+
+    /**
+     * Checks whether the landmark index describes the graph as it is now. A
+     * stale index is ignored by searches until buildLandmarks is called
+     * again.
+     *
+     * @return true if an index was built and the graph has not changed since
+     */
+    public boolean isLandmarkIndexFresh() {
+        LandmarkIndex index = landmarkIndex;
+        return index != null && index.getVersion() == getVersion();
+    }
+
+    /**
+     * Builds a hop distance index for this graph. Until the graph changes,
+     * shortestPathData and shortestPathCost are then answered from the index
+     * instead of by a search, in any search mode, as long as every edge has
+     * the same weight, so that the path with the fewest edges is also the
+     * cheapest one.
+     *
+     * @return the new index
+     */
+    public PrunedLandmarkIndex buildHopIndex() {
+        PrunedLandmarkIndex index = PrunedLandmarkIndex.build(this);
+        hopIndex = index;
+        return index;
+    }
+
+    /**
+     * Sets the hop distance index for this graph, such as one that was read
+     * from a file. The index is only used while it is up to date.
+     *
+     * @param index the index to use, or null to stop using one
+     */
+    public void setHopIndex(PrunedLandmarkIndex index) {
+        hopIndex = index;
+    }
+
+    /**
+     * Returns the hop distance index that was last built or set.
+     *
+     * @return the index, which may be stale, or null if there is none
+     */
+    public PrunedLandmarkIndex getHopIndex() {
+        return hopIndex;
+    }
+
+    /**
+     * Checks whether shortest path queries are answered from the hop
+     * distance index: the graph has not changed since the index was built,
+     * and every edge has the same weight.
+     *
+     * @return true if the hop distance index is used
+     */
+    public boolean isHopIndexFresh() {
+        return freshHopIndex() != null;
+    }
+
+    /**
+     * This helper method returns the hop distance index if it can answer
+     * shortest path queries for the graph as it is now.
+     *
+     * @return the index, or null if searches must be used instead
+     */
+    protected PrunedLandmarkIndex freshHopIndex() {
+        PrunedLandmarkIndex index = hopIndex;
+        if (index == null || index.getVersion() != getVersion() || !hasUniformWeights()) {
+            return null;
+        }
+        return index;
+    }
+
+    /**
+     * Sets the metrics that shortestPathData and shortestPathCost record
+     * each query in, along with the work its search did.
+     *
+     * @param metrics the metrics to record queries in, or null to stop
+     *        recording them
+     */
+    public void setQueryMetrics(QueryMetrics metrics) {
+        this.queryMetrics = metrics;
+    }
+
+    /**
+     * Returns the metrics that queries are recorded in.
+     *
+     * @return the metrics, or null if queries are not recorded
+     */
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    /**
+     * Returns the number of connected components of the graph, treating
+     * every edge as a connection between both of its nodes. A node without
+     * edges, or with only a self loop, is a component of its own.
+     *
+     * @return the number of components
+     */
+    public int getComponentCount() {
+        return components().getComponentCount(nodeTable.size());
+    }
+
+    /**
+     * Returns the number of nodes in each connected component of the graph.
+     *
+     * @return the size of each component, largest first
+     */
+    public int[] getComponentSizes() {
+        return components().getComponentSizes(nodeTable.size());
+    }
+
+    /**
+     * Returns the sorted neighborhoods of the graph as it is now, which
+     * neighborhood statistics are computed from. They are taken again when
+     * the graph has changed since they were last taken.
+     *
+     * @return a snapshot of the neighborhoods of the graph
+     */
+    public SortedAdjacency<NodeType> getSortedAdjacency() {
+        SortedAdjacency<NodeType> adjacency = sortedAdjacency;
+        if (adjacency == null || adjacency.getVersion() != getVersion()) {
+            adjacency = SortedAdjacency.build(this);
+            sortedAdjacency = adjacency;
+        }
+        return adjacency;
+    }
+
+    /**
+     * Computes the degree, triangle and clustering statistics of the graph
+     * as it is now, in parallel.
+     *
+     * @return the statistics of the graph
+     */
+    public GraphStats<NodeType> getGraphStats() {
+        return GraphStats.compute(getSortedAdjacency());
+    }
+
+    /**
+     * Estimates how many pairs of nodes of the graph as it is now are within
+     * each distance of each other, with HyperLogLog counters, in parallel.
+     *
+     * @param precision the base 2 logarithm of the number of registers in
+     *        each node's counter
+     * @return the estimated neighborhood function of the graph
+     * @throws IllegalArgumentException if precision is out of range
+     */
+    public NeighborhoodFunction getNeighborhoodFunction(int precision) {
+        return NeighborhoodFunction.compute(getSortedAdjacency(), precision, 0);
+    }
+
+    /**
+     * Returns the nodes that are neighbors of both of two nodes, in either
+     * direction, which are the friends two people have in common in a
+     * social network.
+     *
+     * @param first one node
+     * @param second the other node
+     * @return the neighbors of both, in the order of their ids
+     * @throws NoSuchElementException if either node is not in the graph
+     */
+    public List<NodeType> getMutualFriends(NodeType first, NodeType second) {
+        return recommender.mutualFriends(this, first, second);
+    }
+
+    /**
+     * Returns the nodes that share neighbors with a node but are not its
+     * neighbors yet, which are the people someone may know in a social
+     * network, best first.
+     *
+     * @param person the node to recommend neighbors to
+     * @param count the largest number of nodes to recommend
+     * @param score how to rank the nodes that share neighbors with person
+     * @return up to count recommendations, from the highest score to the
+     *         lowest
+     * @throws NoSuchElementException if person is not in the graph
+     */
+    public List<FriendRecommender.Recommendation<NodeType>> getFriendRecommendations(
+            NodeType person, int count, FriendRecommender.Score score) {
+        return recommender.recommend(this, person, count, score);
+    }
+
+    /**
+     * This helper method returns the connected components of the graph as it
+     * is now, finding them again if the graph has had edges or nodes
+     * removed since they were last found.
+     *
+     * @return the components index
+     */
+    protected ComponentIndex components() {
+        ComponentIndex index = components;
+        if (index == null) {
+            index = ComponentIndex.build(this);
+            components = index;
+        }
+        return index;
+    }
+
+    /**
+     * Joins the components of the nodes of a new edge.
+     */
+    @Override
+    protected void edgeAdded(Edge edge) {
+        ComponentIndex index = components;
+        if (index != null) {
+            index.join(edge.predecessor.id, edge.successor.id);
+        }
+    }
+
+    /**
+     * Drops the components index, since the removed edge may have split a
+     * component.
+     */
+    @Override
+    protected void edgeRemoved(Edge edge) {
+        components = null;
+    }
+
+    /**
+     * Drops the components index, since removing a node gives another node
+     * its id.
+     */
+    @Override
+    protected void removeFromTable(Node oldNode) {
+        super.removeFromTable(oldNode);
+        components = null;
+    }
+
+    /**
+     * Returns the number of nodes settled by the last shortest path search
+     * this thread ran on this graph, on both sides of a bidirectional search.
+     * This is the work a search did, and so allows search modes to be
+     * compared.
+     *
+     * @return the number of nodes whose edges the last search expanded
+     */
+    public int getLastSettledCount() {
+        SearchWorkspace forward = forwardWorkspace.get();
+        return forward.settledCount
+                + (forward.partner != null ? forward.partner.settledCount : 0);
+    }
+
     /**
      * This helper method creates a network of SearchNodes while computing the
      * shortest path between the provided start and end locations. The
@@ -74,59 +419,535 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
      * when either start or end data do not correspond to a graph node
      */
     protected SearchNode computeShortestPath(NodeType start, NodeType end) {
+        SearchWorkspace forward = search(start, end);
+
+        // walk back from the meeting node to the start node first, so that
+        // the chain of SearchNodes can be built starting from the start node
+        int length = 0;
+        for (int node = forward.meeting; node != -1; node = forward.predecessors[node]) {
+            length++;
+        }
+        int[] path = new int[length];
+        for (int node = forward.meeting; node != -1; node = forward.predecessors[node]) {
+            path[--length] = node;
+        }
+
+        SearchNode current = null;
+        for (int node : path) {
+            current = new SearchNode(nodeTable.get(node), forward.costs[node], current);
+        }
+
+        // a bidirectional search continues from the meeting node on to the end
+        // node through the predecessors recorded by the backward search
+        SearchWorkspace backward = forward.partner;
+        if (backward != null) {
+            for (int node = forward.meeting; backward.predecessors[node] != -1;
+                    node = backward.predecessors[node]) {
+                int next = backward.predecessors[node];
+                current = new SearchNode(nodeTable.get(next),
+                        current.cost + (backward.costs[node] - backward.costs[next]), current);
+            }
+        }
+        return current;
+    }
+
+    /**
+     * This helper method finds the node containing some data.
+     *
+     * @param data the data item in the node
+     * @return the node
+     * @throws NoSuchElementException when data does not correspond to a
+     * graph node
+     */
+    protected Node findNode(NodeType data) {
+        if (data == null) {
+            throw new NoSuchElementException();
+        }
+        Node node = nodes.getOrNull(data);
+        if (node == null) {
+            throw new NoSuchElementException("node not found in graph");
+        }
+        return node;
+    }
+
+    /**
+     * This helper method runs a search for the shortest path between the
+     * provided start and end locations, using the calling thread's
+     * workspaces. Once it returns, the path can be read from the returned
+     * workspace: it runs from the start node through the predecessors of
+     * the workspace's meeting node, and when the workspace has a partner, on
+     * to the end node through the partner's predecessors of the meeting node.
+     * Apart from an exception when no path is found, a search allocates no
+     * memory once the calling thread's workspaces are large enough.
+     *
+     * @param start the data item in the starting node for the path
+     * @param end the data item in the destination node for the path
+     * @return the workspace for the side of the search that grew from start
+     * @throws NoSuchElementException when no path from start to end is found or
+     * when either start or end data do not correspond to a graph node
+     */
+    protected SearchWorkspace search(NodeType start, NodeType end) {
         if (start == null || end == null) {
             throw new NoSuchElementException();
         }
 
-        // Initialize
-        PriorityQueue<SearchNode> priorityQueue = new PriorityQueue<>();
-        MapADT<NodeType, Double> costMap = new PlaceholderMap<>();
-        Node startNode = nodes.get(start);
+        Node startNode = nodes.getOrNull(start);
+        Node endNode = nodes.getOrNull(end);
 
-        if (startNode == null || nodes.get(end) == null) {
+        if (startNode == null || endNode == null) {
             throw new NoSuchElementException("start or end node not found in graph");
         }
 
-        priorityQueue.add(new SearchNode(startNode, 0, null));
-        costMap.put(start, 0.0);
+        QueryMetrics metrics = queryMetrics;
+        QueryMetrics.Recorder recorder = metrics == null ? null : metrics.recorder();
+        long started = recorder == null ? QueryMetrics.NOT_TIMED : recorder.start();
+        int nodeCount = nodeTable.size();
+        SearchWorkspace forward = forwardWorkspace.get();
+        forward.reset(nodeCount);
+        forward.reach(startNode.id, 0.0, -1);
+        if (startNode == endNode) {
+            forward.meeting = startNode.id;
+            if (recorder != null) {
+                recorder.recordSearch(started, 0, 1, 0, true);
+            }
+            return forward;
+        }
 
-        while (!priorityQueue.isEmpty()) {
-            // remove highest priority and store it
-            SearchNode current = priorityQueue.poll();
-            Node currentNode = current.node;
+        // a search between components would settle all of start's component
+        // before giving up. After a removal, queries go without the index
+        // rather than wait for it to be found again
+        ComponentIndex components = this.components;
+        if (components != null && !components.isConnected(startNode.id, endNode.id)) {
+            if (recorder != null) {
+                recorder.recordSearch(started, 0, 1, 0, false);
+            }
+            throw new NoSuchElementException("No path found");
+        }
 
-            // found 
-            if (currentNode.data.equals(end)) {
-                return current;
+        boolean found = false;
+        try {
+            runSearch(forward, startNode, endNode, nodeCount);
+            found = true;
+        } finally {
+            SearchWorkspace backward = forward.partner;
+            long relaxedCount = forward.relaxedCount + (backward == null ? 0 : backward.relaxedCount);
+            if (recorder != null) {
+                recorder.recordSearch(started,
+                        forward.settledCount + (backward == null ? 0 : backward.settledCount),
+                        forward.reachedCount + (backward == null ? 0 : backward.reachedCount),
+                        relaxedCount, found);
+            }
+            if (components == null) {
+                searchedWithoutComponents(relaxedCount);
             }
+        }
+        return forward;
+    }
+
+    /**
+     * Counts the work of a search that ran without the components index, and
+     * finds the components again once searches have relaxed as many edges
+     * since the index was dropped as finding it takes. Rebuilding the index
+     * therefore costs the queries that go without it at most as much again
+     * as they spent on searching, however often edges are removed, and the
+     * first query after a removal never waits for it.
+     *
+     * @param relaxedCount the number of edges the search relaxed
+     */
+    protected void searchedWithoutComponents(long relaxedCount) {
+        long work = searchWorkWithoutComponents.addAndGet(relaxedCount + 1);
+        if (work >= nodeTable.size() + (long) edgeCount) {
+            searchWorkWithoutComponents.set(0);
+            components();
+        }
+    }
+
+    /**
+     * This helper method runs the search for a path between two different
+     * nodes with the algorithm that suits the search mode and the graph.
+     *
+     * @param forward the reset workspace in which start has been reached
+     * @param startNode the starting node for the path
+     * @param endNode the destination node for the path
+     * @param nodeCount one more than the largest node id in the graph
+     * @throws NoSuchElementException when no path from start to end is found
+     */
+    protected void runSearch(SearchWorkspace forward, Node startNode, Node endNode,
+            int nodeCount) {
+        LandmarkIndex index = landmarkIndex;
+        if (searchMode == SearchMode.BIDIRECTIONAL) {
+            SearchWorkspace backward = backwardWorkspace.get();
+            backward.reset(nodeCount);
+            backward.reach(endNode.id, 0.0, -1);
+            forward.partner = backward;
+            if (hasUniformWeights()) {
+                computeBidirectionalUnitWeightPath(forward, backward, startNode, endNode);
+            } else {
+                computeBidirectionalPath(forward, backward, startNode, endNode);
+            }
+        } else if (searchMode == SearchMode.LANDMARKS && index != null
+                && index.getVersion() == getVersion()) {
+            computeLandmarkPath(forward, index, startNode, endNode);
+        } else if (hasUniformWeights()) {
+            // when all edges cost the same, the path with the fewest edges is
+            // also the cheapest one
+            computeUnitWeightPath(forward, startNode, endNode);
+        } else {
+            computeDijkstraPath(forward, startNode, endNode);
+        }
+    }
+
+    /**
+     * This helper method computes the shortest path between two different
+     * nodes with Dijkstra's algorithm. Nodes are polled from the workspace's
+     * heap in order of their cost, at which point that cost is final, so the
+     * search stops as soon as the end node is polled.
+     *
+     * @param workspace the reset workspace, in which start has been reached
+     * @param startNode the starting node for the path
+     * @param endNode the destination node for the path
+     * @throws NoSuchElementException when no path from start to end is found
+     */
+    protected void computeDijkstraPath(SearchWorkspace workspace, Node startNode, Node endNode) {
+        IndexedDaryHeap queue = workspace.heap;
+        queue.insert(startNode.id, 0.0);
+
+        while (!queue.isEmpty()) {
+            // remove highest priority, whose cost can no longer be lowered
+            int current = queue.poll();
+            workspace.settledCount++;
+
+            // found
+            if (current == endNode.id) {
+                workspace.meeting = current;
+                return;
+            }
+
+            Node currentNode = nodeTable.get(current);
+            double currentCost = workspace.costs[current];
+            workspace.relaxedCount += currentNode.edgesLeaving.size()
+                    + currentNode.edgesEntering.size();
 
             // edges leaving
-            for (Edge edge : currentNode.edgesLeaving) {
-                Node successorNode = edge.successor;
-                double newCost = current.cost + edge.data.doubleValue();
-
-                if (!costMap.containsKey(successorNode.data)
-                        || newCost < costMap.get(successorNode.data)) {
-                    costMap.put(successorNode.data, newCost);
-                    priorityQueue.add(new SearchNode(successorNode, newCost, current));
+            List<Edge> edges = currentNode.edgesLeaving;
+            for (int i = 0; i < edges.size(); i++) {
+                Edge edge = edges.get(i);
+                int successor = edge.other(currentNode).id;
+                double newCost = currentCost + edge.data.doubleValue();
+
+                if (newCost < workspace.getCost(successor)) {
+                    workspace.reach(successor, newCost, current);
+                    queue.insertOrDecrease(successor, newCost);
                 }
             }
 
             // edges entering
-            for (Edge edge : currentNode.edgesEntering) {
-                Node predecessorNode = edge.predecessor;
-                double newCost = current.cost + edge.data.doubleValue();
-
-                if (!costMap.containsKey(predecessorNode.data)
-                        || newCost < costMap.get(predecessorNode.data)) {
-                    costMap.put(predecessorNode.data, newCost);
-                    priorityQueue.add(new SearchNode(predecessorNode, newCost, current));
+            edges = currentNode.edgesEntering;
+            for (int i = 0; i < edges.size(); i++) {
+                Edge edge = edges.get(i);
+                int predecessor = edge.predecessor.id;
+                double newCost = currentCost + edge.data.doubleValue();
+
+                if (newCost < workspace.getCost(predecessor)) {
+                    workspace.reach(predecessor, newCost, current);
+                    queue.insertOrDecrease(predecessor, newCost);
+                }
+            }
+        }
+
+        throw new NoSuchElementException("No path found");
+    }
+
+    /**
+     * This helper method computes the shortest path between two different
+     * nodes with the A* algorithm, using the lower bounds of a landmark index
+     * as its heuristic. Nodes are polled from the workspace's heap in order
+     * of their cost plus the bound on their remaining cost to the end node.
+     * Because these bounds come from the triangle inequality, they never
+     * decrease by more than the weight of an edge, so the cost of a node is
+     * final once it is polled, and the search stops as soon as the end node
+     * is polled. Nodes whose bound is infinite cannot reach the end node and
+     * are never queued.
+     *
+     * @param workspace the reset workspace, in which start has been reached
+     * @param index a landmark index that is up to date with this graph
+     * @param startNode the starting node for the path
+     * @param endNode the destination node for the path
+     * @throws NoSuchElementException when no path from start to end is found
+     */
+    protected void computeLandmarkPath(SearchWorkspace workspace, LandmarkIndex index,
+            Node startNode, Node endNode) {
+        IndexedDaryHeap queue = workspace.heap;
+        int target = endNode.id;
+        double startBound = index.lowerBound(startNode.id, target);
+        if (startBound == Double.POSITIVE_INFINITY) {
+            throw new NoSuchElementException("No path found");
+        }
+        queue.insert(startNode.id, startBound);
+
+        while (!queue.isEmpty()) {
+            int current = queue.poll();
+            workspace.settledCount++;
+            if (current == target) {
+                workspace.meeting = current;
+                return;
+            }
+
+            Node currentNode = nodeTable.get(current);
+            double currentCost = workspace.costs[current];
+            workspace.relaxedCount += currentNode.edgesLeaving.size()
+                    + currentNode.edgesEntering.size();
+            for (int direction = 0; direction < 2; direction++) {
+                List<Edge> edges = direction == 0 ? currentNode.edgesLeaving
+                        : currentNode.edgesEntering;
+                for (int i = 0; i < edges.size(); i++) {
+                    Edge edge = edges.get(i);
+                    int neighbor = direction == 0 ? edge.other(currentNode).id
+                            : edge.predecessor.id;
+                    double newCost = currentCost + edge.data.doubleValue();
+                    if (newCost < workspace.getCost(neighbor)) {
+                        double bound = index.lowerBound(neighbor, target);
+                        if (bound == Double.POSITIVE_INFINITY) {
+                            continue;
+                        }
+                        workspace.reach(neighbor, newCost, current);
+                        queue.insertOrDecrease(neighbor, newCost + bound);
+                    }
+                }
+            }
+        }
+
+        throw new NoSuchElementException("No path found");
+    }
+
+    /**
+     * This helper method computes the shortest path between two different
+     * nodes with a breadth first search, which is only correct while every
+     * edge in the graph has the same weight (uniformWeight). Because nodes are
+     * discovered in order of their number of edges from the start node, each
+     * node is visited at most once and the search stops as soon as the end
+     * node is discovered, without ever sorting candidate paths by cost.
+     *
+     * @param workspace the reset workspace, in which start has been reached
+     * @param startNode the starting node for the path
+     * @param endNode the destination node for the path
+     * @throws NoSuchElementException when no path from start to end is found
+     */
+    protected void computeUnitWeightPath(SearchWorkspace workspace, Node startNode,
+            Node endNode) {
+        int[] queue = workspace.queue;
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = startNode.id;
+
+        while (head < tail) {
+            int current = queue[head++];
+            workspace.settledCount++;
+            Node currentNode = nodeTable.get(current);
+            double newCost = workspace.costs[current] + uniformWeight;
+            workspace.relaxedCount += currentNode.edgesLeaving.size()
+                    + currentNode.edgesEntering.size();
+
+            // edges leaving
+            List<Edge> edges = currentNode.edgesLeaving;
+            for (int i = 0; i < edges.size(); i++) {
+                int successor = edges.get(i).other(currentNode).id;
+                if (!workspace.isReached(successor)) {
+                    workspace.reach(successor, newCost, current);
+                    if (successor == endNode.id) {
+                        workspace.meeting = successor;
+                        return;
+                    }
+                    queue[tail++] = successor;
+                }
+            }
+
+            // edges entering
+            edges = currentNode.edgesEntering;
+            for (int i = 0; i < edges.size(); i++) {
+                int predecessor = edges.get(i).predecessor.id;
+                if (!workspace.isReached(predecessor)) {
+                    workspace.reach(predecessor, newCost, current);
+                    if (predecessor == endNode.id) {
+                        workspace.meeting = predecessor;
+                        return;
+                    }
+                    queue[tail++] = predecessor;
+                }
+            }
+        }
+
+        throw new NoSuchElementException("No path found");
+    }
+
+    /**
+     * This helper method computes the shortest path between two different
+     * nodes by running one Dijkstra search forward from the start node and
+     * another backward from the end node, always expanding the side with the
+     * smaller queue. Whenever one side reaches a node already reached by the
+     * other, the combined path becomes a candidate. The search stops once the
+     * cheapest unexpanded paths on both sides together cost at least as much
+     * as the best candidate, since no path through an unexpanded node can be
+     * cheaper than it.
+     *
+     * @param forward the reset workspace in which start has been reached
+     * @param backward the reset workspace in which end has been reached
+     * @param startNode the starting node for the path
+     * @param endNode the destination node for the path
+     * @throws NoSuchElementException when no path from start to end is found
+     */
+    protected void computeBidirectionalPath(SearchWorkspace forward, SearchWorkspace backward,
+            Node startNode, Node endNode) {
+        forward.heap.insert(startNode.id, 0.0);
+        backward.heap.insert(endNode.id, 0.0);
+        double bestCost = Double.POSITIVE_INFINITY;
+
+        while (!forward.heap.isEmpty() && !backward.heap.isEmpty()) {
+            if (forward.heap.peekKey() + backward.heap.peekKey() >= bestCost) {
+                break;
+            }
+
+            boolean expandForward = forward.heap.size() <= backward.heap.size();
+            SearchWorkspace side = expandForward ? forward : backward;
+            SearchWorkspace other = expandForward ? backward : forward;
+            int current = side.heap.poll();
+            side.settledCount++;
+            Node currentNode = nodeTable.get(current);
+            side.relaxedCount += currentNode.edgesLeaving.size()
+                    + currentNode.edgesEntering.size();
+
+            // the graph is searched without regard to edge direction, so both
+            // sides follow edges leaving and entering each node
+            List<Edge> edges = currentNode.edgesLeaving;
+            for (int i = 0; i < edges.size(); i++) {
+                Edge edge = edges.get(i);
+                int successor = edge.other(currentNode).id;
+                double cost = relax(side, other, current, successor, edge.data.doubleValue());
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    forward.meeting = successor;
+                }
+            }
+            edges = currentNode.edgesEntering;
+            for (int i = 0; i < edges.size(); i++) {
+                Edge edge = edges.get(i);
+                int predecessor = edge.predecessor.id;
+                double cost = relax(side, other, current, predecessor, edge.data.doubleValue());
+                if (cost < bestCost) {
+                    bestCost = cost;
+                    forward.meeting = predecessor;
+                }
+            }
+        }
+
+        if (forward.meeting == -1) {
+            throw new NoSuchElementException("No path found");
+        }
+    }
+
+    /**
+     * Helper method for computeBidirectionalPath that records a cheaper path
+     * to neighbor through current, if there is one.
+     *
+     * @param side the workspace of the side that is expanding current
+     * @param other the workspace of the opposite side
+     * @param current the id of the node being expanded
+     * @param neighbor the id of a node adjacent to it
+     * @param weight the weight of the edge between them
+     * @return the cost of the complete path that joins the new path to
+     *         neighbor with the opposite side's path to neighbor, or infinity
+     *         if no cheaper path to neighbor was found
+     */
+    private double relax(SearchWorkspace side, SearchWorkspace other, int current,
+            int neighbor, double weight) {
+        double newCost = side.costs[current] + weight;
+        if (newCost >= side.getCost(neighbor)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        side.reach(neighbor, newCost, current);
+        side.heap.insertOrDecrease(neighbor, newCost);
+        return newCost + other.getCost(neighbor);
+    }
+
+    /**
+     * This helper method computes the shortest path between two different
+     * nodes with a pair of breadth first searches, one from each end, which
+     * is only correct while every edge has the same weight. The side with the
+     * smaller frontier is expanded one whole level at a time. Before each
+     * level no node has been reached by both sides, so the first node that is
+     * reached by both lies on a shortest path.
+     *
+     * @param forward the reset workspace in which start has been reached
+     * @param backward the reset workspace in which end has been reached
+     * @param startNode the starting node for the path
+     * @param endNode the destination node for the path
+     * @throws NoSuchElementException when no path from start to end is found
+     */
+    protected void computeBidirectionalUnitWeightPath(SearchWorkspace forward,
+            SearchWorkspace backward, Node startNode, Node endNode) {
+        // each side's queue holds the ids it reached in order, and the ids
+        // from its head up to its tail form the level it will expand next
+        forward.queue[0] = startNode.id;
+        backward.queue[0] = endNode.id;
+        int forwardHead = 0;
+        int forwardTail = 1;
+        int backwardHead = 0;
+        int backwardTail = 1;
+
+        while (forwardHead < forwardTail && backwardHead < backwardTail) {
+            boolean expandForward = forwardTail - forwardHead <= backwardTail - backwardHead;
+            SearchWorkspace side = expandForward ? forward : backward;
+            SearchWorkspace other = expandForward ? backward : forward;
+            int head = expandForward ? forwardHead : backwardHead;
+            int levelEnd = expandForward ? forwardTail : backwardTail;
+            int tail = levelEnd;
+
+            for (; head < levelEnd; head++) {
+                int current = side.queue[head];
+                side.settledCount++;
+                Node currentNode = nodeTable.get(current);
+                double newCost = side.costs[current] + uniformWeight;
+                side.relaxedCount += currentNode.edgesLeaving.size()
+                        + currentNode.edgesEntering.size();
+
+                List<Edge> edges = currentNode.edgesLeaving;
+                for (int i = 0; i < edges.size(); i++) {
+                    int successor = edges.get(i).other(currentNode).id;
+                    if (!side.isReached(successor)) {
+                        side.reach(successor, newCost, current);
+                        if (other.isReached(successor)) {
+                            forward.meeting = successor;
+                            return;
+                        }
+                        side.queue[tail++] = successor;
+                    }
                 }
+                edges = currentNode.edgesEntering;
+                for (int i = 0; i < edges.size(); i++) {
+                    int predecessor = edges.get(i).predecessor.id;
+                    if (!side.isReached(predecessor)) {
+                        side.reach(predecessor, newCost, current);
+                        if (other.isReached(predecessor)) {
+                            forward.meeting = predecessor;
+                            return;
+                        }
+                        side.queue[tail++] = predecessor;
+                    }
+                }
+            }
+
+            if (expandForward) {
+                forwardHead = head;
+                forwardTail = tail;
+            } else {
+                backwardHead = head;
+                backwardTail = tail;
             }
         }
 
         throw new NoSuchElementException("No path found");
     }
+
     /**
      * Returns the list of data values from nodes along the shortest path from
      * the node with the provided start value through the node with the provided
@@ -140,6 +961,27 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
      * @return list of data item from node along this shortest path
      */
     public List<NodeType> shortestPathData(NodeType start, NodeType end) {
+        PrunedLandmarkIndex index = freshHopIndex();
+        if (index != null) {
+            int startId = findNode(start).id;
+            int endId = findNode(end).id;
+            QueryMetrics metrics = queryMetrics;
+            QueryMetrics.Recorder recorder = metrics == null ? null : metrics.recorder();
+            long started = recorder == null ? QueryMetrics.NOT_TIMED : recorder.start();
+            int[] ids = index.path(startId, endId);
+            if (recorder != null) {
+                recorder.recordIndexQuery(started, ids != null);
+            }
+            if (ids == null) {
+                throw new NoSuchElementException("No path found");
+            }
+            List<NodeType> path = new ArrayList<>(ids.length);
+            for (int id : ids) {
+                path.add(nodeTable.get(id).data);
+            }
+            return path;
+        }
+
         SearchNode endNode = computeShortestPath(start, end);
 
         List<NodeType> path = new LinkedList<>();
@@ -162,8 +1004,279 @@ public class DijkstraGraph<NodeType, EdgeType extends Number>
      * @return the cost of the shortest path between these nodes
      */
     public double shortestPathCost(NodeType start, NodeType end) {
-        SearchNode endNode = computeShortestPath(start, end);
-        return endNode.cost;
+        PrunedLandmarkIndex index = freshHopIndex();
+        if (index != null) {
+            int startId = findNode(start).id;
+            int endId = findNode(end).id;
+            QueryMetrics metrics = queryMetrics;
+            QueryMetrics.Recorder recorder = metrics == null ? null : metrics.recorder();
+            long started = recorder == null ? QueryMetrics.NOT_TIMED : recorder.start();
+            int hops = index.hopDistance(startId, endId);
+            if (recorder != null) {
+                recorder.recordIndexQuery(started, hops != -1);
+            }
+            if (hops == -1) {
+                throw new NoSuchElementException("No path found");
+            }
+            return hops == 0 ? 0.0 : hops * uniformWeight;
+        }
+
+        SearchWorkspace forward = search(start, end);
+        SearchWorkspace backward = forward.partner;
+        if (backward == null) {
+            return forward.costs[forward.meeting];
+        }
+        return forward.costs[forward.meeting] + backward.costs[forward.meeting];
+    }
+
+    /**
+     * Returns the cost of the shortest path from the node containing the
+     * source data to every node that can be reached from it, including the
+     * source itself at cost 0. Unlike calling shortestPathCost once per node,
+     * this runs a single search.
+     *
+     * @param source the data item in the starting node for the paths
+     * @return a map from each reachable data item to the cost of the shortest
+     *         path to it, iterating in order of increasing cost
+     * @throws NoSuchElementException when source does not correspond to a
+     * graph node
+     */
+    public Map<NodeType, Double> shortestPathCosts(NodeType source) {
+        return searchFrom(source, Double.POSITIVE_INFINITY, false, null);
+    }
+
+    /**
+     * Returns the cost of the shortest path from the node containing the
+     * source data to each of the nodes containing the target data. The search
+     * stops as soon as the last of those nodes is reached, so targets close to
+     * the source are cheap to query even in a large graph.
+     *
+     * @param source the data item in the starting node for the paths
+     * @param targets the data items in the destination nodes for the paths
+     * @return a map from each target that can be reached from the source to
+     *         the cost of the shortest path to it, iterating in order of
+     *         increasing cost; targets that are not in the graph or cannot be
+     *         reached are left out
+     * @throws NoSuchElementException when source does not correspond to a
+     * graph node
+     */
+    public Map<NodeType, Double> shortestPathCosts(NodeType source,
+            Collection<? extends NodeType> targets) {
+        if (targets == null) {
+            throw new NullPointerException("targets cannot be null");
+        }
+        return searchFrom(source, Double.POSITIVE_INFINITY, false, targets);
+    }
+
+    /**
+     * Returns every node whose shortest path from the node containing the
+     * source data costs no more than maxCost, along with that cost. The
+     * search stops once every cheaper path has been explored.
+     *
+     * @param source the data item in the starting node for the paths
+     * @param maxCost the largest path cost to include
+     * @return a map from each data item within maxCost of the source,
+     *         including the source itself, to the cost of the shortest path to
+     *         it, iterating in order of increasing cost
+     * @throws NoSuchElementException when source does not correspond to a
+     * graph node
+     */
+    public Map<NodeType, Double> nodesWithinCost(NodeType source, double maxCost) {
+        return searchFrom(source, maxCost, false, null);
+    }
+
+    /**
+     * Returns every node that can be reached from the node containing the
+     * source data by following at most maxHops edges, regardless of their
+     * weights, along with the fewest number of edges needed to reach it.
+     *
+     * @param source the data item in the starting node for the paths
+     * @param maxHops the largest number of edges to follow
+     * @return a map from each data item within maxHops edges of the source,
+     *         including the source itself, to its number of edges from the
+     *         source, iterating in order of increasing number of edges
+     * @throws NoSuchElementException when source does not correspond to a
+     * graph node
+     */
+    public Map<NodeType, Integer> nodesWithinHops(NodeType source, int maxHops) {
+        Map<NodeType, Double> costs = searchFrom(source, maxHops, true, null);
+        Map<NodeType, Integer> hops = new LinkedHashMap<>();
+        for (Map.Entry<NodeType, Double> entry : costs.entrySet()) {
+            hops.put(entry.getKey(), entry.getValue().intValue());
+        }
+        return hops;
+    }
+
+    /**
+     * This helper method runs a single search outward from the source node,
+     * in the calling thread's forward workspace, and collects the cost of
+     * every node it finalizes. Nodes are finalized in order of their cost, so
+     * the search stops as soon as the next node would cost more than maxCost,
+     * or once every target has been finalized. The backward workspace is used
+     * to mark which nodes are targets.
+     *
+     * @param source the data item in the starting node for the paths
+     * @param maxCost the largest path cost to collect
+     * @param countHops true to treat every edge as having a weight of 1
+     * @param targets the data items to collect, or null to collect every node
+     * @return a map from each collected data item to its cost, in order of
+     *         increasing cost
+     * @throws NoSuchElementException when source does not correspond to a
+     * graph node
+     */
+    protected Map<NodeType, Double> searchFrom(NodeType source, double maxCost,
+            boolean countHops, Collection<? extends NodeType> targets) {
+        if (source == null) {
+            throw new NoSuchElementException();
+        }
+        Node sourceNode = nodes.getOrNull(source);
+        if (sourceNode == null) {
+            throw new NoSuchElementException("source node not found in graph");
+        }
+
+        int nodeCount = nodeTable.size();
+        SearchWorkspace workspace = forwardWorkspace.get();
+        workspace.reset(nodeCount);
+        SearchWorkspace marks = null;
+        int remaining = nodeCount;
+        if (targets != null) {
+            marks = backwardWorkspace.get();
+            marks.reset(nodeCount);
+            remaining = 0;
+            for (NodeType target : targets) {
+                Node targetNode = target == null ? null : nodes.getOrNull(target);
+                if (targetNode == null) {
+                    continue;
+                }
+                int id = targetNode.id;
+                if (!marks.isReached(id)) {
+                    marks.reach(id, 0.0, -1);
+                    remaining++;
+                }
+            }
+        }
+
+        Map<NodeType, Double> costs = new LinkedHashMap<>();
+        if (remaining == 0 || maxCost < 0) {
+            return costs;
+        }
+        settleFrom(workspace, marks, sourceNode.id, maxCost, countHops, remaining, costs);
+        return costs;
+    }
+
+    /**
+     * Computes the cost of the shortest path from one node to every node of
+     * the graph, in the calling thread's forward workspace.
+     *
+     * @param sourceId the id of the starting node for the paths
+     * @return an array holding the cost of each node by id, which is
+     *         infinite for nodes that cannot be reached from the source
+     */
+    protected double[] costsFrom(int sourceId) {
+        int nodeCount = nodeTable.size();
+        SearchWorkspace workspace = forwardWorkspace.get();
+        workspace.reset(nodeCount);
+        settleFrom(workspace, null, sourceId, Double.POSITIVE_INFINITY, false, nodeCount, null);
+        double[] costs = new double[nodeCount];
+        for (int id = 0; id < nodeCount; id++) {
+            costs[id] = workspace.getCost(id);
+        }
+        return costs;
+    }
+
+    /**
+     * This helper method runs the search behind searchFrom and costsFrom in a
+     * workspace that was just reset.
+     *
+     * @param workspace the workspace to search in
+     * @param marks a workspace in which the targets are reached, or null if
+     *        every node is a target
+     * @param sourceId the id of the starting node for the paths
+     * @param maxCost the largest path cost to finalize
+     * @param countHops true to treat every edge as having a weight of 1
+     * @param remaining the number of targets, the search stops once all of
+     *        them are finalized
+     * @param costs the map to put the cost of each finalized target into, or
+     *        null to leave the costs in the workspace only
+     */
+    protected void settleFrom(SearchWorkspace workspace, SearchWorkspace marks, int sourceId,
+            double maxCost, boolean countHops, int remaining, Map<NodeType, Double> costs) {
+        workspace.reach(sourceId, 0.0, -1);
+
+        if (countHops || hasUniformWeights()) {
+            // a breadth first search finalizes each node as it is discovered
+            double weight = countHops ? 1.0 : uniformWeight;
+            int[] queue = workspace.queue;
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = sourceId;
+            if (marks == null || marks.isReached(sourceId)) {
+                if (costs != null)
+                    costs.put(nodeTable.get(sourceId).data, 0.0);
+                remaining--;
+            }
+
+            while (head < tail && remaining > 0) {
+                int current = queue[head++];
+                workspace.settledCount++;
+                double newCost = workspace.costs[current] + weight;
+                if (newCost > maxCost) {
+                    break;
+                }
+                Node currentNode = nodeTable.get(current);
+                for (int direction = 0; direction < 2 && remaining > 0; direction++) {
+                    List<Edge> edges = direction == 0 ? currentNode.edgesLeaving
+                            : currentNode.edgesEntering;
+                    for (int i = 0; i < edges.size() && remaining > 0; i++) {
+                        Edge edge = edges.get(i);
+                        Node neighbor = direction == 0 ? edge.other(currentNode) : edge.predecessor;
+                        if (!workspace.isReached(neighbor.id)) {
+                            workspace.reach(neighbor.id, newCost, current);
+                            queue[tail++] = neighbor.id;
+                            if (marks == null || marks.isReached(neighbor.id)) {
+                                if (costs != null)
+                                    costs.put(neighbor.data, newCost);
+                                remaining--;
+                            }
+                        }
+                    }
+                }
+            }
+            return;
+        }
+
+        // otherwise Dijkstra's algorithm finalizes each node as it is polled
+        IndexedDaryHeap queue = workspace.heap;
+        queue.insert(sourceId, 0.0);
+        while (!queue.isEmpty() && remaining > 0) {
+            if (queue.peekKey() > maxCost) {
+                break;
+            }
+            int current = queue.poll();
+            workspace.settledCount++;
+            Node currentNode = nodeTable.get(current);
+            double currentCost = workspace.costs[current];
+            if (marks == null || marks.isReached(current)) {
+                if (costs != null)
+                    costs.put(currentNode.data, currentCost);
+                remaining--;
+            }
+
+            for (int direction = 0; direction < 2; direction++) {
+                List<Edge> edges = direction == 0 ? currentNode.edgesLeaving
+                        : currentNode.edgesEntering;
+                for (int i = 0; i < edges.size(); i++) {
+                    Edge edge = edges.get(i);
+                    int neighbor = direction == 0 ? edge.other(currentNode).id
+                            : edge.predecessor.id;
+                    double newCost = currentCost + edge.data.doubleValue();
+                    if (newCost < workspace.getCost(neighbor)) {
+                        workspace.reach(neighbor, newCost, current);
+                        queue.insertOrDecrease(neighbor, newCost);
+                    }
+                }
+            }
+        }
     }
 
     /*
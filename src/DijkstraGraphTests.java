@@ -0,0 +1,535 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class DijkstraGraphTests {
+
+    /**
+     * Builds a random graph along with an undirected adjacency map holding
+     * the cheapest weight between each pair of connected nodes, which is how
+     * DijkstraGraph's searches treat edges.
+     */
+    private static DijkstraGraph<Integer, Integer> randomGraph(Random random, int nodeCount,
+            int edgeCount, int maxWeight, Map<Integer, Map<Integer, Integer>> adjacency) {
+        DijkstraGraph<Integer, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        // inserting an existing edge again replaces its weight
+        Map<List<Integer>, Integer> edges = new HashMap<>();
+        for (int i = 0; i < nodeCount; i++) {
+            graph.insertNode(i);
+            adjacency.put(i, new HashMap<>());
+        }
+        for (int i = 0; i < edgeCount; i++) {
+            int pred = random.nextInt(nodeCount);
+            int succ = random.nextInt(nodeCount);
+            int weight = 1 + random.nextInt(maxWeight);
+            graph.insertEdge(pred, succ, weight);
+            edges.put(List.of(pred, succ), weight);
+        }
+        for (Map.Entry<List<Integer>, Integer> edge : edges.entrySet()) {
+            int pred = edge.getKey().get(0);
+            int succ = edge.getKey().get(1);
+            adjacency.get(pred).merge(succ, edge.getValue(), Math::min);
+            adjacency.get(succ).merge(pred, edge.getValue(), Math::min);
+        }
+        return graph;
+    }
+
+    /**
+     * The engine DijkstraGraph used before it switched to IndexedDaryHeap:
+     * a java.util.PriorityQueue that receives a new entry on every
+     * relaxation, with stale entries skipped when they are polled.
+     */
+    private static double referenceCost(Map<Integer, Map<Integer, Integer>> adjacency,
+            int start, int end) {
+        Map<Integer, Double> costs = new HashMap<>();
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[1], b[1]));
+        costs.put(start, 0.0);
+        queue.add(new double[] {start, 0});
+        while (!queue.isEmpty()) {
+            double[] current = queue.poll();
+            int node = (int) current[0];
+            if (current[1] > costs.get(node)) {
+                continue;
+            }
+            if (node == end) {
+                return current[1];
+            }
+            for (Map.Entry<Integer, Integer> edge : adjacency.get(node).entrySet()) {
+                double newCost = current[1] + edge.getValue();
+                if (newCost < costs.getOrDefault(edge.getKey(), Double.POSITIVE_INFINITY)) {
+                    costs.put(edge.getKey(), newCost);
+                    queue.add(new double[] {edge.getKey(), newCost});
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks that path runs from start to end over connected nodes, and
+     * returns its cost.
+     */
+    private static double pathCost(Map<Integer, Map<Integer, Integer>> adjacency,
+            List<Integer> path, int start, int end) {
+        assertEquals(start, path.get(0));
+        assertEquals(end, path.get(path.size() - 1));
+        double cost = 0;
+        for (int i = 0; i + 1 < path.size(); i++) {
+            Integer weight = adjacency.get(path.get(i)).get(path.get(i + 1));
+            assertNotNull(weight, "path " + path + " uses a missing edge");
+            cost += weight;
+        }
+        return cost;
+    }
+
+    /**
+     * Compares every search mode, and a frozen snapshot, against the
+     * reference engine for random pairs of nodes.
+     */
+    private static void assertMatchesReference(int maxWeight) {
+        Random random = new Random(maxWeight);
+        for (int trial = 0; trial < 100; trial++) {
+            Map<Integer, Map<Integer, Integer>> adjacency = new HashMap<>();
+            int nodeCount = 2 + random.nextInt(60);
+            DijkstraGraph<Integer, Integer> graph = randomGraph(random, nodeCount,
+                    random.nextInt(3 * nodeCount), maxWeight, adjacency);
+            CsrGraph<Integer> frozen = graph.freeze();
+            graph.buildLandmarks(1 + trial % 4, trial % 2 == 0
+                    ? LandmarkIndex.Selection.HIGHEST_DEGREE : LandmarkIndex.Selection.FARTHEST);
+
+            for (int query = 0; query < 20; query++) {
+                int start = random.nextInt(nodeCount);
+                int end = random.nextInt(nodeCount);
+                double expected = referenceCost(adjacency, start, end);
+
+                for (DijkstraGraph.SearchMode mode : DijkstraGraph.SearchMode.values()) {
+                    graph.setSearchMode(mode);
+                    if (expected < 0) {
+                        assertThrows(NoSuchElementException.class,
+                                () -> graph.shortestPathData(start, end));
+                        assertThrows(NoSuchElementException.class,
+                                () -> graph.shortestPathCost(start, end));
+                    } else {
+                        assertEquals(expected, graph.shortestPathCost(start, end));
+                        assertEquals(expected, pathCost(adjacency,
+                                graph.shortestPathData(start, end), start, end));
+                    }
+                }
+                if (expected < 0) {
+                    assertThrows(NoSuchElementException.class,
+                            () -> frozen.shortestPathCost(start, end));
+                } else {
+                    assertEquals(expected, frozen.shortestPathCost(start, end));
+                    assertEquals(expected, pathCost(adjacency,
+                            frozen.shortestPathData(start, end), start, end));
+                }
+            }
+            // like the searches of the graph it was frozen from, a snapshot reports
+            // a null node as missing
+            assertFalse(frozen.containsNode(null));
+            assertThrows(NoSuchElementException.class, () -> frozen.shortestPathCost(null, 0));
+            assertThrows(NoSuchElementException.class, () -> frozen.shortestPathData(0, null));
+        }
+    }
+
+    /**
+     * Test case for searches over edges with different weights.
+     */
+    @Test
+    public void testWeightedPathsMatchReference() {
+        assertMatchesReference(9);
+    }
+
+    /**
+     * Test case for searches over edges that all have the same weight.
+     */
+    @Test
+    public void testUnitWeightPathsMatchReference() {
+        assertMatchesReference(1);
+    }
+
+    /**
+     * Test case for single source searches agreeing with the reference
+     * engine, for every node, for a set of targets, and within a cost or
+     * number of hops.
+     */
+    @Test
+    public void testSingleSourceCosts() {
+        Random random = new Random(5);
+        for (int maxWeight : new int[] {1, 9}) {
+            for (int trial = 0; trial < 30; trial++) {
+                Map<Integer, Map<Integer, Integer>> adjacency = new HashMap<>();
+                Map<Integer, Map<Integer, Integer>> hopAdjacency = new HashMap<>();
+                int nodeCount = 2 + random.nextInt(60);
+                DijkstraGraph<Integer, Integer> graph = randomGraph(random, nodeCount,
+                        random.nextInt(3 * nodeCount), maxWeight, adjacency);
+                for (Map.Entry<Integer, Map<Integer, Integer>> entry : adjacency.entrySet()) {
+                    Map<Integer, Integer> neighbors = new HashMap<>();
+                    entry.getValue().keySet().forEach(neighbor -> neighbors.put(neighbor, 1));
+                    hopAdjacency.put(entry.getKey(), neighbors);
+                }
+
+                int source = random.nextInt(nodeCount);
+                Map<Integer, Double> all = graph.shortestPathCosts(source);
+                List<Integer> targets = List.of(random.nextInt(nodeCount),
+                        random.nextInt(nodeCount), nodeCount + 1);
+                Map<Integer, Double> someCosts = graph.shortestPathCosts(source, targets);
+                double maxCost = random.nextInt(4 * maxWeight);
+                Map<Integer, Double> nearby = graph.nodesWithinCost(source, maxCost);
+                Map<Integer, Integer> hops = graph.nodesWithinHops(source, 2);
+
+                double previous = 0;
+                for (double cost : all.values()) {
+                    assertTrue(cost >= previous, "costs are not in increasing order");
+                    previous = cost;
+                }
+                for (int node = 0; node < nodeCount; node++) {
+                    double expected = referenceCost(adjacency, source, node);
+                    assertEquals(expected < 0 ? null : expected, all.get(node));
+                    assertEquals(expected < 0 || !targets.contains(node) ? null : expected,
+                            someCosts.get(node));
+                    assertEquals(expected < 0 || expected > maxCost ? null : expected,
+                            nearby.get(node));
+                    double expectedHops = referenceCost(hopAdjacency, source, node);
+                    assertEquals(expectedHops < 0 || expectedHops > 2 ? null : (int) expectedHops,
+                            hops.get(node));
+                }
+            }
+        }
+        DijkstraGraph<Integer, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        assertThrows(NoSuchElementException.class, () -> graph.shortestPathCosts(1));
+    }
+
+    /**
+     * Test case for a path that must take a detour around an expensive edge.
+     */
+    @Test
+    public void testCheaperDetour() {
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        for (String data : new String[] {"A", "B", "C", "D"}) {
+            graph.insertNode(data);
+        }
+        graph.insertEdge("A", "D", 10);
+        graph.insertEdge("A", "B", 2);
+        graph.insertEdge("C", "B", 3);
+        graph.insertEdge("C", "D", 1);
+
+        assertEquals(List.of("A", "B", "C", "D"), graph.shortestPathData("A", "D"));
+        assertEquals(6, graph.shortestPathCost("A", "D"));
+        assertEquals(List.of("D", "C", "B", "A"), graph.shortestPathData("D", "A"));
+        assertEquals(List.of("B"), graph.shortestPathData("B", "B"));
+    }
+
+    /**
+     * Test case for landmark searches settling fewer nodes than Dijkstra's
+     * algorithm, and ignoring an index once the graph has changed.
+     */
+    @Test
+    public void testLandmarkSearches() {
+        // a grid with a cheap shortcut that is added after the index is built
+        DijkstraGraph<Integer, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        for (int row = 0; row < 30; row++) {
+            for (int column = 0; column < 30; column++) {
+                graph.insertNode(row * 30 + column);
+                if (column > 0) {
+                    graph.insertEdge(row * 30 + column - 1, row * 30 + column, 2 + column % 3);
+                }
+                if (row > 0) {
+                    graph.insertEdge((row - 1) * 30 + column, row * 30 + column, 2 + row % 3);
+                }
+            }
+        }
+        double expected = graph.shortestPathCost(450, 479);
+        int dijkstraSettled = graph.getLastSettledCount();
+
+        LandmarkIndex index = graph.buildLandmarks(4, LandmarkIndex.Selection.FARTHEST);
+        assertEquals(4, index.getLandmarkCount());
+        assertTrue(graph.isLandmarkIndexFresh());
+        graph.setSearchMode(DijkstraGraph.SearchMode.LANDMARKS);
+        assertEquals(expected, graph.shortestPathCost(450, 479));
+        assertTrue(graph.getLastSettledCount() < dijkstraSettled / 2,
+                graph.getLastSettledCount() + " nodes settled, against " + dijkstraSettled);
+        assertTrue(index.lowerBound(450, 479) <= expected);
+
+        graph.insertEdge(450, 479, 1);
+        assertFalse(graph.isLandmarkIndexFresh());
+        assertSame(index, graph.getLandmarkIndex());
+        assertEquals(1, graph.shortestPathCost(450, 479));
+        assertEquals(4, graph.shortestPathCost(451, 479));
+    }
+
+    /**
+     * Test case for inserting, updating, finding and removing edges of nodes
+     * with many edges, whose edges are indexed, against a map of the edges
+     * that should be in the graph.
+     */
+    @Test
+    public void testEdgesOfHighDegreeNodes() {
+        Random random = new Random(16);
+        DijkstraGraph<Integer, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        Map<List<Integer>, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200; i++) {
+            graph.insertNode(i);
+        }
+        for (int step = 0; step < 20000; step++) {
+            // most edges touch one of a few hubs
+            int pred = random.nextInt(4) == 0 ? random.nextInt(200) : random.nextInt(3);
+            int succ = random.nextInt(200);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(List.of(pred, succ)) != null,
+                        graph.removeEdge(pred, succ));
+            } else {
+                int weight = 1 + random.nextInt(9);
+                assertTrue(graph.insertEdge(pred, succ, weight));
+                expected.put(List.of(pred, succ), weight);
+            }
+            assertEquals(expected.size(), graph.getEdgeCount());
+        }
+
+        for (int pred = 0; pred < 200; pred++) {
+            for (int succ = 0; succ < 200; succ++) {
+                Integer weight = expected.get(List.of(pred, succ));
+                assertEquals(weight != null, graph.containsEdge(pred, succ));
+                if (weight != null) {
+                    assertEquals(weight, graph.getEdge(pred, succ));
+                }
+            }
+            // every edge is listed by both of its nodes, at its recorded position
+            BaseGraph<Integer, Integer>.Node node = graph.nodeTable.get(pred);
+            for (int i = 0; i < node.edgesLeaving.size(); i++) {
+                BaseGraph<Integer, Integer>.Edge edge = node.edgesLeaving.get(i);
+                assertEquals(i, edge.leavingPosition);
+                assertSame(edge, edge.successor.edgesEntering.get(edge.enteringPosition));
+            }
+        }
+        assertFalse(graph.insertEdge(0, 200, 1));
+        assertFalse(graph.containsEdge(0, 200));
+        assertFalse(graph.removeEdge(200, 0));
+        assertThrows(NoSuchElementException.class, () -> graph.getEdge(0, 200));
+    }
+
+    /**
+     * Test case for bulk insertions and removals leaving a graph in the same
+     * state as the equivalent single insertions and removals, including
+     * repeated edges within a batch and the edge count after nodes with self
+     * loops are removed.
+     */
+    @Test
+    public void testBulkOperationsMatchSingleOperations() {
+        Random random = new Random(17);
+        DijkstraGraph<Integer, Integer> single = new DijkstraGraph<>(new OpenAddressingMap<>());
+        DijkstraGraph<Integer, Integer> bulk = new DijkstraGraph<>(new OpenAddressingMap<>());
+        for (int round = 0; round < 30; round++) {
+            List<Integer> nodes = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                nodes.add(random.nextInt(300));
+            }
+            List<WeightedEdge<Integer, Integer>> edges = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                // most edges leave a few hubs, and some repeat within the batch
+                int pred = random.nextInt(3) == 0 ? random.nextInt(300) : random.nextInt(4);
+                edges.add(new WeightedEdge<>(pred, random.nextInt(300), 1 + random.nextInt(5)));
+            }
+            List<WeightedEdge<Integer, Integer>> removedEdges = edges.subList(0, 100);
+            List<Integer> removedNodes = nodes.subList(0, 5);
+
+            int inserted = 0;
+            for (int node : nodes) {
+                inserted += single.insertNode(node) ? 1 : 0;
+            }
+            assertEquals(inserted, bulk.insertNodes(nodes));
+            int applied = 0;
+            for (WeightedEdge<Integer, Integer> edge : edges) {
+                applied += single.insertEdge(edge.predecessor, edge.successor, edge.weight) ? 1 : 0;
+            }
+            assertEquals(applied, bulk.insertEdges(edges));
+            int removed = 0;
+            for (WeightedEdge<Integer, Integer> edge : removedEdges) {
+                removed += single.removeEdge(edge.predecessor, edge.successor) ? 1 : 0;
+            }
+            assertEquals(removed, bulk.removeEdges(removedEdges));
+            removed = 0;
+            for (int node : removedNodes) {
+                removed += single.removeNode(node) ? 1 : 0;
+            }
+            assertEquals(removed, bulk.removeNodes(removedNodes));
+
+            assertEquals(single.getNodeCount(), bulk.getNodeCount());
+            assertEquals(single.getEdgeCount(), bulk.getEdgeCount());
+            int edgeCount = 0;
+            for (BaseGraph<Integer, Integer>.Node node : single.nodeTable) {
+                edgeCount += node.edgesLeaving.size();
+                assertTrue(bulk.containsNode(node.data));
+                for (BaseGraph<Integer, Integer>.Edge edge : node.edgesLeaving) {
+                    assertEquals(edge.data, bulk.getEdge(node.data, edge.successor.data));
+                }
+            }
+            assertEquals(edgeCount, single.getEdgeCount());
+        }
+    }
+
+    /**
+     * Test case for steady state searches allocating no memory, once the
+     * calling thread's search workspaces have grown to fit the graph.
+     */
+    @Test
+    public void testSteadyStateSearchesDoNotAllocate() {
+        Random random = new Random(11);
+        for (int maxWeight : new int[] {1, 9}) {
+            DijkstraGraph<Integer, Integer> graph = randomGraph(random, 1000, 4000, maxWeight,
+                    new HashMap<>());
+            // box the node data up front, so that queries do not box their keys,
+            // and chain the nodes together so that every query finds a path
+            Integer[] data = new Integer[1000];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = i;
+                if (i > 0) {
+                    graph.insertEdge(data[i - 1], data[i], maxWeight);
+                }
+            }
+            graph.buildLandmarks(8, LandmarkIndex.Selection.FARTHEST);
+            // find the components up front, rather than once searches have
+            // done as much work as finding them takes
+            graph.getComponentCount();
+
+            double[] total = {0};
+            for (DijkstraGraph.SearchMode mode : DijkstraGraph.SearchMode.values()) {
+                graph.setSearchMode(mode);
+                // the first searches grow this thread's workspaces to fit the graph
+                for (int query = 0; query < 100; query++) {
+                    total[0] += graph.shortestPathCost(data[query], data[500 + query]);
+                }
+                long allocated = leastAllocated(() -> {
+                    for (int query = 0; query < 500; query++) {
+                        total[0] += graph.shortestPathCost(data[query], data[500 + query]);
+                    }
+                });
+                assertEquals(0, allocated, mode + " searches allocated " + allocated + " bytes");
+            }
+
+            CsrGraph<Integer> frozen = graph.freeze();
+            for (int query = 0; query < 100; query++) {
+                total[0] += frozen.shortestPathCost(data[query], data[500 + query]);
+            }
+            long allocated = leastAllocated(() -> {
+                for (int query = 0; query < 500; query++) {
+                    total[0] += frozen.shortestPathCost(data[query], data[500 + query]);
+                }
+            });
+            assertTrue(total[0] > 0);
+            assertEquals(0, allocated, "frozen searches allocated " + allocated + " bytes");
+        }
+    }
+
+    /**
+     * Runs some searches several times over, and returns the fewest bytes
+     * the calling thread allocated during any one of those runs. A single
+     * run may pay for a one-off allocation that has nothing to do with the
+     * searches, such as the JIT compiler replacing a method while it runs,
+     * but steady state searches allocate nothing in most runs.
+     */
+    private static long leastAllocated(Runnable searches) {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long least = Long.MAX_VALUE;
+        for (int run = 0; run < 5 && least > 0; run++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            searches.run();
+            least = Math.min(least, threads.getCurrentThreadAllocatedBytes() - before);
+        }
+        return least;
+    }
+
+    /**
+     * Test case for the connected components of a graph with many of them,
+     * kept up to date as edges are inserted and found again after removals,
+     * and for queries between components failing without a search.
+     */
+    @Test
+    public void testComponents() {
+        Random random = new Random(22);
+        DijkstraGraph<Integer, Integer> graph = randomGraph(random, 300, 200, 5, new HashMap<>());
+        for (int round = 0; round < 6; round++) {
+            // the nodes a single source search reaches form the source's component
+            List<Integer> sizes = new ArrayList<>();
+            Map<Integer, Map<Integer, Double>> reached = new HashMap<>();
+            for (int i = 0; i < 300 + round; i++) {
+                if (!graph.containsNode(i))
+                    continue;
+                Map<Integer, Double> costs = graph.shortestPathCosts(i);
+                reached.put(i, costs);
+                // count each component at its smallest node
+                if (costs.keySet().stream().mapToInt(Integer::intValue).min().getAsInt() == i)
+                    sizes.add(costs.size());
+            }
+            sizes.sort((a, b) -> b - a);
+            assertEquals(sizes.size(), graph.getComponentCount());
+            assertArrayEquals(sizes.stream().mapToInt(Integer::intValue).toArray(),
+                    graph.getComponentSizes());
+
+            for (int query = 0; query < 200; query++) {
+                int start = random.nextInt(300);
+                int end = random.nextInt(300);
+                if (!graph.containsNode(start) || !graph.containsNode(end))
+                    continue;
+                if (reached.get(start).containsKey(end)) {
+                    assertEquals(reached.get(start).get(end), graph.shortestPathCost(start, end));
+                } else {
+                    assertThrows(NoSuchElementException.class, () -> graph.shortestPathData(start, end));
+                    assertEquals(0, graph.getLastSettledCount());
+                }
+            }
+
+            // insert edges and a node, then remove some edges and a node
+            graph.insertNode(300 + round);
+            for (int i = 0; i < 20; i++)
+                graph.insertEdge(random.nextInt(301 + round), random.nextInt(301 + round), 1);
+            if (round % 2 == 1) {
+                graph.removeNode(random.nextInt(300));
+                for (int i = 0; i < 300; i++)
+                    graph.removeEdge(i, random.nextInt(300));
+            }
+        }
+    }
+
+    /**
+     * Test case for queries after a removal running without the components
+     * index instead of finding it again, until they have done as much work
+     * as finding it takes.
+     */
+    @Test
+    public void testComponentsRebuiltAfterQueries() {
+        DijkstraGraph<Integer, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        for (int i = 0; i < 100; i++) {
+            graph.insertNode(i);
+            if (i > 0 && i != 50)
+                graph.insertEdge(i - 1, i, 1);
+        }
+        graph.insertEdge(49, 50, 1);
+        assertEquals(1, graph.getComponentCount());
+        graph.removeEdge(49, 50);
+        assertNull(graph.components);
+
+        // each failing query searches half of the graph, so it takes a few of
+        // them to pay for finding the index again
+        int searches = 0;
+        while (graph.components == null) {
+            assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost(0, 99));
+            assertTrue(graph.getLastSettledCount() > 0);
+            searches++;
+        }
+        assertTrue(searches > 1);
+        assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost(0, 99));
+        assertEquals(0, graph.getLastSettledCount());
+        assertEquals(2, graph.getComponentCount());
+    }
+}
@@ -0,0 +1,45 @@
+import java.io.IOException;
+
+/**
+ * A DotFormatException is thrown when a DOT file cannot be parsed. It
+ * records the line of the file on which parsing failed.
+ */
+public class DotFormatException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int lineNumber;
+    private final String reason;
+
+    /**
+     * Creates an exception for a problem on one line of a DOT file.
+     *
+     * @param source the name of the file, or null if it is not known
+     * @param lineNumber the line on which the problem was found, counting
+     *        from 1
+     * @param reason a description of the problem
+     */
+    public DotFormatException(String source, int lineNumber, String reason) {
+        super((source == null ? "line " : source + ", line ") + lineNumber + ": " + reason);
+        this.lineNumber = lineNumber;
+        this.reason = reason;
+    }
+
+    /**
+     * Returns the line of the file on which parsing failed.
+     *
+     * @return the line number, counting from 1
+     */
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * Returns a description of the problem, without the file and line.
+     *
+     * @return the reason parsing failed
+     */
+    public String getReason() {
+        return reason;
+    }
+}
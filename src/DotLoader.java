@@ -0,0 +1,563 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * A DotLoader reads the friendships in a DOT file into a graph.
+ *
+ * The file is memory mapped and split into chunks that each end at the end
+ * of a line, and the chunks are parsed in parallel on the common
+ * ForkJoinPool. Each chunk is parsed by a hand written tokenizer that works
+ * directly on the file's bytes, and that interns the names it finds, so that
+ * a name that appears on many lines is only decoded into a String once per
+ * chunk. Once every chunk is parsed, the nodes and edges are inserted into
+ * the graph in the order they appear in the file, on the calling thread.
+ *
+ * The tokenizer understands the parts of the DOT language that graph exports
+ * use: a graph, digraph or strict graph header, statements separated by
+ * semicolons or line breaks, node names that are quoted (with \" for a
+ * quote) or made of letters, digits, underscores and periods, chains of
+ * edges written with -- or ->, attribute lists in square brackets, which
+ * are skipped, and comments. A statement naming a single node inserts that
+ * node, and a statement joining two nodes inserts both along with an edge
+ * of weight 1 from the first to the second. As with insertEdge, an edge
+ * that appears twice is only inserted once, while self loops are kept.
+ * Every statement, attribute list and comment must end on the line it
+ * starts on, so that a file can be split between any two of its lines.
+ *
+ * To describe changes to a graph, a statement can also start with a minus
+ * sign: -"a" -- "b"; removes the edge from a to b, and -"a"; removes the
+ * node a along with its edges. Statements are applied in the order they
+ * appear, so a later statement can insert a removed node or edge again.
+ */
+public class DotLoader {
+
+    // the number of bytes in each chunk, not counting the rest of the line
+    // that the chunk ends on
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+
+    protected int chunkSize;
+
+    /**
+     * Creates a loader that splits files into chunks of DEFAULT_CHUNK_SIZE
+     * bytes.
+     */
+    public DotLoader() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates a loader that splits files into chunks of about chunkSize
+     * bytes.
+     *
+     * @param chunkSize the number of bytes to parse in each task
+     */
+    public DotLoader(int chunkSize) {
+        if (chunkSize < 1)
+            throw new IllegalArgumentException("chunk size must be positive");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Reads the nodes and edges of a DOT file into a graph. The graph is only
+     * changed once the whole file has been parsed, so a file with a syntax
+     * error leaves the graph as it was.
+     *
+     * @param file the DOT file to read
+     * @param graph the graph to insert the nodes and edges into
+     * @return the number of edge statements read from the file
+     * @throws java.nio.file.NoSuchFileException if the file does not exist
+     * @throws DotFormatException if the file is not valid DOT
+     * @throws IOException if the file cannot be read
+     */
+    public int load(Path file, GraphADT<String, Integer> graph) throws IOException {
+        Chunk[] chunks;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            chunks = parse(channel, 0, channel.size(), file.toString(), 1);
+        }
+        // readers of a concurrent graph see the whole file at once
+        int[] edgeCount = new int[1];
+        graph.applyBatch(() -> {
+            for (Chunk chunk : chunks)
+                edgeCount[0] += chunk.apply(graph);
+        });
+        return edgeCount[0];
+    }
+
+    /**
+     * Parses the lines of a file between two offsets in parallel, without
+     * changing any graph.
+     *
+     * @param channel the open file
+     * @param start the offset of the first line to parse
+     * @param end the offset just past the last line to parse
+     * @param source the name of the file, for error messages
+     * @param firstLine the line number of the line at start
+     * @return the parsed chunks, in the order they appear in the file
+     * @throws DotFormatException if the lines are not valid DOT
+     * @throws IOException if the file cannot be read
+     */
+    protected Chunk[] parse(FileChannel channel, long start, long end, String source,
+            int firstLine) throws IOException {
+        long[] bounds = findChunkBounds(channel, start, end);
+        Chunk[] chunks = new Chunk[bounds.length - 1];
+        for (int i = 0; i < chunks.length; i++) {
+            // mappings stay valid once the channel is closed
+            chunks[i] = new Chunk(channel.map(FileChannel.MapMode.READ_ONLY,
+                    bounds[i], bounds[i + 1] - bounds[i]));
+        }
+        IntStream.range(0, chunks.length).parallel().forEach(i -> chunks[i].parse());
+
+        // report the first problem in the file, counting lines across chunks
+        int line = firstLine;
+        for (Chunk chunk : chunks) {
+            if (chunk.errorReason != null)
+                throw new DotFormatException(source, line + chunk.errorLine, chunk.errorReason);
+            line += chunk.lineCount;
+        }
+        return chunks;
+    }
+
+    /**
+     * Splits part of a file into chunks of about chunkSize bytes, moving the
+     * end of each chunk forward to the start of the next line.
+     *
+     * @param channel the open file
+     * @param start the offset of the first chunk
+     * @param size the offset just past the last chunk
+     * @return the offset at which each chunk starts, followed by size
+     * @throws IOException if the file cannot be read
+     */
+    protected long[] findChunkBounds(FileChannel channel, long start, long size)
+            throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(start);
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long position = start + chunkSize;
+        while (position < size) {
+            long lineStart = -1;
+            while (lineStart == -1 && position < size) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                if (read <= 0)
+                    break;
+                for (int i = 0; i < read && lineStart == -1; i++)
+                    if (buffer.get(i) == '\n')
+                        lineStart = position + i + 1;
+                position += read;
+            }
+            if (lineStart == -1 || lineStart >= size)
+                break;
+            bounds.add(lineStart);
+            position = lineStart + chunkSize;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++)
+            result[i] = bounds.get(i);
+        return result;
+    }
+
+    /**
+     * A Chunk parses the statements in one part of a DOT file. Names are
+     * given chunk local ids in the order they first appear, by an open
+     * addressing table that compares the raw bytes of each name, and every
+     * statement is recorded as a pair of those ids: the two nodes of an
+     * edge, or a single node followed by -1. Statements that remove their
+     * node or edge are marked in removals.
+     */
+    protected static class Chunk {
+
+        protected ByteBuffer buffer;
+        protected int limit;
+        protected int position = 0;
+        protected int lineCount = 0; // the number of line breaks passed so far
+
+        protected List<String> names = new ArrayList<>();
+        protected int[] nameStarts = new int[16];
+        protected int[] nameEnds = new int[16];
+        protected int[] nameHashes = new int[16];
+        protected int[] slots = new int[32]; // local id + 1, or 0 when empty
+
+        protected int[] statements = new int[64];
+        protected int statementCount = 0;
+        protected BitSet removals = new BitSet();
+
+        // the line within this chunk, counting from 0, that could not be parsed
+        protected int errorLine = -1;
+        protected String errorReason = null;
+
+        // the bytes of the name read last, without any surrounding quotes
+        private int tokenStart;
+        private int tokenEnd;
+        private boolean tokenQuoted;
+        private boolean tokenEscaped;
+
+        public Chunk(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.limit = buffer.limit();
+        }
+
+        /**
+         * Parses every statement in this chunk, or stops at the first problem
+         * and records it in errorLine and errorReason.
+         */
+        public void parse() {
+            try {
+                while (skipWhitespace(true)) {
+                    byte b = buffer.get(position);
+                    if (b == ';' || b == '{' || b == '}') {
+                        position++;
+                        continue;
+                    }
+                    parseStatement();
+                }
+            } catch (DotFormatException e) {
+                errorLine = e.getLineNumber();
+                errorReason = e.getReason();
+            }
+        }
+
+        /**
+         * Applies the statements of this chunk to a graph, in order. Runs of
+         * consecutive insertions, and of consecutive removals, are each
+         * applied as one batch, which gives the same graph because the order
+         * of statements only matters between an insertion and a removal.
+         *
+         * @param graph the graph to change
+         * @return the number of edges inserted or updated
+         */
+        public int apply(GraphADT<String, Integer> graph) {
+            List<String> nodeBatch = new ArrayList<>();
+            List<WeightedEdge<String, Integer>> edgeBatch = new ArrayList<>();
+            // the batch each name was last added to, so that it is added once
+            int[] batches = new int[names.size()];
+            int batch = 1;
+            boolean removing = false;
+            int edgeCount = 0;
+            for (int i = 0; i < statementCount; i++) {
+                if (removals.get(i) != removing) {
+                    edgeCount += flush(graph, removing, nodeBatch, edgeBatch);
+                    removing = !removing;
+                    batch++;
+                }
+                int first = statements[2 * i];
+                int second = statements[2 * i + 1];
+                if (second == -1 || !removing) {
+                    if (batches[first] != batch) {
+                        batches[first] = batch;
+                        nodeBatch.add(names.get(first));
+                    }
+                    if (second != -1 && batches[second] != batch) {
+                        batches[second] = batch;
+                        nodeBatch.add(names.get(second));
+                    }
+                }
+                if (second != -1)
+                    edgeBatch.add(new WeightedEdge<>(names.get(first), names.get(second), 1));
+            }
+            return edgeCount + flush(graph, removing, nodeBatch, edgeBatch);
+        }
+
+        /**
+         * Applies and clears one batch of insertions or removals.
+         *
+         * @return the number of edges inserted or updated
+         */
+        protected int flush(GraphADT<String, Integer> graph, boolean removing,
+                List<String> nodeBatch, List<WeightedEdge<String, Integer>> edgeBatch) {
+            int edgeCount = 0;
+            if (removing) {
+                graph.removeEdges(edgeBatch);
+                graph.removeNodes(nodeBatch);
+            } else {
+                graph.insertNodes(nodeBatch);
+                edgeCount = graph.insertEdges(edgeBatch);
+            }
+            nodeBatch.clear();
+            edgeBatch.clear();
+            return edgeCount;
+        }
+
+        protected void parseStatement() throws DotFormatException {
+            boolean removal = buffer.get(position) == '-';
+            if (removal) {
+                position++;
+                if (!skipWhitespace(false) || buffer.get(position) == '\n')
+                    throw fail("expected a name after '-'");
+            }
+            readName();
+            if (!tokenQuoted && isKeyword()) {
+                if (removal)
+                    throw fail("only nodes and edges can be removed");
+                skipDeclaration();
+                return;
+            }
+            skipWhitespace(false);
+            if (position < limit && buffer.get(position) == '=') {
+                if (removal)
+                    throw fail("only nodes and edges can be removed");
+                // a graph attribute such as rankdir=LR
+                position++;
+                skipWhitespace(false);
+                readName();
+                endStatement();
+                return;
+            }
+
+            int current = intern();
+            skipAttributes();
+            boolean isEdge = false;
+            while (position + 1 < limit && buffer.get(position) == '-'
+                    && (buffer.get(position + 1) == '-' || buffer.get(position + 1) == '>')) {
+                position += 2;
+                if (!skipWhitespace(false) || buffer.get(position) == '\n')
+                    throw fail("expected a name after the edge operator");
+                readName();
+                int next = intern();
+                addStatement(current, next, removal);
+                current = next;
+                isEdge = true;
+                skipAttributes();
+            }
+            if (!isEdge)
+                addStatement(current, -1, removal);
+            endStatement();
+        }
+
+        /**
+         * Reads a quoted or unquoted name starting at position.
+         */
+        protected void readName() throws DotFormatException {
+            byte b = buffer.get(position);
+            if (b == '"') {
+                int start = ++position;
+                boolean escaped = false;
+                while (true) {
+                    if (position >= limit || buffer.get(position) == '\n')
+                        throw fail("unterminated quoted name");
+                    byte c = buffer.get(position);
+                    if (c == '"')
+                        break;
+                    if (c == '\\' && position + 1 < limit && buffer.get(position + 1) == '"') {
+                        escaped = true;
+                        position++;
+                    }
+                    position++;
+                }
+                tokenStart = start;
+                tokenEnd = position++;
+                tokenQuoted = true;
+                tokenEscaped = escaped;
+            } else if (isNameByte(b)) {
+                tokenStart = position;
+                while (position < limit && isNameByte(buffer.get(position)))
+                    position++;
+                tokenEnd = position;
+                tokenQuoted = false;
+                tokenEscaped = false;
+            } else {
+                throw fail("expected a name but found '" + (char) b + "'");
+            }
+        }
+
+        protected boolean isNameByte(byte b) {
+            // bytes above 127 belong to multi-byte UTF-8 characters
+            return (b >= 'a' && b <= 'z') || (b >= 'A' && b <= 'Z') || (b >= '0' && b <= '9')
+                    || b == '_' || b == '.' || b < 0;
+        }
+
+        protected boolean isKeyword() {
+            String[] keywords = {"graph", "digraph", "strict", "subgraph", "node", "edge"};
+            for (String keyword : keywords) {
+                if (tokenEnd - tokenStart != keyword.length())
+                    continue;
+                boolean matches = true;
+                for (int i = 0; i < keyword.length() && matches; i++)
+                    matches = Character.toLowerCase(buffer.get(tokenStart + i)) == keyword.charAt(i);
+                if (matches)
+                    return true;
+            }
+            return false;
+        }
+
+        /**
+         * Skips the rest of a statement that starts with a keyword: up to the
+         * opening brace of a graph or the end of the line, or the attributes
+         * of a node or edge default.
+         */
+        protected void skipDeclaration() throws DotFormatException {
+            byte first = buffer.get(tokenStart);
+            if (first == 'n' || first == 'N' || first == 'e' || first == 'E') {
+                skipAttributes();
+                endStatement();
+                return;
+            }
+            while (position < limit && buffer.get(position) != '{'
+                    && buffer.get(position) != '\n') {
+                if (buffer.get(position) == '"')
+                    readName();
+                else
+                    position++;
+            }
+            if (position < limit && buffer.get(position) == '{')
+                position++;
+        }
+
+        /**
+         * Skips an attribute list in square brackets, if there is one, along
+         * with the whitespace around it.
+         */
+        protected void skipAttributes() throws DotFormatException {
+            skipWhitespace(false);
+            if (position >= limit || buffer.get(position) != '[')
+                return;
+            position++;
+            while (true) {
+                if (!skipWhitespace(false) || buffer.get(position) == '\n')
+                    throw fail("unterminated attribute list");
+                byte b = buffer.get(position);
+                if (b == ']')
+                    break;
+                if (b == '"')
+                    readName();
+                else
+                    position++;
+            }
+            position++;
+            skipWhitespace(false);
+        }
+
+        /**
+         * Checks that the current statement ends here, at a semicolon, a line
+         * break, a closing brace or the end of the chunk.
+         */
+        protected void endStatement() throws DotFormatException {
+            if (!skipWhitespace(false))
+                return;
+            byte b = buffer.get(position);
+            if (b == ';')
+                position++;
+            else if (b != '\n' && b != '}')
+                throw fail("unexpected '" + (char) b + "'");
+        }
+
+        /**
+         * Moves position past spaces and comments, and line breaks too if
+         * newlines is true.
+         *
+         * @return true if position is still within the chunk
+         */
+        protected boolean skipWhitespace(boolean newlines) throws DotFormatException {
+            while (position < limit) {
+                byte b = buffer.get(position);
+                if (b == ' ' || b == '\t' || b == '\r') {
+                    position++;
+                } else if (b == '\n' && newlines) {
+                    lineCount++;
+                    position++;
+                } else if (b == '#' || (b == '/' && peek(1) == '/')) {
+                    while (position < limit && buffer.get(position) != '\n')
+                        position++;
+                } else if (b == '/' && peek(1) == '*') {
+                    position += 2;
+                    while (!(peek(0) == '*' && peek(1) == '/')) {
+                        if (position >= limit || buffer.get(position) == '\n')
+                            throw fail("unterminated comment");
+                        position++;
+                    }
+                    position += 2;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private byte peek(int offset) {
+            return position + offset < limit ? buffer.get(position + offset) : 0;
+        }
+
+        /**
+         * Returns the chunk local id of the name read last, giving it a new
+         * id if this is the first time it appears in the chunk.
+         */
+        protected int intern() {
+            int hash = 0;
+            for (int i = tokenStart; i < tokenEnd; i++)
+                hash = 31 * hash + buffer.get(i);
+            hash ^= hash >>> 16;
+
+            int mask = slots.length - 1;
+            int slot = hash & mask;
+            while (slots[slot] != 0) {
+                int id = slots[slot] - 1;
+                if (nameHashes[id] == hash && sameBytes(id))
+                    return id;
+                slot = (slot + 1) & mask;
+            }
+
+            int id = names.size();
+            byte[] bytes = new byte[tokenEnd - tokenStart];
+            buffer.get(tokenStart, bytes);
+            String name = new String(bytes, StandardCharsets.UTF_8);
+            names.add(tokenEscaped ? name.replace("\\\"", "\"") : name);
+            if (id == nameStarts.length) {
+                nameStarts = Arrays.copyOf(nameStarts, 2 * id);
+                nameEnds = Arrays.copyOf(nameEnds, 2 * id);
+                nameHashes = Arrays.copyOf(nameHashes, 2 * id);
+            }
+            nameStarts[id] = tokenStart;
+            nameEnds[id] = tokenEnd;
+            nameHashes[id] = hash;
+            slots[slot] = id + 1;
+            if (2 * names.size() > slots.length)
+                growSlots();
+            return id;
+        }
+
+        private boolean sameBytes(int id) {
+            int start = nameStarts[id];
+            if (nameEnds[id] - start != tokenEnd - tokenStart)
+                return false;
+            for (int i = 0; i < tokenEnd - tokenStart; i++)
+                if (buffer.get(start + i) != buffer.get(tokenStart + i))
+                    return false;
+            return true;
+        }
+
+        private void growSlots() {
+            slots = new int[2 * slots.length];
+            int mask = slots.length - 1;
+            for (int id = 0; id < names.size(); id++) {
+                int slot = nameHashes[id] & mask;
+                while (slots[slot] != 0)
+                    slot = (slot + 1) & mask;
+                slots[slot] = id + 1;
+            }
+        }
+
+        private void addStatement(int first, int second, boolean removal) {
+            if (2 * statementCount + 2 > statements.length)
+                statements = Arrays.copyOf(statements, 2 * statements.length);
+            statements[2 * statementCount] = first;
+            statements[2 * statementCount + 1] = second;
+            if (removal)
+                removals.set(statementCount);
+            statementCount++;
+        }
+
+        private DotFormatException fail(String reason) {
+            return new DotFormatException(null, lineCount, reason);
+        }
+    }
+}
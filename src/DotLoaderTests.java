@@ -0,0 +1,117 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DotLoaderTests {
+
+    @TempDir
+    Path directory;
+
+    private Path write(String contents) throws IOException {
+        Path file = directory.resolve("graph.dot");
+        Files.writeString(file, contents);
+        return file;
+    }
+
+    /**
+     * Test case for loading the sample network with chunks of several sizes,
+     * compared with the line by line parsing that Backend.readData used to
+     * do.
+     */
+    @Test
+    public void testMatchesLineByLineParsing() throws IOException {
+        List<String[]> expected = new ArrayList<>();
+        for (String line : Files.readAllLines(Paths.get("socialnetwork.dot"))) {
+            line = line.trim();
+            if (line.endsWith(";")) {
+                line = line.substring(0, line.length() - 1).trim();
+            }
+            if (line.contains("--")) {
+                String[] names = line.split("--");
+                expected.add(new String[] {names[0].replaceAll("\"", "").trim(),
+                        names[1].replaceAll("\"", "").trim()});
+            }
+        }
+        DijkstraGraph<String, Integer> reference = new DijkstraGraph<>(new OpenAddressingMap<>());
+        for (String[] edge : expected) {
+            reference.insertNode(edge[0]);
+            reference.insertNode(edge[1]);
+            reference.insertEdge(edge[0], edge[1], 1);
+        }
+
+        for (int chunkSize : new int[] {1, 64, DotLoader.DEFAULT_CHUNK_SIZE}) {
+            DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+            assertEquals(expected.size(),
+                    new DotLoader(chunkSize).load(Paths.get("socialnetwork.dot"), graph));
+            assertEquals(reference.getNodeCount(), graph.getNodeCount());
+            assertEquals(reference.getEdgeCount(), graph.getEdgeCount());
+            for (String[] edge : expected) {
+                assertTrue(graph.containsEdge(edge[0], edge[1]));
+            }
+        }
+    }
+
+    /**
+     * Test case for the parts of the DOT language the loader understands.
+     */
+    @Test
+    public void testSyntax() throws IOException {
+        Path file = write("strict digraph \"my network\" {\n"
+                + "  // a comment\n"
+                + "  rankdir=LR;\n"
+                + "  node [shape=box];\n"
+                + "  \"ann\" -> bob [label=\"friends]\"]; carl\n"
+                + "  dave -- erin -- \"say \\\"hi\\\"\" /* a comment */ # another\n"
+                + "  ann -- ann;\n"
+                + "  \"ann\" -> \"bob\"\n"
+                + "  \"\u00e9mile\"\n"
+                + "}\n");
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        assertEquals(5, new DotLoader(8).load(file, graph));
+
+        assertEquals(7, graph.getNodeCount());
+        assertEquals(4, graph.getEdgeCount());
+        assertTrue(graph.containsEdge("ann", "bob"));
+        assertTrue(graph.containsEdge("dave", "erin"));
+        assertTrue(graph.containsEdge("erin", "say \"hi\""));
+        assertTrue(graph.containsEdge("ann", "ann"));
+        assertTrue(graph.containsNode("carl"));
+        assertTrue(graph.containsNode("\u00e9mile"));
+    }
+
+    /**
+     * Test case for reporting a missing file and the line of a syntax error,
+     * without changing the graph.
+     */
+    @Test
+    public void testErrors() throws IOException {
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        DotLoader loader = new DotLoader(4);
+        assertThrows(NoSuchFileException.class,
+                () -> loader.load(directory.resolve("missing.dot"), graph));
+
+        Path file = write("graph {\n  a -- b;\n  c -- d;\n  e -- ;\n  f -- g;\n}\n");
+        DotFormatException e = assertThrows(DotFormatException.class,
+                () -> loader.load(file, graph));
+        assertEquals(4, e.getLineNumber());
+        assertEquals(0, graph.getNodeCount());
+
+        Path unterminated = write("graph {\n\"a\" -- \"b\n}\n");
+        e = assertThrows(DotFormatException.class, () -> loader.load(unterminated, graph));
+        assertEquals(2, e.getLineNumber());
+        assertEquals("unterminated quoted name", e.getReason());
+
+        Path multiline = write("graph {\n/* a\n comment */\n}\n");
+        e = assertThrows(DotFormatException.class, () -> loader.load(multiline, graph));
+        assertEquals(2, e.getLineNumber());
+    }
+}
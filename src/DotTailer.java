@@ -0,0 +1,242 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A DotTailer keeps a graph up to date with a DOT file that is being
+ * appended to, by applying only the lines added since it last looked.
+ *
+ * The tailer remembers the offset just past the last line it applied. Each
+ * call to poll parses the complete lines between that offset and the end of
+ * the file with a DotLoader, and applies them to the graph in one call to
+ * applyBatch, so that readers of a ConcurrentDijkstraGraph see either none
+ * or all of a poll. A line that is still being written, without its line
+ * break, is left for a later poll. Lines starting with a minus sign remove
+ * nodes and edges, as described in DotLoader.
+ *
+ * If the file shrinks below the remembered offset, or is replaced by
+ * another file, which is told by the file key of file systems that have
+ * them, such as the inode on Unix, it is read again from its first line.
+ * The graph is not cleared first: the lines of the new file are applied to
+ * it as they are, so nodes and edges that only the old file inserted stay in
+ * the graph unless the new file removes them. A file that is rewritten in
+ * place rather than replaced, and is no shorter than before, cannot be told
+ * apart from one that was appended to, and only its bytes past the
+ * remembered offset are read.
+ *
+ * After start is called, a background thread polls whenever a WatchService
+ * reports a change to the file's directory, and at least once per interval,
+ * for file systems that do not report changes. The graph is then changed by
+ * that thread, so a graph that is queried at the same time must be safe to
+ * use from several threads, such as a ConcurrentDijkstraGraph.
+ */
+public class DotTailer implements Closeable {
+
+    protected Path file;
+    protected GraphADT<String, Integer> graph;
+    protected DotLoader loader;
+
+    protected long offset = 0; // just past the last line that was applied
+    protected int lineNumber = 1; // the line number of the line at offset
+    protected Object fileKey = null; // the key of the file last read, if it has one
+
+    protected volatile boolean running = false;
+    protected volatile IOException lastError = null;
+    protected Thread thread = null;
+
+    /**
+     * Creates a tailer that applies the lines of a file to a graph, starting
+     * from the file's first line.
+     *
+     * @param file the DOT file to follow
+     * @param graph the graph to keep up to date
+     */
+    public DotTailer(Path file, GraphADT<String, Integer> graph) {
+        this(file, graph, new DotLoader());
+    }
+
+    /**
+     * Creates a tailer that parses new lines with the provided loader.
+     *
+     * @param file the DOT file to follow
+     * @param graph the graph to keep up to date
+     * @param loader the loader that parses new lines
+     */
+    public DotTailer(Path file, GraphADT<String, Integer> graph, DotLoader loader) {
+        this.file = file;
+        this.graph = graph;
+        this.loader = loader;
+    }
+
+    /**
+     * Applies every complete line added to the file since the last poll.
+     * When a line cannot be parsed, none of the new lines are applied, and
+     * the next poll tries them again.
+     *
+     * @return the number of statements applied
+     * @throws NoSuchFileException if the file does not exist
+     * @throws DotFormatException if a new line is not valid DOT
+     * @throws IOException if the file cannot be read
+     */
+    public synchronized int poll() throws IOException {
+        // read the key before opening the file, so that a file replaced in
+        // between is read again from the start by the next poll
+        Object key = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < offset || (key != null && fileKey != null && !key.equals(fileKey))) {
+                // the file was truncated or replaced, so start over
+                offset = 0;
+                lineNumber = 1;
+            }
+            fileKey = key;
+            long end = findLastLineEnd(channel, offset, size);
+            if (end == offset)
+                return 0;
+
+            DotLoader.Chunk[] chunks = loader.parse(channel, offset, end, file.toString(),
+                    lineNumber);
+            graph.applyBatch(() -> {
+                for (DotLoader.Chunk chunk : chunks)
+                    chunk.apply(graph);
+            });
+            int statementCount = 0;
+            for (DotLoader.Chunk chunk : chunks) {
+                statementCount += chunk.statementCount;
+                lineNumber += chunk.lineCount;
+            }
+            offset = end;
+            return statementCount;
+        }
+    }
+
+    /**
+     * Finds the end of the last complete line between two offsets.
+     *
+     * @return the offset just past the last line break before size, or start
+     *         if there is no line break after start
+     */
+    protected long findLastLineEnd(FileChannel channel, long start, long size)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long blockEnd = size;
+        while (blockEnd > start) {
+            long blockStart = Math.max(start, blockEnd - buffer.capacity());
+            buffer.clear().limit((int) (blockEnd - blockStart));
+            while (buffer.hasRemaining())
+                if (channel.read(buffer, blockStart + buffer.position()) < 0)
+                    return start;
+            for (int i = buffer.limit() - 1; i >= 0; i--)
+                if (buffer.get(i) == '\n')
+                    return blockStart + i + 1;
+            blockEnd = blockStart;
+        }
+        return start;
+    }
+
+    /**
+     * Starts following the file on a background daemon thread. The thread
+     * stops at the first error other than the file being missing for a
+     * moment, which can then be retrieved with getLastError.
+     *
+     * @param intervalMillis the longest time to wait between polls
+     * @throws IllegalStateException if the tailer was already started
+     */
+    public synchronized void start(long intervalMillis) {
+        if (thread != null)
+            throw new IllegalStateException("tailer already started");
+        running = true;
+        thread = new Thread(() -> follow(intervalMillis), "DotTailer " + file.getFileName());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * The loop run by the background thread.
+     */
+    protected void follow(long intervalMillis) {
+        try (WatchService watcher = file.getFileSystem().newWatchService()) {
+            file.toAbsolutePath().getParent().register(watcher,
+                    StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            while (running) {
+                WatchKey key = watcher.poll(intervalMillis, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                }
+                try {
+                    poll();
+                } catch (NoSuchFileException e) {
+                    // the file is being replaced, so wait for the new one
+                }
+            }
+        } catch (IOException e) {
+            // reads interrupted by close fail too, but are not errors
+            if (running)
+                lastError = e;
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped by close
+        } finally {
+            running = false;
+        }
+    }
+
+    /**
+     * Checks whether the background thread is following the file.
+     *
+     * @return true if the tailer was started and has not stopped
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the error that stopped the background thread.
+     *
+     * @return the error, or null if the thread has not failed
+     */
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    /**
+     * Returns the offset just past the last line that was applied.
+     *
+     * @return the number of bytes of the file that were applied
+     */
+    public synchronized long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Stops the background thread, if it was started, and waits for it to
+     * finish.
+     */
+    @Override
+    public void close() {
+        Thread stopping;
+        synchronized (this) {
+            running = false;
+            stopping = thread;
+        }
+        if (stopping == null)
+            return;
+        stopping.interrupt();
+        try {
+            stopping.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
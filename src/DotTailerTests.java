@@ -0,0 +1,103 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class DotTailerTests {
+
+    @TempDir
+    Path directory;
+
+    private static void append(Path file, String lines) throws IOException {
+        Files.writeString(file, lines, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Test case for applying appended lines, leaving a line that is still
+     * being written for later, and removing nodes and edges.
+     */
+    @Test
+    public void testAppendedLines() throws IOException {
+        Path file = directory.resolve("friends.dot");
+        Files.writeString(file, "graph friends {\n  a -- b;\n  b -- c;\n");
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        DotTailer tailer = new DotTailer(file, graph);
+
+        assertEquals(2, tailer.poll());
+        assertEquals(Files.size(file), tailer.getOffset());
+        assertEquals(0, tailer.poll());
+
+        append(file, "  c -- d;\n  \"d\" -- \"e");
+        assertEquals(1, tailer.poll());
+        assertTrue(graph.containsEdge("c", "d"));
+        assertFalse(graph.containsNode("e"));
+        append(file, "\";\n");
+        assertEquals(1, tailer.poll());
+        assertTrue(graph.containsEdge("d", "e"));
+
+        append(file, "  -a -- b;\n  -\"d\";\n  a -- e\n");
+        assertEquals(3, tailer.poll());
+        assertFalse(graph.containsEdge("a", "b"));
+        assertFalse(graph.containsNode("d"));
+        assertTrue(graph.containsEdge("a", "e"));
+        assertEquals(List.of("a", "e"), graph.shortestPathData("a", "e"));
+
+        // a bad line is reported with its line number, and applied once fixed
+        append(file, "  e -- ;\n");
+        DotFormatException e = assertThrows(DotFormatException.class, () -> tailer.poll());
+        assertEquals(9, e.getLineNumber());
+
+        // after the file is truncated it is read again from the start
+        Files.writeString(file, "x -- y;\n");
+        assertEquals(1, tailer.poll());
+        assertTrue(graph.containsEdge("x", "y"));
+
+        // a longer file moved into its place is read again from the start too,
+        // on file systems that tell files apart by key
+        Path replacement = directory.resolve("replacement.dot");
+        Files.writeString(replacement, "graph friends {\n  p -- q;\n  q -- r;\n  r -- s;\n");
+        boolean keyed = Files.readAttributes(file, BasicFileAttributes.class).fileKey() != null;
+        Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING);
+        if (keyed) {
+            assertEquals(3, tailer.poll());
+            assertTrue(graph.containsEdge("p", "q"));
+            assertTrue(graph.containsEdge("r", "s"));
+            // the graph is not cleared along the way
+            assertTrue(graph.containsEdge("x", "y"));
+        }
+        tailer.close();
+    }
+
+    /**
+     * Test case for following a file on a background thread.
+     */
+    @Test
+    public void testFollowInBackground() throws Exception {
+        Path file = directory.resolve("friends.dot");
+        Files.writeString(file, "a -- b;\n");
+        ConcurrentDijkstraGraph<String, Integer> graph =
+                new ConcurrentDijkstraGraph<>(new OpenAddressingMap<>());
+        Backend backend = new Backend(graph);
+        try (DotTailer tailer = backend.followData(file.toString(), 20)) {
+            assertTrue(graph.containsEdge("a", "b"));
+            assertTrue(tailer.isRunning());
+
+            append(file, "b -- c;\n");
+            long deadline = System.currentTimeMillis() + 10000;
+            while (!graph.containsEdge("b", "c") && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(graph.containsEdge("b", "c"));
+            assertEquals(1, backend.getDistanceBetween("a", "c").numberOfIntermediaryFriends());
+            assertNull(tailer.getLastError());
+        }
+    }
+}
@@ -0,0 +1,396 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A FriendRecommender finds the friends two people have in common, and the
+ * people someone may know: those who share friends with them but are not
+ * yet their friends, ranked by one of the classic link prediction scores.
+ * It reads the neighborhoods it needs straight from the edge lists of the
+ * graph's nodes, whichever direction those edges point in, so a query only
+ * looks at the few people involved and their friends, and changes to the
+ * graph are seen by the very next query.
+ *
+ * To recommend friends for a person, the neighborhood of each of their
+ * friends is walked once, and every friend of a friend who is not already
+ * a friend gets a count of the friends it shares with the person, along
+ * with its Adamic-Adar score. Those counts are kept in arrays indexed by
+ * node id, which, as in a SearchWorkspace, are reused from one query to the
+ * next and stamped with the query they belong to, so that a query costs the
+ * same no matter how large the graph is. Only the best few candidates are
+ * kept, in a bounded heap. Each thread that uses a recommender gets its own
+ * arrays, so one recommender can serve many threads at once, as long as
+ * the graph does not change while they query it.
+ */
+public class FriendRecommender {
+
+    /**
+     * The scores by which people who share friends with someone are ranked.
+     */
+    public enum Score {
+        /** the number of friends they have in common */
+        COMMON_NEIGHBORS,
+        /**
+         * the friends they have in common, each weighted by one over the
+         * logarithm of its number of friends, so that sharing a friend with
+         * few friends counts for more than sharing a popular one
+         */
+        ADAMIC_ADAR,
+        /**
+         * the number of friends they have in common, over the number of
+         * people who are a friend of either of them
+         */
+        JACCARD
+    }
+
+    /**
+     * A person recommended as a friend, along with their score and the
+     * number of friends they have in common with the person they were
+     * recommended to.
+     *
+     * @param NodeType is the data type stored at each graph node
+     */
+    public static class Recommendation<NodeType> {
+
+        protected NodeType person;
+        protected double score;
+        protected int mutualFriendCount;
+
+        /**
+         * Creates a recommendation.
+         *
+         * @param person the person recommended
+         * @param score their score
+         * @param mutualFriendCount the number of friends in common
+         */
+        public Recommendation(NodeType person, double score, int mutualFriendCount) {
+            this.person = person;
+            this.score = score;
+            this.mutualFriendCount = mutualFriendCount;
+        }
+
+        /**
+         * @return the person recommended
+         */
+        public NodeType getPerson() {
+            return person;
+        }
+
+        /**
+         * @return the score the person was ranked by
+         */
+        public double getScore() {
+            return score;
+        }
+
+        /**
+         * @return the number of friends in common
+         */
+        public int getMutualFriendCount() {
+            return mutualFriendCount;
+        }
+
+        @Override
+        public String toString() {
+            return person + " (" + mutualFriendCount + " mutual friends, score "
+                    + String.format("%.3f", score) + ")";
+        }
+    }
+
+    /**
+     * The arrays one thread reuses across queries: per candidate counts and
+     * scores, valid where their stamp matches the current epoch, the bounded
+     * heap of the best candidates, whose root is the worst of them, and the
+     * distinct neighbors of the node whose edges were walked last, which
+     * are told apart from repeated ones by marks that are renewed for each
+     * walk.
+     */
+    protected static class Workspace {
+        protected int[] stamps = new int[0];
+        protected int[] common = new int[0]; // friends shared, or -1 for excluded nodes
+        protected double[] adamicAdar = new double[0];
+        protected int[] candidates = new int[0]; // the nodes stamped this query
+        protected int epoch = 0;
+        protected int[] marks = new int[0];
+        protected int mark = 0;
+        protected int[] neighbors = new int[0];
+        protected int[] friends = new int[0]; // the person's neighbors, while theirs are walked
+        protected int[] heapIds = new int[0];
+        protected double[] heapScores = new double[0];
+        protected int heapSize = 0;
+
+        /**
+         * Prepares the workspace for a query over nodeCount nodes, that keeps
+         * up to count candidates.
+         */
+        protected void reset(int nodeCount, int count) {
+            if (stamps.length < nodeCount) {
+                int capacity = Math.max(nodeCount, stamps.length + stamps.length / 2);
+                stamps = new int[capacity];
+                common = new int[capacity];
+                adamicAdar = new double[capacity];
+                candidates = new int[capacity];
+                marks = new int[capacity];
+                epoch = 0;
+                mark = 0;
+            }
+            if (heapIds.length < count) {
+                heapIds = new int[count];
+                heapScores = new double[count];
+            }
+            heapSize = 0;
+            if (++epoch == Integer.MAX_VALUE) {
+                // restart numbering epochs once they run out
+                Arrays.fill(stamps, 0);
+                epoch = 1;
+            }
+        }
+
+        /**
+         * Gathers the distinct neighbors of a node into the neighbors array,
+         * from the edges leaving it and entering it, without the node itself.
+         *
+         * @return the number of neighbors gathered
+         */
+        protected <NodeType, EdgeType extends Number> int gatherNeighbors(
+                BaseGraph<NodeType, EdgeType>.Node node) {
+            int edges = node.edgesLeaving.size() + node.edgesEntering.size();
+            if (neighbors.length < edges)
+                neighbors = new int[Math.max(edges, neighbors.length + neighbors.length / 2)];
+            if (++mark == Integer.MAX_VALUE) {
+                // restart numbering marks once they run out
+                Arrays.fill(marks, 0);
+                mark = 1;
+            }
+            marks[node.id] = mark;
+            int degree = 0;
+            for (BaseGraph<NodeType, EdgeType>.Edge edge : node.edgesLeaving) {
+                int neighbor = edge.other(node).id;
+                if (marks[neighbor] != mark) {
+                    marks[neighbor] = mark;
+                    neighbors[degree++] = neighbor;
+                }
+            }
+            for (BaseGraph<NodeType, EdgeType>.Edge edge : node.edgesEntering) {
+                int neighbor = edge.predecessor.id;
+                if (marks[neighbor] != mark) {
+                    marks[neighbor] = mark;
+                    neighbors[degree++] = neighbor;
+                }
+            }
+            return degree;
+        }
+
+        /**
+         * Checks whether a candidate ranks below another, by lower score and
+         * then by higher id, so that ties go to the lower id.
+         */
+        private boolean ranksBelow(double score, int id, double otherScore, int otherId) {
+            return score < otherScore || (score == otherScore && id > otherId);
+        }
+
+        /**
+         * Offers a candidate to the heap of the best count candidates.
+         */
+        protected void offer(int id, double score, int count) {
+            if (heapSize == count) {
+                // replace the worst candidate kept, if this one is better
+                if (ranksBelow(heapScores[0], heapIds[0], score, id))
+                    siftDown(id, score);
+                return;
+            }
+            // sift the new candidate up from the bottom
+            int position = heapSize++;
+            while (position > 0) {
+                int parent = (position - 1) / 2;
+                if (!ranksBelow(score, id, heapScores[parent], heapIds[parent]))
+                    break;
+                heapIds[position] = heapIds[parent];
+                heapScores[position] = heapScores[parent];
+                position = parent;
+            }
+            heapIds[position] = id;
+            heapScores[position] = score;
+        }
+
+        /**
+         * Removes the worst candidate from the heap.
+         */
+        protected int pollWorst() {
+            int worst = heapIds[0];
+            heapSize--;
+            siftDown(heapIds[heapSize], heapScores[heapSize]);
+            return worst;
+        }
+
+        /**
+         * Places a candidate at the root of the heap, in place of the worst
+         * one, and moves it down to where it belongs.
+         */
+        private void siftDown(int id, double score) {
+            int position = 0;
+            while (true) {
+                int child = 2 * position + 1;
+                if (child >= heapSize)
+                    break;
+                if (child + 1 < heapSize && ranksBelow(heapScores[child + 1],
+                        heapIds[child + 1], heapScores[child], heapIds[child]))
+                    child++;
+                if (!ranksBelow(heapScores[child], heapIds[child], score, id))
+                    break;
+                heapIds[position] = heapIds[child];
+                heapScores[position] = heapScores[child];
+                position = child;
+            }
+            heapIds[position] = id;
+            heapScores[position] = score;
+        }
+    }
+
+    // Each thread that queries this recommender reuses its own workspace
+    protected ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(Workspace::new);
+
+    /**
+     * Returns the friends two people have in common, in the order of their
+     * ids. The graph must not change while they are found.
+     *
+     * @param graph the graph of friendships
+     * @param first one person
+     * @param second the other person
+     * @return the people who are friends of both
+     * @throws NoSuchElementException if either person is not in the graph
+     */
+    public <NodeType, EdgeType extends Number> List<NodeType> mutualFriends(
+            BaseGraph<NodeType, EdgeType> graph, NodeType first, NodeType second) {
+        BaseGraph<NodeType, EdgeType>.Node firstNode = nodeOf(graph, first);
+        BaseGraph<NodeType, EdgeType>.Node secondNode = nodeOf(graph, second);
+        Workspace workspace = workspaces.get();
+        workspace.reset(graph.nodeTable.size(), 0);
+        int epoch = workspace.epoch;
+        int[] stamps = workspace.stamps;
+
+        int degree = workspace.gatherNeighbors(firstNode);
+        int[] neighbors = workspace.neighbors;
+        for (int i = 0; i < degree; i++)
+            stamps[neighbors[i]] = epoch;
+        degree = workspace.gatherNeighbors(secondNode);
+        neighbors = workspace.neighbors;
+        int mutualCount = 0;
+        for (int i = 0; i < degree; i++)
+            if (stamps[neighbors[i]] == epoch)
+                neighbors[mutualCount++] = neighbors[i];
+        Arrays.sort(neighbors, 0, mutualCount);
+        List<NodeType> mutual = new ArrayList<>(mutualCount);
+        for (int i = 0; i < mutualCount; i++)
+            mutual.add(graph.nodeTable.get(neighbors[i]).data);
+        return mutual;
+    }
+
+    /**
+     * Returns the people a person may know: those who share at least one
+     * friend with them and are not their friends already, best first. The
+     * graph must not change while they are found.
+     *
+     * @param graph the graph of friendships
+     * @param person the person to recommend friends to
+     * @param count the largest number of people to recommend
+     * @param score how to rank the people who share friends with person
+     * @return up to count recommendations, from the highest score to the
+     *         lowest, with ties ordered by id
+     * @throws NoSuchElementException if person is not in the graph
+     */
+    public <NodeType, EdgeType extends Number> List<Recommendation<NodeType>> recommend(
+            BaseGraph<NodeType, EdgeType> graph, NodeType person, int count, Score score) {
+        if (count < 0)
+            throw new IllegalArgumentException("count cannot be negative");
+        if (score == null)
+            throw new NullPointerException("score cannot be null");
+        BaseGraph<NodeType, EdgeType>.Node personNode = nodeOf(graph, person);
+        List<BaseGraph<NodeType, EdgeType>.Node> nodeTable = graph.nodeTable;
+        Workspace workspace = workspaces.get();
+        workspace.reset(nodeTable.size(), count);
+        int epoch = workspace.epoch;
+        int[] stamps = workspace.stamps;
+        int[] common = workspace.common;
+        double[] adamicAdar = workspace.adamicAdar;
+        int[] candidates = workspace.candidates;
+
+        // the person and their friends are never recommended
+        int degree = workspace.gatherNeighbors(personNode);
+        if (workspace.friends.length < degree)
+            workspace.friends = new int[workspace.neighbors.length];
+        int[] friends = workspace.friends;
+        System.arraycopy(workspace.neighbors, 0, friends, 0, degree);
+        stamps[personNode.id] = epoch;
+        common[personNode.id] = -1;
+        for (int i = 0; i < degree; i++) {
+            stamps[friends[i]] = epoch;
+            common[friends[i]] = -1;
+        }
+        int candidateCount = 0;
+        for (int i = 0; i < degree; i++) {
+            int friendDegree = workspace.gatherNeighbors(nodeTable.get(friends[i]));
+            int[] neighbors = workspace.neighbors;
+            // a friend shared with person has at least two friends
+            double weight = 1.0 / Math.log(friendDegree);
+            for (int j = 0; j < friendDegree; j++) {
+                int candidate = neighbors[j];
+                if (stamps[candidate] != epoch) {
+                    stamps[candidate] = epoch;
+                    common[candidate] = 0;
+                    adamicAdar[candidate] = 0.0;
+                    candidates[candidateCount++] = candidate;
+                } else if (common[candidate] < 0) {
+                    continue;
+                }
+                common[candidate]++;
+                adamicAdar[candidate] += weight;
+            }
+        }
+
+        for (int i = 0; i < candidateCount && count > 0; i++) {
+            int candidate = candidates[i];
+            // only the Jaccard score needs to know how many friends the candidate has
+            int candidateDegree = score == Score.JACCARD
+                    ? workspace.gatherNeighbors(nodeTable.get(candidate)) : 0;
+            workspace.offer(candidate, score(score, common[candidate], adamicAdar[candidate],
+                    degree, candidateDegree), count);
+        }
+        List<Recommendation<NodeType>> best = new ArrayList<>(workspace.heapSize);
+        while (workspace.heapSize > 0) {
+            double value = workspace.heapScores[0];
+            int candidate = workspace.pollWorst();
+            best.add(new Recommendation<>(nodeTable.get(candidate).data, value, common[candidate]));
+        }
+        Collections.reverse(best);
+        return best;
+    }
+
+    /**
+     * Computes the score of a candidate from what was gathered about it.
+     */
+    private static double score(Score score, int common, double adamicAdar, int degree,
+            int candidateDegree) {
+        switch (score) {
+            case COMMON_NEIGHBORS:
+                return common;
+            case ADAMIC_ADAR:
+                return adamicAdar;
+            default:
+                return (double) common / (degree + candidateDegree - common);
+        }
+    }
+
+    /**
+     * Finds the node of a graph that stores some data.
+     */
+    private static <NodeType, EdgeType extends Number> BaseGraph<NodeType, EdgeType>.Node nodeOf(
+            BaseGraph<NodeType, EdgeType> graph, NodeType data) {
+        BaseGraph<NodeType, EdgeType>.Node node = data == null ? null : graph.nodes.getOrNull(data);
+        if (node == null)
+            throw new NoSuchElementException("node not found in graph");
+        return node;
+    }
+}
@@ -0,0 +1,131 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class FriendRecommenderTests {
+
+    /**
+     * Test case for mutual friends and recommendations on random graphs,
+     * with repeated edges in either direction and self loops, against
+     * computing every score for every other node and sorting them.
+     */
+    @Test
+    public void testMatchesScoringEveryone() {
+        Random random = new Random(24);
+        for (int round = 0; round < 10; round++) {
+            int nodeCount = 20 + random.nextInt(80);
+            DijkstraGraph<Integer, Integer> graph = round % 2 == 0
+                    ? new DijkstraGraph<>(new OpenAddressingMap<>())
+                    : new UndirectedGraph<>(new OpenAddressingMap<>());
+            for (int i = 0; i < nodeCount; i++)
+                graph.insertNode(i);
+            for (int i = 0; i < nodeCount * 4; i++)
+                graph.insertEdge(random.nextInt(nodeCount), random.nextInt(nodeCount), 1);
+            List<Set<Integer>> friends = new ArrayList<>();
+            for (int i = 0; i < nodeCount; i++) {
+                Set<Integer> set = new HashSet<>();
+                for (int j = 0; j < nodeCount; j++)
+                    if (i != j && (graph.containsEdge(i, j) || graph.containsEdge(j, i)))
+                        set.add(j);
+                friends.add(set);
+            }
+
+            for (int query = 0; query < 10; query++) {
+                int person = random.nextInt(nodeCount);
+                int other = random.nextInt(nodeCount);
+                Set<Integer> mutual = new HashSet<>(friends.get(person));
+                mutual.retainAll(friends.get(other));
+                assertEquals(mutual, new HashSet<>(graph.getMutualFriends(person, other)));
+
+                for (FriendRecommender.Score score : FriendRecommender.Score.values()) {
+                    List<double[]> expected = new ArrayList<>(); // {id, score}
+                    for (int candidate = 0; candidate < nodeCount; candidate++) {
+                        if (candidate == person || friends.get(person).contains(candidate))
+                            continue;
+                        Set<Integer> common = new HashSet<>(friends.get(person));
+                        common.retainAll(friends.get(candidate));
+                        if (common.isEmpty())
+                            continue;
+                        double value = common.size();
+                        if (score == FriendRecommender.Score.ADAMIC_ADAR) {
+                            value = 0;
+                            for (int friend : common)
+                                value += 1 / Math.log(friends.get(friend).size());
+                        } else if (score == FriendRecommender.Score.JACCARD) {
+                            Set<Integer> union = new HashSet<>(friends.get(person));
+                            union.addAll(friends.get(candidate));
+                            value = (double) common.size() / union.size();
+                        }
+                        expected.add(new double[] {candidate, value});
+                    }
+                    expected.sort(Comparator.<double[]>comparingDouble(entry -> -entry[1])
+                            .thenComparingDouble(entry -> entry[0]));
+
+                    int count = 1 + random.nextInt(8);
+                    List<FriendRecommender.Recommendation<Integer>> recommendations =
+                            graph.getFriendRecommendations(person, count, score);
+                    assertEquals(Math.min(count, expected.size()), recommendations.size());
+                    for (int i = 0; i < recommendations.size(); i++) {
+                        FriendRecommender.Recommendation<Integer> recommendation = recommendations.get(i);
+                        assertEquals(expected.get(i)[1], recommendation.getScore(), 1e-9);
+                        // scores summed in another order may differ in the last bits
+                        if (score != FriendRecommender.Score.ADAMIC_ADAR)
+                            assertEquals((int) expected.get(i)[0], recommendation.getPerson());
+                        Set<Integer> common = new HashSet<>(friends.get(person));
+                        common.retainAll(friends.get(recommendation.getPerson()));
+                        assertEquals(common.size(), recommendation.getMutualFriendCount());
+                    }
+                }
+            }
+            // the queries read the edge lists, without taking a snapshot of the graph
+            assertNull(graph.sortedAdjacency);
+        }
+    }
+
+    /**
+     * Test case for the backend finding mutual friends and recommending
+     * friends in the sample network.
+     */
+    @Test
+    public void testBackend() throws IOException {
+        UndirectedGraph<String, Integer> graph = new UndirectedGraph<>(new OpenAddressingMap<>());
+        Backend backend = new Backend(graph);
+        backend.readData("socialnetwork.dot");
+        // user13 has no friend but user0, and a self loop does not make them their own friend
+        assertEquals(List.of(), backend.getMutualFriends("user0", "user13"));
+        List<String> mutual = backend.getMutualFriends("user1", "user0");
+        for (BaseGraph<String, Integer>.Node node : graph.nodeTable) {
+            boolean expected = !node.data.equals("user1") && !node.data.equals("user0")
+                    && graph.containsEdge(node.data, "user1") && graph.containsEdge(node.data, "user0");
+            assertEquals(expected, mutual.contains(node.data));
+        }
+        assertTrue(backend.getFriendRecommendations("user0", 5,
+                FriendRecommender.Score.ADAMIC_ADAR).isEmpty());
+        List<FriendRecommender.Recommendation<String>> recommendations =
+                backend.getFriendRecommendations("user1", 5, FriendRecommender.Score.COMMON_NEIGHBORS);
+        assertEquals(5, recommendations.size());
+        for (FriendRecommender.Recommendation<String> recommendation : recommendations) {
+            assertFalse(graph.containsEdge("user1", recommendation.getPerson()));
+            assertFalse(graph.containsEdge(recommendation.getPerson(), "user1"));
+            assertEquals(backend.getMutualFriends("user1", recommendation.getPerson()).size(),
+                    recommendation.getMutualFriendCount());
+        }
+
+        // a new friendship is taken into account right away
+        String first = recommendations.get(0).getPerson();
+        graph.insertEdge("user1", first, 1);
+        for (FriendRecommender.Recommendation<String> recommendation : backend.getFriendRecommendations(
+                "user1", 10, FriendRecommender.Score.JACCARD))
+            assertNotEquals(first, recommendation.getPerson());
+        assertThrows(NoSuchElementException.class, () -> backend.getMutualFriends("user0", "nobody"));
+    }
+}
@@ -1,7 +1,12 @@
 
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
+import javax.management.JMException;
+
 public class Frontend implements FrontendInterface {
 
     private Backend backend;
@@ -66,6 +71,27 @@ public class Frontend implements FrontendInterface {
 
                 }
 
+                // Command for showing query metrics
+                if (command == 5) {
+
+                    showMetricsCommand();
+
+                }
+
+                // Command for showing mutual friends
+                if (command == 6) {
+
+                    findMutualFriendsCommand();
+
+                }
+
+                // Command for recommending friends
+                if (command == 7) {
+
+                    recommendFriendsCommand();
+
+                }
+
             }
 
         }
@@ -81,7 +107,7 @@ public class Frontend implements FrontendInterface {
     public void displayMainMenu() {
 
         System.out.println("Welcome to the Social Track App. Choose your command:");
-        System.out.println("1 : Load a data file\n2 : Show statistics\n3 : Display closest connection\n4 : Exit app");
+        System.out.println("1 : Load a data file\n2 : Show statistics\n3 : Display closest connection\n4 : Exit app\n5 : Show query metrics\n6 : Display mutual friends\n7 : Recommend friends");
 
     }
 
@@ -92,8 +118,14 @@ public class Frontend implements FrontendInterface {
     public void loadDataFileCommand(String filePath) {
 
         // Load file
-        backend.readData(filePath);
-        System.out.println("File loaded.\n");
+        try {
+            backend.readData(filePath);
+            System.out.println("File loaded.\n");
+        } catch (NoSuchFileException e) {
+            System.out.println("Error: File not found - " + filePath + "\n");
+        } catch (IOException e) {
+            System.out.println("Error: " + e.getMessage() + "\n");
+        }
 
     }
 
@@ -126,8 +158,9 @@ public class Frontend implements FrontendInterface {
 
         // Get data from backend
 
-        List<String> pathList = backend.getDistanceBetween(person1, person2).getPathBetweenFriends();
-        int friends = backend.getDistanceBetween(person1, person2).numberOfIntermediaryFriends();
+        ClosestConnectionInterface<String> connection = backend.getDistanceBetween(person1, person2);
+        List<String> pathList = connection.getPathBetweenFriends();
+        int friends = connection.numberOfIntermediaryFriends();
 
         // Display stats
         System.out.println("Closest path:");
@@ -141,6 +174,78 @@ public class Frontend implements FrontendInterface {
 
     }
 
+    /**
+     * Gets the user input to find and display the friends two people have
+     * in common
+     */
+    @Override
+    public void findMutualFriendsCommand() {
+
+        // Get information from user
+        System.out.println("Enter the name of the first person");
+        String person1 = scnr.next();
+        System.out.println("Enter the name of the second person");
+        String person2 = scnr.next();
+
+        // Get data from backend
+        List<String> mutualFriends;
+        try {
+            mutualFriends = backend.getMutualFriends(person1, person2);
+        } catch (NoSuchElementException e) {
+            System.out.println("Error: " + person1 + " or " + person2 + " is not in the network\n");
+            return;
+        }
+
+        // Display mutual friends
+        System.out.println("Mutual friends: " + mutualFriends.size());
+        for (String friend : mutualFriends) {
+
+            System.out.println(friend);
+
+        }
+
+    }
+
+    /**
+     * Gets the user input to find and display the people someone may know
+     */
+    @Override
+    public void recommendFriendsCommand() {
+
+        // Get information from user
+        System.out.println("Enter the name of the person");
+        String person = scnr.next();
+
+        // Get data from backend
+        List<FriendRecommender.Recommendation<String>> recommendations;
+        try {
+            recommendations = backend.getFriendRecommendations(person, 10,
+                    FriendRecommender.Score.ADAMIC_ADAR);
+        } catch (NoSuchElementException e) {
+            System.out.println("Error: " + person + " is not in the network\n");
+            return;
+        }
+
+        // Display recommendations
+        System.out.println("People you may know:");
+        for (FriendRecommender.Recommendation<String> recommendation : recommendations) {
+
+            System.out.println(recommendation);
+
+        }
+
+    }
+
+    /**
+     * Gets and displays query metrics
+     */
+    @Override
+    public void showMetricsCommand() {
+
+        System.out.println(backend.getMetrics());
+
+    }
+
     /**
      * Exits app
      */
@@ -154,9 +259,14 @@ public class Frontend implements FrontendInterface {
     }
 
     public static void main(String[] args) {
-        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new PlaceholderMap<>());
+        DijkstraGraph<String, Integer> graph = new UndirectedGraph<>(new OpenAddressingMap<>());
 
         Backend backend = new Backend(graph);
+        try {
+            backend.getQueryMetrics().register("backend");
+        } catch (JMException e) {
+            System.out.println("Warning: query metrics are not available over JMX - " + e.getMessage());
+        }
         Frontend frontend = new Frontend(backend, new Scanner(System.in));
         frontend.runMainLoop();
 
@@ -49,6 +49,23 @@ public interface FrontendInterface {
      */
     public void findClosestConnectionCommand();
 
+    /**
+     * Shows metrics about the queries answered and the files loaded since the app started,
+     * such as query latency percentiles and the number of nodes each search settled.
+     */
+    public void showMetricsCommand();
+
+    /**
+     * Prompts the user for two participants and displays the friends they have in common.
+     */
+    public void findMutualFriendsCommand();
+
+    /**
+     * Prompts the user for a participant and displays the people they may know: participants
+     * who share friends with them but are not yet their friends, best first.
+     */
+    public void recommendFriendsCommand();
+
     /**
      * Terminates the application. This should cleanly exit the command loop
      * and perform any necessary cleanup operations before closing the application.
@@ -1,3 +1,4 @@
+import java.util.Collection;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -32,6 +33,26 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
      */
     public boolean removeNode(NodeType data);
 
+    /**
+     * Insert many new nodes into the graph at once. Data that is already in
+     * the graph, or that appears more than once, is inserted only once.
+     * 
+     * @param data the data items to store in the new nodes
+     * @return the number of nodes inserted
+     * @throws NullPointerException if any data item is null
+     */
+    public int insertNodes(Collection<? extends NodeType> data);
+
+    /**
+     * Remove many nodes from the graph at once, along with all edges adjacent
+     * to them.
+     * 
+     * @param data the data items stored in the nodes to be removed
+     * @return the number of nodes found and removed
+     * @throws NullPointerException if any data item is null
+     */
+    public int removeNodes(Collection<? extends NodeType> data);
+
     /**
      * Check whether the graph contains a node with the provided data.
      * 
@@ -71,6 +92,36 @@ public interface GraphADT<NodeType, EdgeType extends Number> {
      */
     public boolean removeEdge(NodeType pred, NodeType succ);
 
+    /**
+     * Insert or update many edges at once, with the same result as calling
+     * insertEdge for each of them in order.
+     * 
+     * @param edges the edges to insert, with their weights
+     * @return the number of edges that were inserted or updated, which
+     *         leaves out only edges whose nodes are not found in the graph
+     */
+    public int insertEdges(Collection<? extends WeightedEdge<NodeType, EdgeType>> edges);
+
+    /**
+     * Remove many edges from the graph at once.
+     * 
+     * @param edges the edges to remove, whose weights are ignored
+     * @return the number of edges found and removed
+     */
+    public int removeEdges(Collection<? extends WeightedEdge<NodeType, ?>> edges);
+
+    /**
+     * Make many changes to the graph as one batch. Graphs that are read by
+     * other threads while they change, such as a ConcurrentDijkstraGraph,
+     * let readers see either none or all of a batch, and otherwise the
+     * changes are simply made one after another.
+     * 
+     * @param changes makes the changes, through the methods of this graph
+     */
+    public default void applyBatch(Runnable changes) {
+        changes.run();
+    }
+
     /**
      * Check if edge is in the graph.
      * 
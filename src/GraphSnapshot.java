@@ -0,0 +1,352 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleFunction;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * GraphSnapshot reads and writes graphs with String node data in a compact
+ * binary format, which loads much faster than parsing a DOT file. All
+ * numbers are big endian, and a snapshot is laid out as:
+ *
+ * a header with the magic number MAGIC, the format VERSION, the kind of
+ * weights (WEIGHTS_INT or WEIGHTS_DOUBLE), the number of nodes and the
+ * number of edges;
+ *
+ * a dictionary with the data of every node, in node id order, each stored as
+ * its length in bytes followed by its UTF-8 bytes;
+ *
+ * the adjacency of every node, in the same order, each stored as the number
+ * of edges leaving the node followed by the id of each edge's successor and
+ * its weight, as an int or a double depending on the kind of weights;
+ *
+ * and a trailer with the CRC-32 checksum of everything before it.
+ *
+ * Snapshots are loaded through a memory mapping of the file, and their
+ * checksum is verified before the graph is changed.
+ */
+public class GraphSnapshot {
+
+    public static final int MAGIC = 0x47534E50; // "GSNP"
+    public static final int VERSION = 1;
+    public static final byte WEIGHTS_INT = 0;
+    public static final byte WEIGHTS_DOUBLE = 1;
+
+    // the size of the header, and of the trailer
+    private static final int HEADER_SIZE = 4 + 4 + 1 + 4 + 4;
+    private static final int TRAILER_SIZE = 8;
+
+    // the number of edges inserted into the graph at once while loading
+    private static final int EDGE_BATCH_SIZE = 1 << 16;
+
+    /**
+     * Writes the nodes and edges of a graph to a snapshot file, replacing the
+     * file if it exists. Weights are stored as ints when every weight is an
+     * Integer, Short or Byte, and as doubles otherwise.
+     *
+     * @param graph the graph to write
+     * @param file the snapshot file to write
+     * @throws IOException if the file cannot be written
+     */
+    public static <EdgeType extends Number> void write(BaseGraph<String, EdgeType> graph,
+            Path file) throws IOException {
+        byte weightKind = WEIGHTS_INT;
+        int edgeCount = 0;
+        int[] degrees = new int[graph.nodeTable.size()];
+        for (BaseGraph<String, EdgeType>.Node node : graph.nodeTable) {
+            for (BaseGraph<String, EdgeType>.Edge edge : node.edgesLeaving) {
+                // an undirected graph lists each edge at both of its nodes,
+                // and it is written once, at its predecessor
+                if (edge.predecessor != node)
+                    continue;
+                if (!(edge.data instanceof Integer || edge.data instanceof Short
+                        || edge.data instanceof Byte))
+                    weightKind = WEIGHTS_DOUBLE;
+                degrees[node.id]++;
+                edgeCount++;
+            }
+        }
+
+        try (Writer out = new Writer(file, weightKind, graph.nodeTable.size(), edgeCount)) {
+            for (BaseGraph<String, EdgeType>.Node node : graph.nodeTable) {
+                out.writeNode(node.data);
+            }
+            for (BaseGraph<String, EdgeType>.Node node : graph.nodeTable) {
+                out.writeAdjacency(degrees[node.id]);
+                for (BaseGraph<String, EdgeType>.Edge edge : node.edgesLeaving) {
+                    if (edge.predecessor == node)
+                        out.writeEdge(edge.successor.id, edge.data);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the nodes and edges of a snapshot file into a graph.
+     *
+     * @param file the snapshot file to read
+     * @param graph the graph to insert the nodes and edges into
+     * @param weights converts each stored weight into the graph's edge type
+     * @return the number of edges read from the snapshot
+     * @throws java.nio.file.NoSuchFileException if the file does not exist
+     * @throws IOException if the file cannot be read, is not a snapshot, or
+     *         is corrupt
+     */
+    public static <EdgeType extends Number> int load(Path file,
+            GraphADT<String, EdgeType> graph, DoubleFunction<EdgeType> weights)
+            throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(file + " is too large to be a snapshot");
+            if (size < HEADER_SIZE + TRAILER_SIZE)
+                throw new IOException(file + " is not a graph snapshot");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (buffer.getInt(0) != MAGIC)
+            throw new IOException(file + " is not a graph snapshot");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException(file + " has unsupported snapshot version " + buffer.getInt(4));
+        int checksumPosition = buffer.limit() - TRAILER_SIZE;
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.duplicate().limit(checksumPosition));
+        if (checksum.getValue() != buffer.getLong(checksumPosition))
+            throw new IOException(file + " is corrupt: its checksum does not match");
+
+        buffer.position(8);
+        byte weightKind = buffer.get();
+        int nodeCount = buffer.getInt();
+        int edgeCount = buffer.getInt();
+        if ((weightKind != WEIGHTS_INT && weightKind != WEIGHTS_DOUBLE) || nodeCount < 0)
+            throw new IOException(file + " is corrupt: its header is invalid");
+
+        String[] names = new String[nodeCount];
+        int adjacencyPosition;
+        try {
+            for (int i = 0; i < nodeCount; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                names[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+            // check the adjacency before inserting anything into the graph
+            adjacencyPosition = buffer.position();
+            int edges = 0;
+            for (int i = 0; i < nodeCount; i++) {
+                int degree = buffer.getInt();
+                for (int j = 0; j < degree; j++) {
+                    int successor = buffer.getInt();
+                    if (successor < 0 || successor >= nodeCount)
+                        throw new IOException(file + " is corrupt: node " + successor
+                                + " does not exist");
+                    buffer.position(buffer.position() + (weightKind == WEIGHTS_INT ? 4 : 8));
+                    edges++;
+                }
+            }
+            if (edges != edgeCount || buffer.position() != checksumPosition)
+                throw new IOException(file + " is corrupt: its edge count does not match");
+        } catch (RuntimeException e) {
+            // a length in the file ran past its end
+            throw new IOException(file + " is corrupt: " + e, e);
+        }
+
+        // readers of a concurrent graph see the whole snapshot at once
+        int adjacencyStart = adjacencyPosition;
+        graph.applyBatch(() -> {
+            graph.insertNodes(Arrays.asList(names));
+            // insert edges in batches, which bounds the memory they take up
+            List<WeightedEdge<String, EdgeType>> batch = new ArrayList<>(EDGE_BATCH_SIZE);
+            buffer.position(adjacencyStart);
+            for (int i = 0; i < nodeCount; i++) {
+                int degree = buffer.getInt();
+                for (int j = 0; j < degree; j++) {
+                    int successor = buffer.getInt();
+                    double weight = weightKind == WEIGHTS_INT ? buffer.getInt() : buffer.getDouble();
+                    batch.add(new WeightedEdge<>(names[i], names[successor], weights.apply(weight)));
+                    if (batch.size() == EDGE_BATCH_SIZE) {
+                        graph.insertEdges(batch);
+                        batch.clear();
+                    }
+                }
+            }
+            graph.insertEdges(batch);
+        });
+        return edgeCount;
+    }
+
+    /**
+     * Checks whether a file starts with the magic number of a snapshot.
+     *
+     * @param file the file to check
+     * @return true if the file looks like a snapshot
+     * @throws java.nio.file.NoSuchFileException if the file does not exist
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isSnapshot(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = in.readNBytes(4);
+            return magic.length == 4 && ByteBuffer.wrap(magic).getInt() == MAGIC;
+        }
+    }
+
+    /**
+     * A Writer streams a snapshot to a file one node and one edge at a time,
+     * so that graphs too large to hold in memory can be written as they are
+     * produced. The numbers of nodes and edges are given up front, then the
+     * data of every node is written in node id order, followed by the
+     * adjacency of every node in the same order.
+     */
+    public static class Writer implements Closeable {
+
+        protected final DataOutputStream out;
+        protected final CRC32 checksum = new CRC32();
+        protected final byte weightKind;
+        protected final int nodeCount;
+        protected final int edgeCount;
+        protected int nodesWritten;
+        protected int adjacenciesWritten;
+        protected long edgesAnnounced; // the sum of the degrees written so far
+        protected long edgesWritten;
+
+        /**
+         * Creates a snapshot file, replacing the file if it exists, and
+         * writes its header.
+         *
+         * @param file the snapshot file to write
+         * @param weightKind WEIGHTS_INT or WEIGHTS_DOUBLE
+         * @param nodeCount the number of nodes that will be written
+         * @param edgeCount the number of edges that will be written
+         * @throws IOException if the file cannot be written
+         */
+        public Writer(Path file, byte weightKind, int nodeCount, int edgeCount) throws IOException {
+            if (weightKind != WEIGHTS_INT && weightKind != WEIGHTS_DOUBLE)
+                throw new IllegalArgumentException("unknown kind of weights " + weightKind);
+            if (nodeCount < 0 || edgeCount < 0)
+                throw new IllegalArgumentException("counts must not be negative");
+            this.weightKind = weightKind;
+            this.nodeCount = nodeCount;
+            this.edgeCount = edgeCount;
+            out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(file), 1 << 16), checksum));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeByte(weightKind);
+            out.writeInt(nodeCount);
+            out.writeInt(edgeCount);
+        }
+
+        /**
+         * Writes the data of the next node.
+         *
+         * @param data the data of the node
+         * @throws IllegalStateException if every node has been written
+         * @throws IOException if the file cannot be written
+         */
+        public void writeNode(String data) throws IOException {
+            if (nodesWritten == nodeCount)
+                throw new IllegalStateException("all " + nodeCount + " nodes are written");
+            byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            nodesWritten++;
+        }
+
+        /**
+         * Starts the adjacency of the next node, which writeEdge must then be
+         * called for degree times.
+         *
+         * @param degree the number of edges leaving the node
+         * @throws IllegalStateException if the nodes, or the edges of the
+         *         previous node, are not all written yet
+         * @throws IOException if the file cannot be written
+         */
+        public void writeAdjacency(int degree) throws IOException {
+            if (nodesWritten < nodeCount || adjacenciesWritten == nodeCount
+                    || edgesWritten < edgesAnnounced)
+                throw new IllegalStateException("adjacency " + adjacenciesWritten
+                        + " written out of order");
+            out.writeInt(degree);
+            adjacenciesWritten++;
+            edgesAnnounced += degree;
+        }
+
+        /**
+         * Writes the next edge leaving the node whose adjacency was started
+         * last.
+         *
+         * @param successor the id of the edge's successor
+         * @param weight the weight of the edge
+         * @throws IllegalStateException if the node has no more edges
+         * @throws IOException if the file cannot be written
+         */
+        public void writeEdge(int successor, Number weight) throws IOException {
+            if (edgesWritten == edgesAnnounced)
+                throw new IllegalStateException("edge " + edgesWritten + " written out of order");
+            out.writeInt(successor);
+            if (weightKind == WEIGHTS_INT)
+                out.writeInt(weight.intValue());
+            else
+                out.writeDouble(weight.doubleValue());
+            edgesWritten++;
+        }
+
+        /**
+         * Writes the trailer and closes the file.
+         *
+         * @throws IllegalStateException if fewer nodes or edges were written
+         *         than the header announced
+         * @throws IOException if the file cannot be written
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                if (adjacenciesWritten < nodeCount || edgesWritten != edgeCount
+                        || edgesAnnounced != edgeCount)
+                    throw new IllegalStateException("wrote " + adjacenciesWritten + " of "
+                            + nodeCount + " nodes and " + edgesWritten + " of " + edgeCount
+                            + " edges");
+                // the checksum covers everything written so far, but not itself
+                out.flush();
+                out.writeLong(checksum.getValue());
+                out.flush();
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Converts a DOT file into a snapshot.
+     *
+     * @param args the DOT file to read and the snapshot file to write
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: java GraphSnapshot <input.dot> <output.snapshot>");
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        new DotLoader().load(Paths.get(args[0]), graph);
+        long parsed = System.nanoTime();
+        write(graph, Paths.get(args[1]));
+        long written = System.nanoTime();
+        System.out.printf("Read %d nodes and %d edges in %.1f ms, wrote %s in %.1f ms%n",
+                graph.getNodeCount(), graph.getEdgeCount(), (parsed - start) / 1e6, args[1],
+                (written - parsed) / 1e6);
+    }
+}
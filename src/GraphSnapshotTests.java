@@ -0,0 +1,107 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class GraphSnapshotTests {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Checks that two graphs hold the same nodes, in the same order, and the
+     * same edges with the same weights.
+     */
+    private static <EdgeType extends Number> void assertSameGraph(
+            BaseGraph<String, EdgeType> expected, BaseGraph<String, EdgeType> actual) {
+        assertEquals(expected.getNodeCount(), actual.getNodeCount());
+        assertEquals(expected.getEdgeCount(), actual.getEdgeCount());
+        for (int i = 0; i < expected.nodeTable.size(); i++) {
+            BaseGraph<String, EdgeType>.Node node = expected.nodeTable.get(i);
+            assertEquals(node.data, actual.nodeTable.get(i).data);
+            for (BaseGraph<String, EdgeType>.Edge edge : node.edgesLeaving) {
+                assertEquals(edge.data, actual.getEdge(node.data, edge.successor.data));
+            }
+        }
+    }
+
+    /**
+     * Test case for writing the sample network loaded from DOT to a snapshot
+     * and loading it back, both directly and through Backend.readData.
+     */
+    @Test
+    public void testRoundTripFromDot() throws IOException {
+        DijkstraGraph<String, Integer> original = new DijkstraGraph<>(new OpenAddressingMap<>());
+        new DotLoader().load(Paths.get("socialnetwork.dot"), original);
+        Path snapshot = directory.resolve("socialnetwork.snapshot");
+        GraphSnapshot.write(original, snapshot);
+        assertTrue(GraphSnapshot.isSnapshot(snapshot));
+        assertFalse(GraphSnapshot.isSnapshot(Paths.get("socialnetwork.dot")));
+
+        DijkstraGraph<String, Integer> loaded = new DijkstraGraph<>(new OpenAddressingMap<>());
+        assertEquals(original.getEdgeCount(),
+                GraphSnapshot.load(snapshot, loaded, weight -> (int) weight));
+        assertSameGraph(original, loaded);
+
+        DijkstraGraph<String, Integer> fromBackend = new DijkstraGraph<>(new OpenAddressingMap<>());
+        Backend backend = new Backend(fromBackend);
+        backend.readData(snapshot.toString());
+        assertSameGraph(original, fromBackend);
+        assertEquals(original.shortestPathData("user0", "user37"),
+                fromBackend.shortestPathData("user0", "user37"));
+    }
+
+    /**
+     * Test case for a graph with fractional weights, removed nodes, a self
+     * loop and names that are not ASCII.
+     */
+    @Test
+    public void testRoundTripDoubleWeights() throws IOException {
+        DijkstraGraph<String, Double> original = new DijkstraGraph<>(new OpenAddressingMap<>());
+        for (String name : new String[] {"a", "b", "gone", "\u00e9mile", "\u65e5\u672c"}) {
+            original.insertNode(name);
+        }
+        original.insertEdge("a", "b", 0.5);
+        original.insertEdge("b", "a", 2.25);
+        original.insertEdge("\u00e9mile", "\u65e5\u672c", 3.0);
+        original.insertEdge("\u65e5\u672c", "\u65e5\u672c", 7.5);
+        original.removeNode("gone");
+
+        Path snapshot = directory.resolve("weighted.snapshot");
+        GraphSnapshot.write(original, snapshot);
+        DijkstraGraph<String, Double> loaded = new DijkstraGraph<>(new OpenAddressingMap<>());
+        GraphSnapshot.load(snapshot, loaded, weight -> weight);
+        assertEquals(4, loaded.getNodeCount());
+        assertEquals(4, loaded.getEdgeCount());
+        assertSameGraph(loaded, original);
+    }
+
+    /**
+     * Test case for rejecting files that are not intact snapshots, without
+     * changing the graph.
+     */
+    @Test
+    public void testCorruptSnapshot() throws IOException {
+        DijkstraGraph<String, Integer> original = new DijkstraGraph<>(new OpenAddressingMap<>());
+        new DotLoader().load(Paths.get("socialnetwork.dot"), original);
+        Path snapshot = directory.resolve("corrupt.snapshot");
+        GraphSnapshot.write(original, snapshot);
+
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(snapshot, bytes);
+        DijkstraGraph<String, Integer> loaded = new DijkstraGraph<>(new OpenAddressingMap<>());
+        IOException e = assertThrows(IOException.class,
+                () -> GraphSnapshot.load(snapshot, loaded, weight -> (int) weight));
+        assertTrue(e.getMessage().contains("checksum"));
+        assertEquals(0, loaded.getNodeCount());
+
+        assertThrows(IOException.class, () -> GraphSnapshot.load(Paths.get("socialnetwork.dot"),
+                loaded, weight -> (int) weight));
+    }
+}
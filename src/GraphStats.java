@@ -0,0 +1,254 @@
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * GraphStats holds statistics of the neighborhoods of a graph: the degree of
+ * each node, the number of triangles each node is part of, and the
+ * clustering coefficients derived from them, which measure how many of a
+ * person's friends are friends with each other. Like the SortedAdjacency
+ * it is computed from, it describes the graph as it was at one version.
+ *
+ * Triangles are counted by orienting every connection from the node of
+ * lower degree to the node of higher degree, breaking ties by id, and then
+ * intersecting, for every connection from u to v, the sorted rows of nodes
+ * both u and v point to. Each triangle is then found exactly once, from its
+ * lowest node, and no node's row holds more than about the square root of
+ * twice the number of connections, which bounds the work of the skewed
+ * degree distributions of social networks. The nodes are processed in
+ * parallel across the common ForkJoinPool.
+ *
+ * @param NodeType is the data type stored at each graph node
+ */
+public class GraphStats<NodeType> {
+
+    protected SortedAdjacency<NodeType> adjacency;
+    protected long[] triangles; // the number of triangles each node is part of
+    protected long triangleCount;
+    protected long tripleCount; // the number of pairs of neighbors of a node
+    protected double averageClustering;
+    protected int maxDegree;
+
+    /**
+     * Creates statistics from counts that were already computed.
+     *
+     * @param adjacency the neighborhoods the statistics describe
+     * @param triangles the number of triangles each node is part of
+     */
+    protected GraphStats(SortedAdjacency<NodeType> adjacency, long[] triangles) {
+        this.adjacency = adjacency;
+        this.triangles = triangles;
+        int nodeCount = adjacency.getNodeCount();
+        long cornerCount = 0;
+        double clusteringSum = 0;
+        for (int id = 0; id < nodeCount; id++) {
+            long degree = adjacency.degree(id);
+            maxDegree = Math.max(maxDegree, (int) degree);
+            tripleCount += degree * (degree - 1) / 2;
+            cornerCount += triangles[id];
+            clusteringSum += getClusteringCoefficient(id);
+        }
+        triangleCount = cornerCount / 3;
+        averageClustering = nodeCount == 0 ? 0.0 : clusteringSum / nodeCount;
+    }
+
+    /**
+     * Counts the triangles of a graph, and computes the statistics that
+     * derive from them.
+     *
+     * @param adjacency the neighborhoods of the graph
+     * @return the statistics of the graph
+     */
+    public static <NodeType> GraphStats<NodeType> compute(SortedAdjacency<NodeType> adjacency) {
+        int nodeCount = adjacency.getNodeCount();
+        int[] offsets = adjacency.offsets;
+        int[] neighbors = adjacency.neighbors;
+
+        // keep only the connections from each node toward higher ranked ones,
+        // which leaves each row sorted by id
+        int[] forwardOffsets = new int[nodeCount + 1];
+        IntStream.range(0, nodeCount).parallel().forEach(id -> {
+            int count = 0;
+            for (int i = offsets[id]; i < offsets[id + 1]; i++)
+                if (ranksBelow(adjacency, id, neighbors[i]))
+                    count++;
+            forwardOffsets[id + 1] = count;
+        });
+        for (int id = 0; id < nodeCount; id++)
+            forwardOffsets[id + 1] += forwardOffsets[id];
+        int[] forward = new int[forwardOffsets[nodeCount]];
+        IntStream.range(0, nodeCount).parallel().forEach(id -> {
+            int position = forwardOffsets[id];
+            for (int i = offsets[id]; i < offsets[id + 1]; i++)
+                if (ranksBelow(adjacency, id, neighbors[i]))
+                    forward[position++] = neighbors[i];
+        });
+
+        // each triangle is found from its lowest ranked node, which counts its
+        // own triangles alone, while the other two nodes may be counted from
+        // many threads at once
+        AtomicLongArray shared = new AtomicLongArray(nodeCount);
+        long[] own = new long[nodeCount];
+        IntStream.range(0, nodeCount).parallel().forEach(u -> {
+            int uStart = forwardOffsets[u];
+            int uEnd = forwardOffsets[u + 1];
+            long count = 0;
+            for (int k = uStart; k < uEnd; k++) {
+                int v = forward[k];
+                int i = uStart, j = forwardOffsets[v], jEnd = forwardOffsets[v + 1];
+                long withV = 0;
+                while (i < uEnd && j < jEnd) {
+                    int difference = forward[i] - forward[j];
+                    if (difference == 0) {
+                        shared.getAndIncrement(forward[i]);
+                        withV++;
+                        i++;
+                        j++;
+                    } else if (difference < 0) {
+                        i++;
+                    } else {
+                        j++;
+                    }
+                }
+                if (withV > 0)
+                    shared.getAndAdd(v, withV);
+                count += withV;
+            }
+            own[u] = count;
+        });
+        for (int id = 0; id < nodeCount; id++)
+            own[id] += shared.get(id);
+        return new GraphStats<>(adjacency, own);
+    }
+
+    /**
+     * Checks whether one node ranks below another, ordering nodes by degree
+     * and then by id.
+     */
+    private static boolean ranksBelow(SortedAdjacency<?> adjacency, int first, int second) {
+        int firstDegree = adjacency.degree(first);
+        int secondDegree = adjacency.degree(second);
+        return firstDegree < secondDegree || (firstDegree == secondDegree && first < second);
+    }
+
+    /**
+     * Return the number of nodes in the graph.
+     *
+     * @return the number of nodes in the graph
+     */
+    public int getNodeCount() {
+        return adjacency.getNodeCount();
+    }
+
+    /**
+     * Return the number of distinct pairs of connected nodes, which is the
+     * number of friendships in a social network.
+     *
+     * @return the number of connected pairs
+     */
+    public long getFriendshipCount() {
+        return adjacency.getPairCount();
+    }
+
+    /**
+     * Return the average number of distinct neighbors of each node.
+     *
+     * @return the average degree, or 0 for an empty graph
+     */
+    public double getAverageDegree() {
+        int nodeCount = getNodeCount();
+        return nodeCount == 0 ? 0.0 : 2.0 * getFriendshipCount() / nodeCount;
+    }
+
+    /**
+     * Return the largest number of distinct neighbors of any node.
+     *
+     * @return the largest degree
+     */
+    public int getMaxDegree() {
+        return maxDegree;
+    }
+
+    /**
+     * Return the number of triangles in the graph: sets of three nodes that
+     * are all connected to each other.
+     *
+     * @return the number of triangles
+     */
+    public long getTriangleCount() {
+        return triangleCount;
+    }
+
+    /**
+     * Return the global clustering coefficient, or transitivity, of the
+     * graph: the fraction of pairs of neighbors of the same node that are
+     * connected to each other.
+     *
+     * @return three times the number of triangles over the number of pairs
+     *         of neighbors, or 0 when no node has two neighbors
+     */
+    public double getGlobalClusteringCoefficient() {
+        return tripleCount == 0 ? 0.0 : 3.0 * triangleCount / tripleCount;
+    }
+
+    /**
+     * Return the average of the local clustering coefficients of all nodes,
+     * counting nodes with fewer than two neighbors as 0.
+     *
+     * @return the average local clustering coefficient
+     */
+    public double getAverageClusteringCoefficient() {
+        return averageClustering;
+    }
+
+    /**
+     * Return the number of triangles a node is part of.
+     *
+     * @param data the data item stored in the node
+     * @return the number of triangles that include the node
+     * @throws NoSuchElementException if data was not in the graph
+     */
+    public long getTriangleCount(NodeType data) {
+        return triangles[idOf(data)];
+    }
+
+    /**
+     * Return the local clustering coefficient of a node: the fraction of
+     * pairs of its neighbors that are connected to each other.
+     *
+     * @param data the data item stored in the node
+     * @return the local clustering coefficient, or 0 for a node with fewer
+     *         than two neighbors
+     * @throws NoSuchElementException if data was not in the graph
+     */
+    public double getClusteringCoefficient(NodeType data) {
+        return getClusteringCoefficient(idOf(data));
+    }
+
+    /**
+     * Return the local clustering coefficient of the node with an id.
+     */
+    protected double getClusteringCoefficient(int id) {
+        long degree = adjacency.degree(id);
+        return degree < 2 ? 0.0 : 2.0 * triangles[id] / (degree * (degree - 1));
+    }
+
+    /**
+     * Return the version of the graph these statistics describe.
+     *
+     * @return the version of the graph at the time
+     */
+    public long getVersion() {
+        return adjacency.getVersion();
+    }
+
+    /**
+     * Finds the id of the node that stores some data.
+     */
+    private int idOf(NodeType data) {
+        int id = adjacency.idOf(data);
+        if (id == -1)
+            throw new NoSuchElementException("node not found in graph");
+        return id;
+    }
+}
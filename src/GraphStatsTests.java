@@ -0,0 +1,94 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class GraphStatsTests {
+
+    /**
+     * Test case for the statistics of a small graph that can be worked out
+     * by hand: four friends who all know each other, one of whom also knows
+     * someone else, along with a self loop and a friendship listed in both
+     * directions.
+     */
+    @Test
+    public void testSmallGraph() {
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        String[] clique = {"a", "b", "c", "d"};
+        for (String name : clique)
+            graph.insertNode(name);
+        graph.insertNode("e");
+        graph.insertNode("loner");
+        for (int i = 0; i < clique.length; i++)
+            for (int j = i + 1; j < clique.length; j++)
+                graph.insertEdge(clique[i], clique[j], 1);
+        graph.insertEdge("d", "e", 1);
+        graph.insertEdge("e", "d", 1);
+        graph.insertEdge("e", "e", 1);
+
+        GraphStats<String> stats = graph.getGraphStats();
+        assertEquals(6, stats.getNodeCount());
+        assertEquals(7, stats.getFriendshipCount());
+        assertEquals(14 / 6.0, stats.getAverageDegree());
+        assertEquals(4, stats.getMaxDegree());
+        assertEquals(4, stats.getTriangleCount());
+        assertEquals(3, stats.getTriangleCount("a"));
+        assertEquals(3, stats.getTriangleCount("d"));
+        assertEquals(0, stats.getTriangleCount("e"));
+        assertEquals(1.0, stats.getClusteringCoefficient("a"));
+        assertEquals(0.5, stats.getClusteringCoefficient("d"));
+        assertEquals(0.0, stats.getClusteringCoefficient("loner"));
+        assertEquals((3 * 1.0 + 0.5) / 6, stats.getAverageClusteringCoefficient(), 1e-12);
+        // 3 pairs of neighbors at a, b and c, and 6 at d
+        assertEquals(3.0 * 4 / 15, stats.getGlobalClusteringCoefficient(), 1e-12);
+        assertThrows(NoSuchElementException.class, () -> stats.getTriangleCount("nobody"));
+
+        // the neighborhoods are only taken again once the graph changes
+        assertSame(graph.getSortedAdjacency(), graph.getSortedAdjacency());
+        graph.removeEdge("a", "b");
+        assertEquals(2, graph.getGraphStats().getTriangleCount());
+    }
+
+    /**
+     * Test case for the triangle count of every node of random graphs,
+     * against checking every pair of neighbors of each node.
+     */
+    @Test
+    public void testTrianglesMatchPairsOfNeighbors() {
+        Random random = new Random(23);
+        for (int round = 0; round < 10; round++) {
+            int nodeCount = 10 + random.nextInt(60);
+            DijkstraGraph<Integer, Integer> graph = round % 2 == 0
+                    ? new DijkstraGraph<>(new OpenAddressingMap<>())
+                    : new UndirectedGraph<>(new OpenAddressingMap<>());
+            for (int i = 0; i < nodeCount; i++)
+                graph.insertNode(i);
+            // a few hubs make the degrees skewed, as in social networks
+            for (int i = 0; i < nodeCount * 6; i++) {
+                int pred = random.nextInt(nodeCount);
+                int succ = random.nextBoolean() ? random.nextInt(4) : random.nextInt(nodeCount);
+                graph.insertEdge(pred, succ, 1);
+            }
+
+            GraphStats<Integer> stats = graph.getGraphStats();
+            long total = 0;
+            for (int node = 0; node < nodeCount; node++) {
+                long triangles = 0;
+                for (int first = 0; first < nodeCount; first++)
+                    for (int second = first + 1; second < nodeCount; second++)
+                        if (first != node && second != node && connected(graph, node, first)
+                                && connected(graph, node, second) && connected(graph, first, second))
+                            triangles++;
+                assertEquals(triangles, stats.getTriangleCount(node));
+                total += triangles;
+            }
+            assertEquals(total / 3, stats.getTriangleCount());
+        }
+    }
+
+    private static boolean connected(DijkstraGraph<Integer, Integer> graph, int first, int second) {
+        return graph.containsEdge(first, second) || graph.containsEdge(second, first);
+    }
+}
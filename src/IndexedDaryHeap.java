@@ -0,0 +1,272 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An IndexedDaryHeap is a min priority queue of int ids, each with a double
+ * key, that supports lowering the key of an id that is already queued. Ids
+ * range from 0 up to the heap's capacity, and each id can be in the heap at
+ * most once, so the heap never holds more entries than there are ids.
+ *
+ * The heap is stored as a d-ary tree in a single int array, along with the
+ * position of every id within that array and the key of every id. With more
+ * than two children per entry the tree is shallower, which makes the
+ * decreaseKey operations that dominate shortest path searches cheaper, and
+ * the children of an entry sit next to each other in memory.
+ */
+public class IndexedDaryHeap {
+
+    protected int arity;
+    protected int[] heap; // the ids in the heap, in heap order
+    protected int[] positions; // the position of each id in heap, or -1
+    protected double[] keys; // the key of each id in the heap
+    protected int size = 0;
+
+    /**
+     * Creates an empty 4-ary heap for ids from 0 to capacity-1.
+     *
+     * @param capacity one more than the largest id that can be inserted
+     */
+    public IndexedDaryHeap(int capacity) {
+        this(capacity, 4);
+    }
+
+    /**
+     * Creates an empty heap for ids from 0 to capacity-1.
+     *
+     * @param capacity one more than the largest id that can be inserted
+     * @param arity the number of children of each entry, at least 2
+     */
+    public IndexedDaryHeap(int capacity, int arity) {
+        if (arity < 2)
+            throw new IllegalArgumentException("arity must be at least 2");
+        this.arity = arity;
+        this.heap = new int[capacity];
+        this.positions = new int[capacity];
+        this.keys = new double[capacity];
+        Arrays.fill(positions, -1);
+    }
+
+    /**
+     * Makes room for ids from 0 up to capacity-1, keeping the current
+     * entries.
+     *
+     * @param capacity one more than the largest id that can be inserted
+     */
+    public void ensureCapacity(int capacity) {
+        int oldCapacity = positions.length;
+        if (capacity <= oldCapacity)
+            return;
+        heap = Arrays.copyOf(heap, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        positions = Arrays.copyOf(positions, capacity);
+        Arrays.fill(positions, oldCapacity, capacity, -1);
+    }
+
+    /**
+     * Returns one more than the largest id that can be inserted.
+     *
+     * @return the capacity of this heap
+     */
+    public int getCapacity() {
+        return positions.length;
+    }
+
+    /**
+     * Returns the number of ids in the heap.
+     *
+     * @return the number of ids in the heap
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether the heap is empty.
+     *
+     * @return true if no ids are in the heap
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks whether an id is in the heap.
+     *
+     * @param id the id to check
+     * @return true if the id is in the heap
+     */
+    public boolean contains(int id) {
+        return positions[id] != -1;
+    }
+
+    /**
+     * Returns the key of an id in the heap.
+     *
+     * @param id an id in the heap
+     * @return the key of that id
+     * @throws NoSuchElementException if the id is not in the heap
+     */
+    public double getKey(int id) {
+        if (positions[id] == -1)
+            throw new NoSuchElementException("id " + id + " is not in the heap");
+        return keys[id];
+    }
+
+    /**
+     * Adds an id with the provided key to the heap.
+     *
+     * @param id the id to add
+     * @param key the priority of that id, lower keys are polled first
+     * @throws IllegalArgumentException if the id is already in the heap
+     */
+    public void insert(int id, double key) {
+        if (positions[id] != -1)
+            throw new IllegalArgumentException("id " + id + " is already in the heap");
+        keys[id] = key;
+        siftUp(id, size++);
+    }
+
+    /**
+     * Lowers the key of an id in the heap.
+     *
+     * @param id an id in the heap
+     * @param key the new key, which must not exceed the current key
+     * @throws NoSuchElementException if the id is not in the heap
+     * @throws IllegalArgumentException if key is larger than the current key
+     */
+    public void decreaseKey(int id, double key) {
+        int position = positions[id];
+        if (position == -1)
+            throw new NoSuchElementException("id " + id + " is not in the heap");
+        if (key > keys[id])
+            throw new IllegalArgumentException("cannot increase the key of id " + id);
+        keys[id] = key;
+        siftUp(id, position);
+    }
+
+    /**
+     * Inserts an id, or lowers its key if it is already in the heap and key
+     * is lower than its current key.
+     *
+     * @param id the id to add or update
+     * @param key the new key for that id
+     * @return true if the id was inserted or its key was lowered
+     */
+    public boolean insertOrDecrease(int id, double key) {
+        int position = positions[id];
+        if (position == -1) {
+            keys[id] = key;
+            siftUp(id, size++);
+            return true;
+        }
+        if (key < keys[id]) {
+            keys[id] = key;
+            siftUp(id, position);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the id with the lowest key without removing it.
+     *
+     * @return the id with the lowest key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int peek() {
+        if (size == 0)
+            throw new NoSuchElementException("heap is empty");
+        return heap[0];
+    }
+
+    /**
+     * Returns the lowest key in the heap.
+     *
+     * @return the key of the id that poll would remove
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public double peekKey() {
+        return keys[peek()];
+    }
+
+    /**
+     * Removes and returns the id with the lowest key.
+     *
+     * @return the id with the lowest key
+     * @throws NoSuchElementException if the heap is empty
+     */
+    public int poll() {
+        int first = peek();
+        positions[first] = -1;
+        int last = heap[--size];
+        if (size > 0)
+            siftDown(last, 0);
+        return first;
+    }
+
+    /**
+     * Removes every id from the heap. This takes time proportional to the
+     * number of ids in the heap rather than to its capacity.
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++)
+            positions[heap[i]] = -1;
+        size = 0;
+    }
+
+    /**
+     * Moves an id up from a position towards the root until its parent's key
+     * is no larger than its own, then stores it there.
+     *
+     * @param id the id to place
+     * @param position the position to start from
+     */
+    protected void siftUp(int id, int position) {
+        double key = keys[id];
+        while (position > 0) {
+            int parentPosition = (position - 1) / arity;
+            int parent = heap[parentPosition];
+            if (keys[parent] <= key)
+                break;
+            heap[position] = parent;
+            positions[parent] = position;
+            position = parentPosition;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+
+    /**
+     * Moves an id down from a position towards the leaves until no child has
+     * a smaller key, then stores it there.
+     *
+     * @param id the id to place
+     * @param position the position to start from
+     */
+    protected void siftDown(int id, int position) {
+        double key = keys[id];
+        while (true) {
+            int firstChild = position * arity + 1;
+            if (firstChild >= size)
+                break;
+            int lastChild = Math.min(firstChild + arity, size);
+            int bestPosition = firstChild;
+            double bestKey = keys[heap[firstChild]];
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                double childKey = keys[heap[child]];
+                if (childKey < bestKey) {
+                    bestKey = childKey;
+                    bestPosition = child;
+                }
+            }
+            if (bestKey >= key)
+                break;
+            int best = heap[bestPosition];
+            heap[position] = best;
+            positions[best] = position;
+            position = bestPosition;
+        }
+        heap[position] = id;
+        positions[id] = position;
+    }
+}
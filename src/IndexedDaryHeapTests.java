@@ -0,0 +1,77 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class IndexedDaryHeapTests {
+
+    /**
+     * Test case for polling ids in order of their keys, for several arities.
+     */
+    @Test
+    public void testPollOrder() {
+        Random random = new Random(7);
+        for (int arity = 2; arity <= 8; arity++) {
+            IndexedDaryHeap heap = new IndexedDaryHeap(500, arity);
+            double[] keys = new double[500];
+            for (int id = 0; id < keys.length; id++) {
+                keys[id] = random.nextInt(100);
+                heap.insert(id, keys[id]);
+            }
+
+            double[] sorted = keys.clone();
+            Arrays.sort(sorted);
+            for (double expected : sorted) {
+                int id = heap.poll();
+                assertEquals(expected, keys[id]);
+                assertFalse(heap.contains(id));
+            }
+            assertTrue(heap.isEmpty());
+        }
+    }
+
+    /**
+     * Test case for lowering keys of ids already in the heap.
+     */
+    @Test
+    public void testDecreaseKey() {
+        IndexedDaryHeap heap = new IndexedDaryHeap(10);
+        for (int id = 0; id < 10; id++) {
+            heap.insert(id, 100 + id);
+        }
+        heap.decreaseKey(9, 1);
+        assertTrue(heap.insertOrDecrease(5, 2));
+        assertFalse(heap.insertOrDecrease(4, 500));
+        assertThrows(IllegalArgumentException.class, () -> heap.decreaseKey(3, 200));
+        assertThrows(IllegalArgumentException.class, () -> heap.insert(3, 0));
+
+        assertEquals(10, heap.size());
+        assertEquals(9, heap.poll());
+        assertEquals(5, heap.poll());
+        assertEquals(0, heap.poll());
+        assertEquals(104, heap.getKey(4));
+    }
+
+    /**
+     * Test case for clearing and growing a heap.
+     */
+    @Test
+    public void testClearAndCapacity() {
+        IndexedDaryHeap heap = new IndexedDaryHeap(4);
+        heap.insert(3, 1);
+        heap.insert(1, 2);
+        heap.clear();
+        assertTrue(heap.isEmpty());
+        assertFalse(heap.contains(3));
+        assertThrows(NoSuchElementException.class, () -> heap.poll());
+
+        heap.ensureCapacity(20);
+        heap.insert(19, 5);
+        heap.insert(3, 6);
+        assertEquals(19, heap.poll());
+        assertEquals(3, heap.poll());
+    }
+}
@@ -0,0 +1,166 @@
+import java.util.Arrays;
+
+/**
+ * A LandmarkIndex stores the cost of the shortest path from a few chosen
+ * landmark nodes to every node of a DijkstraGraph, so that searches can
+ * bound the cost of the remaining path to their destination from below.
+ * Because searches treat every edge as a connection in both directions, the
+ * triangle inequality gives, for every landmark L and nodes v and t:
+ *
+ *   cost(v, t) >= |cost(L, t) - cost(L, v)|
+ *
+ * The largest of these bounds over all landmarks is used as the heuristic
+ * of an A* search (the ALT algorithm), which then settles the nodes that lie
+ * in the direction of the destination first.
+ *
+ * The costs are stored in a single array, with the costs from all landmarks
+ * to one node next to each other, so that computing a bound reads one
+ * contiguous run of memory. An index describes the graph as it was when the
+ * index was built, and records the graph's version at that time, so that
+ * the graph can tell when its index has become stale.
+ */
+public class LandmarkIndex {
+
+    /**
+     * The strategies for choosing landmarks.
+     */
+    public enum Selection {
+        /** choose the nodes with the most edges */
+        HIGHEST_DEGREE,
+        /**
+         * start from the node with the most edges, then repeatedly choose the
+         * node farthest from every landmark chosen so far
+         */
+        FARTHEST
+    }
+
+    protected int[] landmarks; // the node id of each landmark
+    protected double[] costs; // costs[node * landmarks.length + i] is from landmark i
+    protected long version;
+
+    /**
+     * Creates an index over costs that were already computed.
+     *
+     * @param landmarks the node id of each landmark
+     * @param costs the cost from each landmark to each node, node by node,
+     *        with infinity for nodes a landmark cannot reach
+     * @param version the version of the graph the costs were computed at
+     */
+    protected LandmarkIndex(int[] landmarks, double[] costs, long version) {
+        this.landmarks = landmarks;
+        this.costs = costs;
+        this.version = version;
+    }
+
+    /**
+     * Chooses landmarks in a graph and computes the cost from each of them
+     * to every node, with one single source search per landmark.
+     *
+     * @param graph the graph to index
+     * @param count the number of landmarks to choose, at most the number of
+     *        nodes in the graph
+     * @param selection the strategy for choosing landmarks
+     * @return the new index
+     */
+    public static <NodeType, EdgeType extends Number> LandmarkIndex build(
+            DijkstraGraph<NodeType, EdgeType> graph, int count, Selection selection) {
+        if (count < 1)
+            throw new IllegalArgumentException("at least one landmark is needed");
+        if (selection == null)
+            throw new NullPointerException("selection cannot be null");
+        int nodeCount = graph.nodeTable.size();
+        count = Math.min(count, nodeCount);
+
+        int[] degrees = new int[nodeCount];
+        for (int id = 0; id < nodeCount; id++) {
+            BaseGraph<NodeType, EdgeType>.Node node = graph.nodeTable.get(id);
+            degrees[id] = node.edgesLeaving.size() + node.edgesEntering.size();
+        }
+        int[] landmarks = new int[count];
+        double[] costs = new double[nodeCount * count];
+        double[] closest = new double[nodeCount]; // cost to the nearest landmark
+        Arrays.fill(closest, Double.POSITIVE_INFINITY);
+        boolean[] chosen = new boolean[nodeCount];
+
+        for (int i = 0; i < count; i++) {
+            int landmark = -1;
+            for (int id = 0; id < nodeCount; id++) {
+                if (chosen[id])
+                    continue;
+                if (landmark == -1)
+                    landmark = id;
+                else if (selection == Selection.FARTHEST && i > 0) {
+                    // nodes no landmark reaches are the farthest of all, so
+                    // every component of the graph gets a landmark first
+                    if (closest[id] > closest[landmark] || (closest[id] == closest[landmark]
+                            && degrees[id] > degrees[landmark]))
+                        landmark = id;
+                } else if (degrees[id] > degrees[landmark]) {
+                    landmark = id;
+                }
+            }
+            chosen[landmark] = true;
+            landmarks[i] = landmark;
+
+            double[] fromLandmark = graph.costsFrom(landmark);
+            for (int id = 0; id < nodeCount; id++) {
+                costs[id * count + i] = fromLandmark[id];
+                closest[id] = Math.min(closest[id], fromLandmark[id]);
+            }
+        }
+        return new LandmarkIndex(landmarks, costs, graph.getVersion());
+    }
+
+    /**
+     * Returns a lower bound on the cost of the shortest path between two
+     * nodes.
+     *
+     * @param node the id of one node
+     * @param target the id of the other node
+     * @return a cost no larger than that of the shortest path between them,
+     *         or infinity when some landmark reaches exactly one of them, in
+     *         which case no path connects them
+     */
+    public double lowerBound(int node, int target) {
+        int count = landmarks.length;
+        int nodeRow = node * count;
+        int targetRow = target * count;
+        double bound = 0;
+        for (int i = 0; i < count; i++) {
+            double toNode = costs[nodeRow + i];
+            double toTarget = costs[targetRow + i];
+            if (toNode == toTarget)
+                continue; // also skips landmarks that reach neither node
+            bound = Math.max(bound, Math.abs(toTarget - toNode));
+        }
+        return bound;
+    }
+
+    /**
+     * Returns the number of landmarks in this index.
+     *
+     * @return the number of landmarks
+     */
+    public int getLandmarkCount() {
+        return landmarks.length;
+    }
+
+    /**
+     * Returns the node id of one of the landmarks.
+     *
+     * @param i the index of the landmark, from 0 to getLandmarkCount()-1
+     * @return the id the landmark had when this index was built
+     */
+    public int getLandmark(int i) {
+        return landmarks[i];
+    }
+
+    /**
+     * Returns the version of the graph this index was built from.
+     *
+     * @return the graph's version when the index was built
+     */
+    public long getVersion() {
+        return version;
+    }
+}
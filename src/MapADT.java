@@ -32,6 +32,18 @@ public interface MapADT<KeyType, ValueType> {
      */
     public ValueType get(KeyType key) throws NoSuchElementException;
 
+    /**
+     * Retrieves the value that a key maps to, without throwing when the key
+     * is missing, for callers that expect to miss often.
+     * @param key the key to look up
+     * @return the value that key maps to, or null when key is not stored in
+     *         this collection
+     * @throws NullPointerException if key is null
+     */
+    public default ValueType getOrNull(KeyType key) {
+        return containsKey(key) ? get(key) : null;
+    }
+
     /**
      * Remove the mapping for a key from this collection.
      * @param key the key whose mapping to remove
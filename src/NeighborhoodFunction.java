@@ -0,0 +1,363 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A NeighborhoodFunction estimates, for every distance t, how many pairs of
+ * nodes of a graph are at most t steps apart, and from that the
+ * distribution of distances between people: the average degrees of
+ * separation and the effective diameter. Finding these exactly takes a
+ * breadth-first search from every node, which is out of reach for large
+ * graphs, so they are estimated as HyperANF does.
+ *
+ * Each node keeps a HyperLogLog counter, a sketch of the set of nodes
+ * within t steps of it. At t = 0 a node's counter holds only the node
+ * itself. The nodes within t + 1 steps of a node are those within t steps
+ * of it or of one of its neighbors, so each pass sets every node's counter
+ * to the union of its own and its neighbors' counters from the pass
+ * before, and the sum of the counters' estimates after pass t estimates
+ * the number of pairs at most t steps apart. Passes stop once no counter
+ * changes. A node's counter can only change in a pass if one of its
+ * neighbors' counters changed in the pass before, so the others are simply
+ * copied over, and later passes, which reach few new nodes, are cheap.
+ *
+ * A counter is 2^precision registers of one byte, and the union of two
+ * counters is the maximum of each pair of registers, which is taken eight
+ * registers at a time, packed in a long. Two sets of counters are kept, the
+ * ones read and the ones written in a pass, so the estimate takes
+ * 2^(precision + 1) bytes per node, and each counter estimates the size of
+ * its set within a relative standard error of about 1.04 / 2^(precision /
+ * 2). The nodes are processed in parallel across the common ForkJoinPool.
+ * Like the SortedAdjacency it is computed from, the estimate describes the
+ * graph as it was at one version.
+ */
+public class NeighborhoodFunction {
+
+    // the smallest and largest number of registers per counter, as powers of two
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 16;
+
+    // the precision used when none is given, with 128 registers per counter
+    public static final int DEFAULT_PRECISION = 7;
+
+    private static final long HIGH_BITS = 0x8080808080808080L; // the top bit of each byte
+
+    // 2^-r for every value r a register can hold
+    private static final double[] INVERSE_POWERS = new double[64];
+    static {
+        for (int r = 0; r < INVERSE_POWERS.length; r++)
+            INVERSE_POWERS[r] = Math.scalb(1.0, -r);
+    }
+
+    protected double[] function; // function[t] estimates the pairs at most t steps apart
+    protected int precision;
+    protected long version;
+
+    /**
+     * Creates an estimate from values that were already computed.
+     *
+     * @param function the estimated number of ordered pairs of nodes at
+     *        most t steps apart, for t from 0 until it stops growing, where
+     *        each node is 0 steps from itself
+     * @param precision the precision of the counters it was estimated with
+     * @param version the version of the graph it was estimated for
+     */
+    protected NeighborhoodFunction(double[] function, int precision, long version) {
+        this.function = function;
+        this.precision = precision;
+        this.version = version;
+    }
+
+    /**
+     * Estimates the neighborhood function of a graph, with the default
+     * precision.
+     *
+     * @param adjacency the neighborhoods of the graph
+     * @return the estimate
+     */
+    public static NeighborhoodFunction compute(SortedAdjacency<?> adjacency) {
+        return compute(adjacency, DEFAULT_PRECISION, 0);
+    }
+
+    /**
+     * Estimates the neighborhood function of a graph. The same graph, seed
+     * and precision always give the same estimate.
+     *
+     * @param adjacency the neighborhoods of the graph
+     * @param precision the base 2 logarithm of the number of registers in
+     *        each counter, from MIN_PRECISION to MAX_PRECISION
+     * @param seed the seed of the hash function that places nodes in
+     *        registers
+     * @return the estimate
+     * @throws IllegalArgumentException if precision is out of range, or too
+     *         large for the counters of all nodes to fit in an array
+     */
+    public static NeighborhoodFunction compute(SortedAdjacency<?> adjacency, int precision, long seed) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION)
+            throw new IllegalArgumentException("precision must be from " + MIN_PRECISION
+                    + " to " + MAX_PRECISION);
+        int nodeCount = adjacency.getNodeCount();
+        int words = 1 << (precision - 3); // the longs in each counter
+        if ((long) nodeCount * words > Integer.MAX_VALUE - 8)
+            throw new IllegalArgumentException("precision too large for " + nodeCount + " nodes");
+        int[] offsets = adjacency.offsets;
+        int[] neighbors = adjacency.neighbors;
+
+        // each node starts out counting only itself
+        long[] initial = new long[nodeCount * words];
+        IntStream.range(0, nodeCount).parallel().forEach(id -> {
+            long hash = mix(id + seed * 0x9E3779B97F4A7C15L);
+            int register = (int) (hash >>> (64 - precision));
+            // the bit below the rest of the hash caps the run of zeros
+            int value = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+            initial[id * words + (register >>> 3)] |= (long) value << ((register & 7) * 8);
+        });
+        long[] current = initial;
+        long[] next = new long[nodeCount * words];
+
+        double[] estimates = new double[nodeCount];
+        Arrays.fill(estimates, 1.0);
+        boolean[] changed = new boolean[nodeCount];
+        boolean[] nextChanged = new boolean[nodeCount];
+        Arrays.fill(changed, true);
+        double[] function = new double[16];
+        function[0] = nodeCount;
+        int distance = 0;
+        while (true) {
+            long[] read = current;
+            long[] written = next;
+            boolean[] readChanged = changed;
+            boolean[] writtenChanged = nextChanged;
+            IntStream.range(0, nodeCount).parallel().forEach(id -> {
+                int start = id * words;
+                System.arraycopy(read, start, written, start, words);
+                boolean grew = false;
+                for (int i = offsets[id]; i < offsets[id + 1]; i++) {
+                    int neighbor = neighbors[i];
+                    if (!readChanged[neighbor])
+                        continue;
+                    int other = neighbor * words;
+                    long difference = 0;
+                    for (int w = 0; w < words; w++) {
+                        long before = written[start + w];
+                        long after = max(before, read[other + w]);
+                        written[start + w] = after;
+                        difference |= before ^ after;
+                    }
+                    grew |= difference != 0;
+                }
+                writtenChanged[id] = grew;
+                if (grew)
+                    estimates[id] = estimate(written, start, words);
+            });
+
+            double pairs = 0;
+            boolean anyChanged = false;
+            for (int id = 0; id < nodeCount; id++) {
+                pairs += estimates[id];
+                anyChanged |= nextChanged[id];
+            }
+            if (!anyChanged)
+                break;
+            distance++;
+            if (distance == function.length)
+                function = Arrays.copyOf(function, distance * 2);
+            // a counter never shrinks, but its estimate may dip where the
+            // estimator switches formulas
+            function[distance] = Math.max(pairs, function[distance - 1]);
+
+            current = written;
+            next = read;
+            changed = writtenChanged;
+            nextChanged = readChanged;
+        }
+        return new NeighborhoodFunction(Arrays.copyOf(function, distance + 1), precision,
+                adjacency.getVersion());
+    }
+
+    /**
+     * Returns the largest precision, up to a requested one, at which the
+     * counters of a graph fit in a memory budget, so that the estimate of a
+     * large graph can be bounded in size at the cost of its accuracy.
+     *
+     * @param nodeCount the number of nodes in the graph
+     * @param precision the precision wanted
+     * @param memory the number of bytes the counters may take
+     * @return the precision to estimate with, which is MIN_PRECISION if not
+     *         even that fits
+     */
+    public static int precisionFor(int nodeCount, int precision, long memory) {
+        precision = Math.min(precision, MAX_PRECISION);
+        while (precision > MIN_PRECISION && (2L * nodeCount << precision) > memory)
+            precision--;
+        return Math.max(precision, MIN_PRECISION);
+    }
+
+    /**
+     * Takes the maximum of each of the eight bytes packed in two longs,
+     * none of which has its top bit set.
+     */
+    private static long max(long x, long y) {
+        // a byte of x with its top bit set, less the same byte of y, keeps
+        // its top bit exactly where x's byte is at least y's, and borrows
+        // nothing from the next byte
+        long atLeast = ((x | HIGH_BITS) - y) & HIGH_BITS;
+        long mask = (atLeast - (atLeast >>> 7)) | atLeast;
+        return (x & mask) | (y & ~mask);
+    }
+
+    /**
+     * Estimates the number of distinct nodes a counter has seen, with the
+     * HyperLogLog estimator, and with linear counting of the empty registers
+     * while there are few.
+     */
+    private static double estimate(long[] counters, int start, int words) {
+        int registers = words * 8;
+        double sum = 0;
+        int empty = 0;
+        for (int w = start; w < start + words; w++) {
+            long word = counters[w];
+            for (int shift = 0; shift < 64; shift += 8) {
+                int value = (int) (word >>> shift) & 0xFF;
+                sum += INVERSE_POWERS[value];
+                if (value == 0)
+                    empty++;
+            }
+        }
+        double alpha;
+        if (registers == 16)
+            alpha = 0.673;
+        else if (registers == 32)
+            alpha = 0.697;
+        else if (registers == 64)
+            alpha = 0.709;
+        else
+            alpha = 0.7213 / (1 + 1.079 / registers);
+        double estimate = alpha * registers * registers / sum;
+        if (estimate <= 2.5 * registers && empty > 0)
+            estimate = registers * Math.log((double) registers / empty);
+        return estimate;
+    }
+
+    /**
+     * Scrambles the bits of a value, with the finalizer of SplitMix64.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+
+    /**
+     * Return the estimated neighborhood function: for each distance t, the
+     * number of ordered pairs of nodes at most t steps apart, counting each
+     * node as 0 steps from itself.
+     *
+     * @return the estimates for t from 0 until the last pass that reached
+     *         new nodes
+     */
+    public double[] getNeighborhoodFunction() {
+        return function.clone();
+    }
+
+    /**
+     * Return the estimated distribution of the distances between distinct
+     * nodes that are connected by some path.
+     *
+     * @return for each distance t, the fraction of connected pairs that are
+     *         exactly t steps apart, which is 0 for t = 0
+     */
+    public double[] getDistanceDistribution() {
+        double[] distribution = new double[function.length];
+        double pairs = getConnectedPairCount();
+        for (int t = 1; t < function.length && pairs > 0; t++)
+            distribution[t] = (function[t] - function[t - 1]) / pairs;
+        return distribution;
+    }
+
+    /**
+     * Return the estimated number of ordered pairs of distinct nodes that
+     * are connected by some path.
+     *
+     * @return the number of connected pairs
+     */
+    public double getConnectedPairCount() {
+        return function[function.length - 1] - function[0];
+    }
+
+    /**
+     * Return the estimated average distance between distinct nodes that are
+     * connected by some path, which is the average degrees of separation
+     * in a social network.
+     *
+     * @return the average distance, or 0 if no two nodes are connected
+     */
+    public double getAverageDistance() {
+        double[] distribution = getDistanceDistribution();
+        double average = 0;
+        for (int t = 1; t < distribution.length; t++)
+            average += t * distribution[t];
+        return average;
+    }
+
+    /**
+     * Return the estimated effective diameter of the graph: the distance
+     * within which 90% of the connected pairs of distinct nodes lie.
+     *
+     * @return the effective diameter
+     */
+    public double getEffectiveDiameter() {
+        return getEffectiveDiameter(0.9);
+    }
+
+    /**
+     * Return the distance within which a fraction of the connected pairs of
+     * distinct nodes lie, interpolating linearly between whole distances.
+     *
+     * @param fraction the fraction of connected pairs, greater than 0 and at
+     *        most 1
+     * @return the distance, or 0 if no two nodes are connected
+     * @throws IllegalArgumentException if fraction is out of range
+     */
+    public double getEffectiveDiameter(double fraction) {
+        if (!(fraction > 0 && fraction <= 1))
+            throw new IllegalArgumentException("fraction must be greater than 0 and at most 1");
+        double pairs = getConnectedPairCount();
+        if (pairs <= 0)
+            return 0.0;
+        double target = function[0] + fraction * pairs;
+        int t = 1;
+        while (t < function.length - 1 && function[t] < target)
+            t++;
+        return t - 1 + (target - function[t - 1]) / (function[t] - function[t - 1]);
+    }
+
+    /**
+     * Return a lower bound on the diameter of the graph: the number of
+     * passes that reached new nodes, each of which found some pair of nodes
+     * that many steps apart.
+     *
+     * @return the lower bound on the longest distance between connected
+     *         nodes
+     */
+    public int getDiameterLowerBound() {
+        return function.length - 1;
+    }
+
+    /**
+     * Return the precision of the counters the estimate was made with.
+     *
+     * @return the base 2 logarithm of the number of registers per counter
+     */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * Return the version of the graph this estimate describes.
+     *
+     * @return the version of the graph at the time
+     */
+    public long getVersion() {
+        return version;
+    }
+}
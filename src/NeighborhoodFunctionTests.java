@@ -0,0 +1,128 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+public class NeighborhoodFunctionTests {
+
+    /**
+     * Test case for the estimated neighborhood function of random graphs,
+     * some of them in many components, against counting the pairs within
+     * each distance with a breadth-first search from every node.
+     */
+    @Test
+    public void testMatchesBreadthFirstSearch() {
+        Random random = new Random(25);
+        for (int round = 0; round < 6; round++) {
+            int nodeCount = 50 + random.nextInt(250);
+            DijkstraGraph<Integer, Integer> graph = round % 2 == 0
+                    ? new DijkstraGraph<>(new OpenAddressingMap<>())
+                    : new UndirectedGraph<>(new OpenAddressingMap<>());
+            for (int i = 0; i < nodeCount; i++)
+                graph.insertNode(i);
+            int edgeCount = nodeCount * (1 + round % 3) / 2;
+            for (int i = 0; i < edgeCount; i++)
+                graph.insertEdge(random.nextInt(nodeCount), random.nextInt(nodeCount), 1);
+            SortedAdjacency<Integer> adjacency = graph.getSortedAdjacency();
+
+            // the number of ordered pairs exactly t steps apart
+            long[] exact = new long[nodeCount];
+            int diameter = 0;
+            int[] distances = new int[nodeCount];
+            int[] queue = new int[nodeCount];
+            for (int start = 0; start < nodeCount; start++) {
+                Arrays.fill(distances, -1);
+                distances[start] = 0;
+                int head = 0, tail = 0;
+                queue[tail++] = start;
+                while (head < tail) {
+                    int node = queue[head++];
+                    exact[distances[node]]++;
+                    diameter = Math.max(diameter, distances[node]);
+                    for (int i = adjacency.offsets[node]; i < adjacency.offsets[node + 1]; i++) {
+                        int neighbor = adjacency.neighbors[i];
+                        if (distances[neighbor] < 0) {
+                            distances[neighbor] = distances[node] + 1;
+                            queue[tail++] = neighbor;
+                        }
+                    }
+                }
+            }
+            long connected = 0, distanceSum = 0;
+            for (int t = 1; t <= diameter; t++) {
+                connected += exact[t];
+                distanceSum += t * exact[t];
+            }
+
+            NeighborhoodFunction function = graph.getNeighborhoodFunction(12);
+            double[] estimate = function.getNeighborhoodFunction();
+            assertTrue(function.getDiameterLowerBound() <= diameter);
+            assertEquals(estimate.length - 1, function.getDiameterLowerBound());
+            assertEquals(nodeCount, estimate[0]);
+            long within = exact[0];
+            for (int t = 1; t < estimate.length; t++) {
+                within += exact[t];
+                assertTrue(estimate[t] >= estimate[t - 1]);
+                assertEquals(within, estimate[t], within * 0.05);
+            }
+            assertEquals(connected, function.getConnectedPairCount(), connected * 0.05);
+            double average = (double) distanceSum / connected;
+            assertEquals(average, function.getAverageDistance(), average * 0.03);
+            double fractionSum = 0;
+            for (double fraction : function.getDistanceDistribution())
+                fractionSum += fraction;
+            assertEquals(1.0, fractionSum, 1e-9);
+            double effective = function.getEffectiveDiameter();
+            assertTrue(effective > 0 && effective <= function.getDiameterLowerBound());
+            assertEquals(function.getDiameterLowerBound(), function.getEffectiveDiameter(1.0), 1e-9);
+        }
+    }
+
+    /**
+     * Test case for graphs without connected pairs, for the precision of the
+     * counters, and for the same graph and seed giving the same estimate.
+     */
+    @Test
+    public void testEdgeCases() {
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        NeighborhoodFunction empty = graph.getNeighborhoodFunction(NeighborhoodFunction.MIN_PRECISION);
+        assertEquals(0, empty.getConnectedPairCount());
+        assertEquals(0.0, empty.getAverageDistance());
+        assertEquals(0.0, empty.getEffectiveDiameter());
+
+        graph.insertNode("a");
+        graph.insertNode("b");
+        graph.insertEdge("a", "a", 1);
+        NeighborhoodFunction loners = graph.getNeighborhoodFunction(NeighborhoodFunction.DEFAULT_PRECISION);
+        assertArrayEquals(new double[] {2.0}, loners.getNeighborhoodFunction());
+        assertEquals(0, loners.getDiameterLowerBound());
+
+        // a single friendship is one step in both directions
+        graph.insertEdge("b", "a", 1);
+        NeighborhoodFunction pair = graph.getNeighborhoodFunction(NeighborhoodFunction.DEFAULT_PRECISION);
+        assertEquals(1, pair.getDiameterLowerBound());
+        assertEquals(2.0, pair.getConnectedPairCount(), 0.1);
+        assertEquals(1.0, pair.getAverageDistance(), 1e-9);
+        assertEquals(0.9, pair.getEffectiveDiameter(), 1e-9);
+        assertEquals(pair.getVersion(), graph.getVersion());
+        assertThrows(IllegalArgumentException.class, () -> pair.getEffectiveDiameter(0));
+        assertThrows(IllegalArgumentException.class,
+                () -> graph.getNeighborhoodFunction(NeighborhoodFunction.MIN_PRECISION - 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> graph.getNeighborhoodFunction(NeighborhoodFunction.MAX_PRECISION + 1));
+
+        // the counters of a million nodes at precision 10 take 2048 million bytes
+        assertEquals(10, NeighborhoodFunction.precisionFor(1_000_000, 10, 2_048_000_000L));
+        assertEquals(9, NeighborhoodFunction.precisionFor(1_000_000, 10, 2_047_999_999L));
+        assertEquals(NeighborhoodFunction.MIN_PRECISION, NeighborhoodFunction.precisionFor(1_000_000, 10, 0));
+
+        SocialGraphGenerator generator = SocialGraphGenerator.wattsStrogatz(2000, 6, 0.1, 3);
+        UndirectedGraph<String, Integer> network = new UndirectedGraph<>(new OpenAddressingMap<>());
+        generator.insertInto(network);
+        SortedAdjacency<String> adjacency = network.getSortedAdjacency();
+        assertArrayEquals(NeighborhoodFunction.compute(adjacency, 6, 9).getNeighborhoodFunction(),
+                NeighborhoodFunction.compute(adjacency, 6, 9).getNeighborhoodFunction());
+    }
+}
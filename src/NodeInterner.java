@@ -0,0 +1,113 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A NodeInterner assigns each distinct key it is given a dense int id,
+ * counting up from 0 in the order keys are first interned. Searches and
+ * snapshots can then store per-node state in primitive arrays indexed by
+ * these ids, instead of in maps keyed by boxed node data. Ids are never
+ * reused or reassigned.
+ *
+ * Like OpenAddressingMap, keys are found with a single linear probe sequence,
+ * but the table stores each key's id in an int array, so looking up an id
+ * never boxes or unboxes an Integer.
+ */
+public class NodeInterner<KeyType> {
+
+    // the table grows once more than this fraction of its slots are in use
+    private static final double MAX_LOAD_FACTOR = 0.6;
+
+    protected Object[] keysById = new Object[16];
+    protected int[] table = new int[32]; // id + 1 of the key in each slot, or 0
+    protected int size = 0;
+
+    /**
+     * Returns the id of a key, assigning it the next unused id if it has not
+     * been interned before.
+     *
+     * @param key the key to intern
+     * @return the id of that key
+     * @throws NullPointerException if key is null
+     */
+    public int intern(KeyType key) {
+        if (key == null)
+            throw new NullPointerException("null keys not allowed");
+        int slot = findSlot(key);
+        if (table[slot] != 0)
+            return table[slot] - 1;
+
+        if (size == keysById.length)
+            keysById = Arrays.copyOf(keysById, size * 2);
+        keysById[size] = key;
+        table[slot] = ++size;
+        if (size > MAX_LOAD_FACTOR * table.length)
+            resize();
+        return size - 1;
+    }
+
+    /**
+     * Returns the id of a key without interning it.
+     *
+     * @param key the key to look up
+     * @return the id of that key, or -1 if it has not been interned
+     */
+    public int idOf(KeyType key) {
+        if (key == null)
+            throw new NullPointerException("null keys not allowed");
+        return table[findSlot(key)] - 1;
+    }
+
+    /**
+     * Returns the key that was assigned an id.
+     *
+     * @param id the id to look up
+     * @return the key with that id
+     * @throws NoSuchElementException if no key has that id
+     */
+    @SuppressWarnings("unchecked")
+    public KeyType keyOf(int id) {
+        if (id < 0 || id >= size)
+            throw new NoSuchElementException("no key with id " + id);
+        return (KeyType) keysById[id];
+    }
+
+    /**
+     * Returns the number of keys interned so far, which is also one more
+     * than the largest id assigned.
+     *
+     * @return the number of interned keys
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Finds the slot that holds key's id, or the empty slot where the probe
+     * sequence for key ends when it has not been interned.
+     *
+     * @param key the key to look for
+     * @return the index of that slot
+     */
+    protected int findSlot(Object key) {
+        int mask = table.length - 1;
+        int slot = OpenAddressingMap.hash(key) & mask;
+        int entry;
+        while ((entry = table[slot]) != 0 && !keysById[entry - 1].equals(key))
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Doubles the length of the table and re-inserts every id.
+     */
+    protected void resize() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = OpenAddressingMap.hash(keysById[id]) & mask;
+            while (table[slot] != 0)
+                slot = (slot + 1) & mask;
+            table[slot] = id + 1;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Implements MapADT with an open addressing hash table that uses linear
+ * probing. Keys and values are stored in two parallel arrays whose length is
+ * always a power of two, and each operation hashes its key only once and
+ * then probes consecutive slots until it finds either that key or an empty
+ * slot. Removals shift later entries of the same probe sequence back into
+ * the freed slot, so no tombstones are ever left behind.
+ */
+public class OpenAddressingMap<KeyType, ValueType> implements MapADT<KeyType, ValueType> {
+
+    // the table grows once more than this fraction of its slots are in use
+    private static final double MAX_LOAD_FACTOR = 0.6;
+
+    protected Object[] keys;
+    protected Object[] values;
+    protected int size = 0;
+    protected int mask; // keys.length - 1
+
+    /**
+     * Creates a map with the default capacity of 16.
+     */
+    public OpenAddressingMap() {
+        this(16);
+    }
+
+    /**
+     * Creates a map with at least the provided capacity. The capacity is
+     * rounded up to the next power of two.
+     *
+     * @param capacity the minimum number of slots in the underlying arrays
+     */
+    public OpenAddressingMap(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive");
+        int length = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        keys = new Object[length];
+        values = new Object[length];
+        mask = length - 1;
+    }
+
+    @Override
+    public void put(KeyType key, ValueType value) throws IllegalArgumentException {
+        if (key == null)
+            throw new NullPointerException("null keys not allowed");
+        int slot = findSlot(key);
+        if (keys[slot] != null)
+            throw new IllegalArgumentException("key " + key.toString() + " already present in map");
+        if (size + 1 > MAX_LOAD_FACTOR * keys.length) {
+            resize(keys.length * 2);
+            slot = findSlot(key);
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+    }
+
+    @Override
+    public boolean containsKey(KeyType key) {
+        if (key == null)
+            throw new NullPointerException("null keys not allowed");
+        return keys[findSlot(key)] != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType get(KeyType key) throws NoSuchElementException {
+        if (key == null)
+            throw new NullPointerException("null keys not allowed");
+        int slot = findSlot(key);
+        if (keys[slot] == null)
+            throw new NoSuchElementException("key " + key.toString() + " not in map");
+        return (ValueType) values[slot];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType getOrNull(KeyType key) {
+        if (key == null)
+            throw new NullPointerException("null keys not allowed");
+        return (ValueType) values[findSlot(key)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public ValueType remove(KeyType key) throws NoSuchElementException {
+        if (key == null)
+            throw new NullPointerException("null keys not allowed");
+        int slot = findSlot(key);
+        if (keys[slot] == null)
+            throw new NoSuchElementException("key " + key.toString() + " not in map");
+        ValueType oldValue = (ValueType) values[slot];
+        size--;
+
+        // shift each later entry of this probe sequence back into the gap,
+        // unless its own home slot lies cyclically after the gap
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != null) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = null;
+        values[gap] = null;
+        return oldValue;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    @Override
+    public int getSize() {
+        return size;
+    }
+
+    @Override
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Finds the slot that holds key, or the empty slot where the probe
+     * sequence for key ends when it is not in the table.
+     *
+     * @param key the key to look for
+     * @return the index of that slot
+     */
+    protected int findSlot(Object key) {
+        int slot = hash(key) & mask;
+        Object current;
+        while ((current = keys[slot]) != null && !current.equals(key))
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /**
+     * Mixes the bits of a key's hashCode so that keys whose hash codes only
+     * differ in their high bits still land in different slots.
+     *
+     * @param key the key to hash
+     * @return the mixed hash code
+     */
+    protected static int hash(Object key) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Moves every entry into new arrays with the provided length.
+     *
+     * @param length the new capacity, a power of two
+     */
+    protected void resize(int length) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new Object[length];
+        values = new Object[length];
+        mask = length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = findSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
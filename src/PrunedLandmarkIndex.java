@@ -0,0 +1,512 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A PrunedLandmarkIndex answers exact hop distance queries between two nodes
+ * of a graph without searching it. It stores a 2-hop cover: a label for every
+ * node, listing some hub nodes together with the number of edges between the
+ * node and each hub, such that every pair of connected nodes shares a hub on
+ * one of their shortest paths. The distance between two nodes is then the
+ * smallest sum of their distances to a common hub, found by merging their
+ * labels, which are sorted by hub.
+ *
+ * The labels are built by pruned landmark labeling (Akiba, Iwata and
+ * Yoshida, 2013): a breadth first search is run from every node in order of
+ * decreasing degree, and stops expanding a node as soon as the labels built
+ * so far already give its distance from the search's root. Because most
+ * shortest paths in a social network pass through a few well connected
+ * people, later searches are pruned almost immediately and labels stay
+ * short. As with the searches of DijkstraGraph, every edge is treated as a
+ * connection in both directions, and edge weights are ignored.
+ *
+ * Each label entry also records the node before it on its path from the
+ * hub, so that shortest paths, and not only their lengths, can be recovered
+ * from the labels. Labels are stored in flat arrays, with the entries of each
+ * node next to each other. An index records the version of the graph it was
+ * built from, so that the graph can tell when it has become stale, and can
+ * be saved next to the graph with write and loaded back with read.
+ */
+public class PrunedLandmarkIndex {
+
+    public static final int MAGIC = 0x504C4C49; // "PLLI"
+    public static final int VERSION = 1;
+
+    // the size of the header, and of the trailer
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8 + 8;
+    private static final int TRAILER_SIZE = 8;
+
+    protected int[] order; // order[rank] is the id of the node with that rank
+    protected int[] labelStart; // the entries of node v are labelStart[v] to labelStart[v+1]-1
+    protected int[] hubs; // the rank of each entry's hub, increasing within each label
+    protected int[] distances; // the number of edges between each entry's node and hub
+    protected int[] parents; // the node before each entry's node on its path from the hub
+    protected long fingerprint; // identifies the graph the index was built from
+    protected long buildNanos;
+    protected long version;
+
+    /**
+     * Creates an index over labels that were already computed.
+     */
+    protected PrunedLandmarkIndex(int[] order, int[] labelStart, int[] hubs, int[] distances,
+            int[] parents, long fingerprint, long buildNanos, long version) {
+        this.order = order;
+        this.labelStart = labelStart;
+        this.hubs = hubs;
+        this.distances = distances;
+        this.parents = parents;
+        this.fingerprint = fingerprint;
+        this.buildNanos = buildNanos;
+        this.version = version;
+    }
+
+    /**
+     * Builds the labels of every node of a graph.
+     *
+     * @param graph the graph to index
+     * @return the new index
+     */
+    public static <NodeType, EdgeType extends Number> PrunedLandmarkIndex build(
+            BaseGraph<NodeType, EdgeType> graph) {
+        long start = System.nanoTime();
+        int nodeCount = graph.nodeTable.size();
+
+        // rank nodes by decreasing degree, breaking ties by id
+        int[] degrees = new int[nodeCount];
+        long[] keys = new long[nodeCount];
+        for (int id = 0; id < nodeCount; id++) {
+            BaseGraph<NodeType, EdgeType>.Node node = graph.nodeTable.get(id);
+            degrees[id] = node.edgesLeaving.size() + node.edgesEntering.size();
+            keys[id] = ((long) (Integer.MAX_VALUE - degrees[id]) << 32) | id;
+        }
+        Arrays.sort(keys);
+        int[] order = new int[nodeCount];
+        for (int rank = 0; rank < nodeCount; rank++) {
+            order[rank] = (int) keys[rank];
+        }
+
+        // the labels grow one entry at a time while they are built
+        int[][] nodeHubs = new int[nodeCount][];
+        int[][] nodeDistances = new int[nodeCount][];
+        int[][] nodeParents = new int[nodeCount][];
+        int[] sizes = new int[nodeCount];
+        for (int id = 0; id < nodeCount; id++) {
+            int capacity = 4;
+            nodeHubs[id] = new int[capacity];
+            nodeDistances[id] = new int[capacity];
+            nodeParents[id] = new int[capacity];
+        }
+
+        int[] rootDistances = new int[nodeCount]; // by hub rank, from the root's label
+        Arrays.fill(rootDistances, Integer.MAX_VALUE);
+        int[] searchDistances = new int[nodeCount];
+        Arrays.fill(searchDistances, -1);
+        int[] searchParents = new int[nodeCount];
+        int[] queue = new int[nodeCount];
+        int entryCount = 0;
+
+        for (int rank = 0; rank < nodeCount; rank++) {
+            int root = order[rank];
+            for (int i = 0; i < sizes[root]; i++) {
+                rootDistances[nodeHubs[root][i]] = nodeDistances[root][i];
+            }
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = root;
+            searchDistances[root] = 0;
+            searchParents[root] = -1;
+
+            while (head < tail) {
+                int current = queue[head++];
+                int distance = searchDistances[current];
+                // prune nodes whose distance from root is already covered
+                boolean covered = false;
+                int[] currentHubs = nodeHubs[current];
+                for (int i = 0; i < sizes[current] && !covered; i++) {
+                    int viaHub = rootDistances[currentHubs[i]];
+                    covered = viaHub != Integer.MAX_VALUE
+                            && viaHub + nodeDistances[current][i] <= distance;
+                }
+                if (covered) {
+                    continue;
+                }
+
+                int size = sizes[current];
+                if (size == currentHubs.length) {
+                    int capacity = size * 2;
+                    nodeHubs[current] = currentHubs = Arrays.copyOf(currentHubs, capacity);
+                    nodeDistances[current] = Arrays.copyOf(nodeDistances[current], capacity);
+                    nodeParents[current] = Arrays.copyOf(nodeParents[current], capacity);
+                }
+                currentHubs[size] = rank;
+                nodeDistances[current][size] = distance;
+                nodeParents[current][size] = searchParents[current];
+                sizes[current]++;
+                entryCount++;
+
+                BaseGraph<NodeType, EdgeType>.Node currentNode = graph.nodeTable.get(current);
+                for (int direction = 0; direction < 2; direction++) {
+                    List<BaseGraph<NodeType, EdgeType>.Edge> edges = direction == 0
+                            ? currentNode.edgesLeaving : currentNode.edgesEntering;
+                    for (int i = 0; i < edges.size(); i++) {
+                        BaseGraph<NodeType, EdgeType>.Edge edge = edges.get(i);
+                        int neighbor = direction == 0 ? edge.other(currentNode).id
+                                : edge.predecessor.id;
+                        if (searchDistances[neighbor] == -1) {
+                            searchDistances[neighbor] = distance + 1;
+                            searchParents[neighbor] = current;
+                            queue[tail++] = neighbor;
+                        }
+                    }
+                }
+            }
+
+            // clear only what this search touched
+            for (int i = 0; i < tail; i++) {
+                searchDistances[queue[i]] = -1;
+            }
+            for (int i = 0; i < sizes[root]; i++) {
+                rootDistances[nodeHubs[root][i]] = Integer.MAX_VALUE;
+            }
+        }
+
+        // pack the labels into flat arrays
+        int[] labelStart = new int[nodeCount + 1];
+        int[] hubs = new int[entryCount];
+        int[] distances = new int[entryCount];
+        int[] parents = new int[entryCount];
+        for (int id = 0; id < nodeCount; id++) {
+            int from = labelStart[id];
+            System.arraycopy(nodeHubs[id], 0, hubs, from, sizes[id]);
+            System.arraycopy(nodeDistances[id], 0, distances, from, sizes[id]);
+            System.arraycopy(nodeParents[id], 0, parents, from, sizes[id]);
+            labelStart[id + 1] = from + sizes[id];
+            nodeHubs[id] = nodeDistances[id] = nodeParents[id] = null;
+        }
+        return new PrunedLandmarkIndex(order, labelStart, hubs, distances, parents,
+                fingerprint(graph), System.nanoTime() - start, graph.getVersion());
+    }
+
+    /**
+     * Returns the number of edges on a shortest path between two nodes.
+     *
+     * @param source the id of one node
+     * @param target the id of the other node
+     * @return the number of edges between them, or -1 if they are not
+     *         connected
+     */
+    public int hopDistance(int source, int target) {
+        int best = Integer.MAX_VALUE;
+        int i = labelStart[source];
+        int iEnd = labelStart[source + 1];
+        int j = labelStart[target];
+        int jEnd = labelStart[target + 1];
+        while (i < iEnd && j < jEnd) {
+            int hub = hubs[i];
+            int otherHub = hubs[j];
+            if (hub == otherHub) {
+                best = Math.min(best, distances[i++] + distances[j++]);
+            } else if (hub < otherHub) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return best == Integer.MAX_VALUE ? -1 : best;
+    }
+
+    /**
+     * Returns the ids of the nodes on a shortest path between two nodes,
+     * which is recovered from the labels by following the entries for the
+     * hub the two nodes are closest to.
+     *
+     * @param source the id of the node to start the path at
+     * @param target the id of the node to end the path at
+     * @return the ids of the nodes on the path, from source to target, or null
+     *         if they are not connected
+     */
+    public int[] path(int source, int target) {
+        int best = Integer.MAX_VALUE;
+        int bestHub = -1;
+        int i = labelStart[source];
+        int j = labelStart[target];
+        while (i < labelStart[source + 1] && j < labelStart[target + 1]) {
+            if (hubs[i] == hubs[j]) {
+                if (distances[i] + distances[j] < best) {
+                    best = distances[i] + distances[j];
+                    bestHub = hubs[i];
+                }
+                i++;
+                j++;
+            } else if (hubs[i] < hubs[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        if (bestHub == -1) {
+            return null;
+        }
+
+        // walk from both ends up to the hub, which ends the first walk
+        int[] path = new int[best + 1];
+        int node = source;
+        for (int position = 0; node != -1; position++) {
+            path[position] = node;
+            node = parents[findEntry(node, bestHub)];
+        }
+        node = target;
+        for (int position = best; node != order[bestHub]; position--) {
+            path[position] = node;
+            node = parents[findEntry(node, bestHub)];
+        }
+        return path;
+    }
+
+    /**
+     * Finds the entry for a hub in the label of a node.
+     *
+     * @return the position of the entry in the label arrays
+     */
+    protected int findEntry(int node, int hub) {
+        int position = Arrays.binarySearch(hubs, labelStart[node], labelStart[node + 1], hub);
+        if (position < 0) {
+            throw new IllegalStateException("label of node " + node + " has no hub " + hub);
+        }
+        return position;
+    }
+
+    /**
+     * Returns the number of label entries stored for all nodes.
+     *
+     * @return the total size of the labels
+     */
+    public int getEntryCount() {
+        return hubs.length;
+    }
+
+    /**
+     * Returns the number of bytes the index's arrays take up.
+     *
+     * @return the memory used by the labels and node order
+     */
+    public long getMemoryBytes() {
+        return 4L * (order.length + labelStart.length) + 12L * hubs.length;
+    }
+
+    /**
+     * Returns how long it took to build the labels.
+     *
+     * @return the build time in nanoseconds
+     */
+    public long getBuildNanos() {
+        return buildNanos;
+    }
+
+    /**
+     * Returns the version of the graph this index was built from, or that it
+     * was loaded for.
+     *
+     * @return the graph's version when the index was built, or -1 for an
+     *         index that was loaded for a graph it does not match
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Computes a hash of the nodes of a graph and of who they are connected
+     * to, in node id order, which identifies the graph an index was built
+     * from once the index has been written to a file. Each node's neighbors
+     * are hashed in either direction, once each and in increasing order,
+     * just as the index treats them, so that the hash does not depend on
+     * whether the graph stores an edge at one end or at both, or on the
+     * order its edges were inserted in.
+     */
+    protected static <NodeType, EdgeType extends Number> long fingerprint(
+            BaseGraph<NodeType, EdgeType> graph) {
+        SortedAdjacency<NodeType> adjacency = SortedAdjacency.build(graph);
+        long hash = adjacency.getNodeCount();
+        for (int id = 0; id < adjacency.getNodeCount(); id++) {
+            hash = (hash ^ adjacency.getData(id).hashCode()) * 0x9E3779B97F4A7C15L;
+            hash = (hash ^ adjacency.degree(id)) * 0x9E3779B97F4A7C15L;
+            for (int i = adjacency.offsets[id]; i < adjacency.offsets[id + 1]; i++) {
+                hash = (hash ^ adjacency.neighbors[i]) * 0x9E3779B97F4A7C15L;
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Writes this index to a file, replacing the file if it exists. All
+     * numbers are big endian: a header with the magic number MAGIC, the
+     * format VERSION, the number of nodes, the number of label entries, the
+     * fingerprint of the graph and the build time, then the node order, the
+     * start of each node's label, the hub, distance and parent of every
+     * entry, and a trailer with the CRC-32 checksum of everything before it.
+     *
+     * @param file the file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        CRC32 checksum = new CRC32();
+        try (OutputStream stream = Files.newOutputStream(file)) {
+            DataOutputStream out = new DataOutputStream(new CheckedOutputStream(
+                    new BufferedOutputStream(stream, 1 << 16), checksum));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(order.length);
+            out.writeInt(hubs.length);
+            out.writeLong(fingerprint);
+            out.writeLong(buildNanos);
+            for (int id : order)
+                out.writeInt(id);
+            for (int start : labelStart)
+                out.writeInt(start);
+            for (int i = 0; i < hubs.length; i++) {
+                out.writeInt(hubs[i]);
+                out.writeInt(distances[i]);
+                out.writeInt(parents[i]);
+            }
+            out.flush();
+            out.writeLong(checksum.getValue());
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads an index that was written by write, for use with a graph. The
+     * index is only up to date with the graph if the graph holds the same
+     * nodes, with the same ids, and the same edges as the graph the index was
+     * built from, such as after the graph was loaded from a snapshot written
+     * alongside the index. Otherwise the index is returned with a version of
+     * -1, so that the graph never uses it.
+     *
+     * @param file the file to read
+     * @param graph the graph the index is meant for
+     * @return the index
+     * @throws java.nio.file.NoSuchFileException if the file does not exist
+     * @throws IOException if the file cannot be read, is not an index, or is
+     *         corrupt
+     */
+    public static <NodeType, EdgeType extends Number> PrunedLandmarkIndex read(Path file,
+            BaseGraph<NodeType, EdgeType> graph) throws IOException {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(file + " is too large to be a distance index");
+            if (size < HEADER_SIZE + TRAILER_SIZE)
+                throw new IOException(file + " is not a distance index");
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+
+        if (buffer.getInt(0) != MAGIC)
+            throw new IOException(file + " is not a distance index");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException(file + " has unsupported index version " + buffer.getInt(4));
+        int checksumPosition = buffer.limit() - TRAILER_SIZE;
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.duplicate().limit(checksumPosition));
+        if (checksum.getValue() != buffer.getLong(checksumPosition))
+            throw new IOException(file + " is corrupt: its checksum does not match");
+
+        buffer.position(8);
+        int nodeCount = buffer.getInt();
+        int entryCount = buffer.getInt();
+        long fingerprint = buffer.getLong();
+        long buildNanos = buffer.getLong();
+        if (nodeCount < 0 || entryCount < 0 || checksumPosition - HEADER_SIZE
+                != 4L * (2 * nodeCount + 1) + 12L * entryCount)
+            throw new IOException(file + " is corrupt: its header is invalid");
+
+        int[] order = new int[nodeCount];
+        int[] labelStart = new int[nodeCount + 1];
+        int[] hubs = new int[entryCount];
+        int[] distances = new int[entryCount];
+        int[] parents = new int[entryCount];
+        buffer.asIntBuffer().get(order);
+        buffer.position(buffer.position() + 4 * nodeCount);
+        buffer.asIntBuffer().get(labelStart);
+        buffer.position(buffer.position() + 4 * (nodeCount + 1));
+        for (int i = 0; i < entryCount; i++) {
+            hubs[i] = buffer.getInt();
+            distances[i] = buffer.getInt();
+            parents[i] = buffer.getInt();
+        }
+        if (labelStart[0] != 0 || labelStart[nodeCount] != entryCount)
+            throw new IOException(file + " is corrupt: its labels are invalid");
+
+        long version = fingerprint == fingerprint(graph) ? graph.getVersion() : -1;
+        return new PrunedLandmarkIndex(order, labelStart, hubs, distances, parents, fingerprint,
+                buildNanos, version);
+    }
+
+    /**
+     * Builds the index for a DOT file, writes it next to the file, and
+     * compares the time of queries answered from the labels with that of
+     * breadth first searches.
+     *
+     * @param args the DOT file to index, and optionally the number of queries
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: java PrunedLandmarkIndex <input.dot> [queries]");
+            System.exit(1);
+        }
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+        // load the file into the same kind of graph as the frontend does
+        DijkstraGraph<String, Integer> graph = new UndirectedGraph<>(new OpenAddressingMap<>());
+        new DotLoader().load(Paths.get(args[0]), graph);
+        PrunedLandmarkIndex index = graph.buildHopIndex();
+        Path file = Paths.get(args[0] + ".pll");
+        index.write(file);
+        System.out.printf("Indexed %d nodes and %d edges in %.1f ms: %d label entries"
+                + " (%.1f per node), %.1f MB, written to %s%n", graph.getNodeCount(),
+                graph.getEdgeCount(), index.getBuildNanos() / 1e6, index.getEntryCount(),
+                (double) index.getEntryCount() / Math.max(1, graph.getNodeCount()),
+                index.getMemoryBytes() / (double) (1 << 20), file);
+
+        Random random = new Random(42);
+        int nodeCount = graph.nodeTable.size();
+        int[] sources = new int[queries];
+        int[] targets = new int[queries];
+        for (int i = 0; i < queries; i++) {
+            sources[i] = random.nextInt(nodeCount);
+            targets[i] = random.nextInt(nodeCount);
+        }
+        long start = System.nanoTime();
+        long total = 0;
+        for (int i = 0; i < queries; i++)
+            total += index.hopDistance(sources[i], targets[i]);
+        long labelNanos = System.nanoTime() - start;
+
+        graph.setHopIndex(null);
+        int searches = Math.min(queries, 1000);
+        start = System.nanoTime();
+        for (int i = 0; i < searches; i++) {
+            try {
+                total += (long) graph.shortestPathCost(graph.nodeTable.get(sources[i]).data,
+                        graph.nodeTable.get(targets[i]).data);
+            } catch (NoSuchElementException e) {
+                // not connected
+            }
+        }
+        long searchNanos = System.nanoTime() - start;
+        System.out.printf("%.2f us per query from labels, %.2f us per search  (%d)%n",
+                labelNanos / 1e3 / queries, searchNanos / 1e3 / searches, total);
+    }
+}
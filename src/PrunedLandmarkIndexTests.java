@@ -0,0 +1,134 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PrunedLandmarkIndexTests {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Test case for distances and paths from the labels matching breadth
+     * first searches on random graphs, including disconnected ones.
+     */
+    @Test
+    public void testMatchesSearches() {
+        Random random = new Random(15);
+        for (int trial = 0; trial < 50; trial++) {
+            int nodeCount = 1 + random.nextInt(80);
+            DijkstraGraph<Integer, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+            for (int i = 0; i < nodeCount; i++) {
+                graph.insertNode(i);
+            }
+            int edgeCount = random.nextInt(2 * nodeCount);
+            for (int i = 0; i < edgeCount; i++) {
+                graph.insertEdge(random.nextInt(nodeCount), random.nextInt(nodeCount), 1);
+            }
+
+            PrunedLandmarkIndex index = PrunedLandmarkIndex.build(graph);
+            for (int query = 0; query < 40; query++) {
+                int start = random.nextInt(nodeCount);
+                int end = random.nextInt(nodeCount);
+                double expected;
+                try {
+                    expected = graph.shortestPathCost(start, end);
+                } catch (NoSuchElementException e) {
+                    expected = -1;
+                }
+                assertEquals(expected, index.hopDistance(start, end));
+
+                int[] path = index.path(start, end);
+                if (expected < 0) {
+                    assertNull(path);
+                    continue;
+                }
+                assertEquals(expected + 1, path.length);
+                assertEquals(start, path[0]);
+                assertEquals(end, path[path.length - 1]);
+                for (int i = 0; i + 1 < path.length; i++) {
+                    assertTrue(graph.containsEdge(path[i], path[i + 1])
+                            || graph.containsEdge(path[i + 1], path[i]));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test case for the graph answering queries from a fresh index, and
+     * searching again once the graph changes.
+     */
+    @Test
+    public void testGraphUsesFreshIndex() {
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        for (String name : new String[] {"a", "b", "c", "d", "e"}) {
+            graph.insertNode(name);
+        }
+        graph.insertEdge("a", "b", 2);
+        graph.insertEdge("b", "c", 2);
+        graph.insertEdge("d", "c", 2);
+        graph.buildHopIndex();
+        assertTrue(graph.isHopIndexFresh());
+        assertEquals(List.of("a", "b", "c", "d"), graph.shortestPathData("a", "d"));
+        assertEquals(6, graph.shortestPathCost("a", "d"));
+        assertEquals(0, graph.shortestPathCost("a", "a"));
+        assertThrows(NoSuchElementException.class, () -> graph.shortestPathData("a", "e"));
+        assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost("a", "x"));
+
+        graph.insertEdge("a", "d", 2);
+        assertFalse(graph.isHopIndexFresh());
+        assertEquals(List.of("a", "d"), graph.shortestPathData("a", "d"));
+
+        // an index is not used once edge weights differ
+        graph.buildHopIndex();
+        graph.setHopIndex(graph.getHopIndex());
+        assertTrue(graph.isHopIndexFresh());
+        graph.insertEdge("a", "e", 7);
+        graph.buildHopIndex();
+        assertFalse(graph.isHopIndexFresh());
+        assertEquals(7, graph.shortestPathCost("a", "e"));
+    }
+
+    /**
+     * Test case for writing an index next to a data file, and the backend
+     * loading it along with the file only while it matches the graph.
+     */
+    @Test
+    public void testSavedNextToGraph() throws IOException {
+        Path dot = directory.resolve("socialnetwork.dot");
+        Files.copy(Paths.get("socialnetwork.dot"), dot);
+        DijkstraGraph<String, Integer> original = new DijkstraGraph<>(new OpenAddressingMap<>());
+        new DotLoader().load(dot, original);
+        PrunedLandmarkIndex index = original.buildHopIndex();
+        assertTrue(index.getMemoryBytes() > 0);
+        assertTrue(index.getBuildNanos() > 0);
+        index.write(directory.resolve("socialnetwork.dot.pll"));
+
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        Backend backend = new Backend(graph);
+        backend.readData(dot.toString());
+        assertTrue(graph.isHopIndexFresh());
+        assertEquals(index.getEntryCount(), graph.getHopIndex().getEntryCount());
+        original.setHopIndex(null);
+        assertEquals(original.shortestPathCost("user0", "user37"),
+                graph.shortestPathCost("user0", "user37"));
+        assertEquals(original.shortestPathData("user0", "user37").size(),
+                backend.getDistanceBetween("user0", "user37").numberOfIntermediaryFriends() + 2);
+
+        // an index for a different graph is loaded, but never used
+        original.insertNode("newcomer");
+        original.buildHopIndex().write(directory.resolve("socialnetwork.dot.pll"));
+        graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        new Backend(graph).readData(dot.toString());
+        assertNotNull(graph.getHopIndex());
+        assertFalse(graph.isHopIndexFresh());
+    }
+}
@@ -0,0 +1,480 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * QueryMetrics counts the shortest path queries a graph answers and the
+ * files a backend loads: how many queries there were, how much work each
+ * search did (nodes settled, heap pushes and edges relaxed), how long
+ * queries took, how often the connection cache and the distance index
+ * answered instead of a search, and how fast files were loaded.
+ *
+ * Recording sits on the path of every query, so it is striped by thread:
+ * each thread that records gets its own Recorder, an array of counters that
+ * only that thread writes to, with plain additions published through opaque
+ * stores rather than atomic instructions. Reading the metrics sums the
+ * counters of every thread. Once a thread has died, its counters are folded
+ * into a total for retired threads and its Recorder is dropped, so metrics
+ * used from a pool that keeps replacing its threads only keep a Recorder for
+ * each thread that is alive. Reading the clock costs more than a fast query
+ * itself, so only one in every timingInterval queries on each thread is
+ * timed, starting with its first, and latencies are percentiles of those
+ * queries. Latencies are kept in a histogram whose buckets split each power
+ * of two of nanoseconds into SUB_BUCKETS, so percentiles are within an
+ * eighth of the true latency.
+ *
+ * Metrics are exposed to JMX clients through QueryMetricsMXBean once
+ * registered, and as text through format.
+ */
+public class QueryMetrics implements QueryMetricsMXBean {
+
+    // by default, one in this many queries on each thread is timed
+    public static final int DEFAULT_TIMING_INTERVAL = 16;
+
+    // the number of buckets each power of two of nanoseconds is split into
+    public static final int SUB_BUCKETS = 8;
+
+    // the value start returns for a query that is not timed
+    public static final long NOT_TIMED = Long.MIN_VALUE;
+
+    // the positions of the counters in each recorder's array, with the
+    // latency histogram after them
+    private static final int SEARCHES = 0;
+    private static final int INDEX_QUERIES = 1;
+    private static final int FAILED = 2;
+    private static final int SETTLED = 3;
+    private static final int PUSHES = 4;
+    private static final int EDGES = 5;
+    private static final int TIMED = 6;
+    private static final int LOADS = 7;
+    private static final int LOADED_EDGES = 8;
+    private static final int LOAD_NANOS = 9;
+    private static final int BUCKETS = 10;
+
+    // values below 2 * SUB_BUCKETS get a bucket each, and every power of two
+    // above them up to 2^62 gets SUB_BUCKETS buckets
+    private static final int SUB_BUCKET_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+    private static final int BUCKET_COUNT = 2 * SUB_BUCKETS + (62 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private static final VarHandle COUNTS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    protected final int timingInterval;
+    protected final ThreadLocal<Recorder> recorder;
+
+    // the recorders of the threads that may still be alive, and the counters
+    // of the threads that have died, both guarded by the lock on recorders
+    protected final List<Recorder> recorders = new ArrayList<>();
+    protected final long[] retired = new long[BUCKETS + BUCKET_COUNT];
+
+    // the totals when reset was last called, which are subtracted from the
+    // totals that are read
+    protected volatile long[] baseline = new long[BUCKETS + BUCKET_COUNT];
+    protected volatile long cacheHitBaseline;
+    protected volatile long cacheMissBaseline;
+
+    protected volatile ResultCache<?, ?> connectionCache = null;
+    protected ObjectName registeredName = null;
+
+    /**
+     * A Recorder holds the counters of one thread, which only that thread
+     * writes to.
+     */
+    public class Recorder {
+
+        protected final long[] counts = new long[BUCKETS + BUCKET_COUNT];
+        // the number of queries this thread started, to choose which to time
+        protected long started = 0;
+        // the thread that records here, without keeping it from being collected
+        protected final WeakReference<Thread> owner = new WeakReference<>(Thread.currentThread());
+
+        /**
+         * Checks whether the thread that records here has died, after which
+         * its counters no longer change.
+         */
+        protected boolean isRetired() {
+            Thread thread = owner.get();
+            return thread == null || !thread.isAlive();
+        }
+
+        /**
+         * Adds to one of this thread's counters.
+         */
+        protected void add(int counter, long amount) {
+            COUNTS.setOpaque(counts, counter, counts[counter] + amount);
+        }
+
+        /**
+         * Marks the start of a query.
+         *
+         * @return the time the query started at in nanoseconds if it is
+         *         timed, or NOT_TIMED
+         */
+        public long start() {
+            return started++ % timingInterval == 0 ? System.nanoTime() : NOT_TIMED;
+        }
+
+        /**
+         * Records a query that was answered by a search.
+         *
+         * @param start the value start returned for the query
+         * @param settled the number of nodes the search settled
+         * @param pushes the number of times a node was pushed onto the
+         *        search's heap or queue, or had its cost lowered
+         * @param edges the number of edges the search relaxed
+         * @param found false if no path was found
+         */
+        public void recordSearch(long start, long settled, long pushes, long edges,
+                boolean found) {
+            add(SEARCHES, 1);
+            add(SETTLED, settled);
+            add(PUSHES, pushes);
+            add(EDGES, edges);
+            finish(start, found);
+        }
+
+        /**
+         * Records a query that was answered by the distance index.
+         *
+         * @param start the value start returned for the query
+         * @param found false if no path was found
+         */
+        public void recordIndexQuery(long start, boolean found) {
+            add(INDEX_QUERIES, 1);
+            finish(start, found);
+        }
+
+        private void finish(long start, boolean found) {
+            if (!found)
+                add(FAILED, 1);
+            if (start != NOT_TIMED) {
+                add(TIMED, 1);
+                add(BUCKETS + bucketOf(System.nanoTime() - start), 1);
+            }
+        }
+    }
+
+    /**
+     * Creates metrics that time one in every DEFAULT_TIMING_INTERVAL queries
+     * on each thread.
+     */
+    public QueryMetrics() {
+        this(DEFAULT_TIMING_INTERVAL);
+    }
+
+    /**
+     * Creates metrics that time one in every timingInterval queries on each
+     * thread.
+     *
+     * @param timingInterval the number of queries per timed query, 1 to time
+     *        every query
+     */
+    public QueryMetrics(int timingInterval) {
+        if (timingInterval < 1)
+            throw new IllegalArgumentException("timing interval must be positive");
+        this.timingInterval = timingInterval;
+        this.recorder = ThreadLocal.withInitial(() -> {
+            Recorder created = new Recorder();
+            synchronized (recorders) {
+                retireDeadThreads();
+                recorders.add(created);
+            }
+            return created;
+        });
+    }
+
+    /**
+     * Folds the counters of the threads that have died into retired, and
+     * drops their recorders. Must be called while holding the lock on
+     * recorders.
+     */
+    protected void retireDeadThreads() {
+        recorders.removeIf(each -> {
+            if (!each.isRetired())
+                return false;
+            for (int i = 0; i < retired.length; i++) {
+                retired[i] += (long) COUNTS.getOpaque(each.counts, i);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * Returns the calling thread's recorder.
+     *
+     * @return the recorder, which must only be used by the calling thread
+     */
+    public Recorder recorder() {
+        return recorder.get();
+    }
+
+    /**
+     * Records a file being loaded.
+     *
+     * @param edges the number of edges read from the file
+     * @param nanos the time it took to load, in nanoseconds
+     */
+    public void recordLoad(long edges, long nanos) {
+        Recorder current = recorder();
+        current.add(LOADS, 1);
+        current.add(LOADED_EDGES, edges);
+        current.add(LOAD_NANOS, nanos);
+    }
+
+    /**
+     * Sets the cache whose hit rate is reported along with these metrics.
+     *
+     * @param cache the cache, or null for none
+     */
+    public void setConnectionCache(ResultCache<?, ?> cache) {
+        this.connectionCache = cache;
+        if (cache != null) {
+            cacheHitBaseline = cache.getHitCount();
+            cacheMissBaseline = cache.getMissCount();
+        }
+    }
+
+    /**
+     * Returns the bucket of the latency histogram that a latency falls in.
+     *
+     * @param nanos the latency in nanoseconds
+     * @return the index of its bucket
+     */
+    protected static int bucketOf(long nanos) {
+        if (nanos < 2 * SUB_BUCKETS)
+            return (int) Math.max(nanos, 0);
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return 2 * SUB_BUCKETS + (exponent - SUB_BUCKET_BITS - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Returns the largest latency that falls in a bucket of the histogram.
+     *
+     * @param bucket the index of the bucket
+     * @return the latency in nanoseconds
+     */
+    protected static long bucketLimit(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS)
+            return bucket;
+        int exponent = (bucket - 2 * SUB_BUCKETS) / SUB_BUCKETS + SUB_BUCKET_BITS + 1;
+        long subBucket = bucket % SUB_BUCKETS;
+        int shift = exponent - SUB_BUCKET_BITS;
+        return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Sums the counters of every thread, including those that have died,
+     * less the baseline.
+     *
+     * @return the totals, indexed like a recorder's counters
+     */
+    protected long[] totals() {
+        long[] totals;
+        synchronized (recorders) {
+            retireDeadThreads();
+            totals = retired.clone();
+            for (Recorder each : recorders) {
+                for (int i = 0; i < totals.length; i++) {
+                    totals[i] += (long) COUNTS.getOpaque(each.counts, i);
+                }
+            }
+        }
+        long[] base = baseline;
+        for (int i = 0; i < totals.length; i++) {
+            totals[i] -= base[i];
+        }
+        return totals;
+    }
+
+    /**
+     * Returns a latency percentile of the timed queries.
+     *
+     * @param totals the totals to read the histogram from
+     * @param fraction the fraction of queries at least as fast, from 0 to 1
+     * @return the latency in nanoseconds, or 0 if no query was timed
+     */
+    protected static long percentile(long[] totals, double fraction) {
+        long rank = (long) Math.ceil(fraction * totals[TIMED]);
+        long seen = 0;
+        long limit = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            long count = totals[BUCKETS + bucket];
+            if (count == 0)
+                continue;
+            seen += count;
+            limit = bucketLimit(bucket);
+            if (seen >= Math.max(rank, 1))
+                break;
+        }
+        return limit;
+    }
+
+    private static double ratio(long part, long whole) {
+        return whole == 0 ? 0 : (double) part / whole;
+    }
+
+    @Override
+    public long getQueryCount() {
+        long[] totals = totals();
+        return totals[SEARCHES] + totals[INDEX_QUERIES];
+    }
+
+    @Override
+    public long getFailedQueryCount() {
+        return totals()[FAILED];
+    }
+
+    @Override
+    public long getIndexQueryCount() {
+        return totals()[INDEX_QUERIES];
+    }
+
+    @Override
+    public double getAverageSettledNodes() {
+        long[] totals = totals();
+        return ratio(totals[SETTLED], totals[SEARCHES]);
+    }
+
+    @Override
+    public double getAverageHeapPushes() {
+        long[] totals = totals();
+        return ratio(totals[PUSHES], totals[SEARCHES]);
+    }
+
+    @Override
+    public double getAverageEdgesRelaxed() {
+        long[] totals = totals();
+        return ratio(totals[EDGES], totals[SEARCHES]);
+    }
+
+    @Override
+    public double getLatencyP50Micros() {
+        return percentile(totals(), 0.5) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP90Micros() {
+        return percentile(totals(), 0.9) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP99Micros() {
+        return percentile(totals(), 0.99) / 1e3;
+    }
+
+    @Override
+    public double getLatencyP999Micros() {
+        return percentile(totals(), 0.999) / 1e3;
+    }
+
+    @Override
+    public double getMaxLatencyMicros() {
+        return percentile(totals(), 1) / 1e3;
+    }
+
+    @Override
+    public double getCacheHitRate() {
+        ResultCache<?, ?> cache = connectionCache;
+        if (cache == null)
+            return 0;
+        long hits = cache.getHitCount() - cacheHitBaseline;
+        return ratio(hits, hits + cache.getMissCount() - cacheMissBaseline);
+    }
+
+    @Override
+    public long getLoadCount() {
+        return totals()[LOADS];
+    }
+
+    @Override
+    public long getLoadedEdgeCount() {
+        return totals()[LOADED_EDGES];
+    }
+
+    @Override
+    public double getLoadEdgesPerSecond() {
+        long[] totals = totals();
+        return ratio(totals[LOADED_EDGES], totals[LOAD_NANOS]) * 1e9;
+    }
+
+    /**
+     * Starts counting again from zero.
+     */
+    @Override
+    public synchronized void reset() {
+        long[] totals = totals();
+        long[] base = baseline.clone();
+        for (int i = 0; i < totals.length; i++) {
+            base[i] += totals[i];
+        }
+        baseline = base;
+        setConnectionCache(connectionCache);
+    }
+
+    /**
+     * Registers these metrics with the platform MBean server, so that JMX
+     * clients can read them.
+     *
+     * @param name the name to register under, as the name key of an object
+     *        name of type QueryMetrics
+     * @return the object name the metrics were registered under
+     * @throws JMException if the name is taken or invalid
+     */
+    public synchronized ObjectName register(String name) throws JMException {
+        ObjectName objectName = new ObjectName("socialnetwork:type=QueryMetrics,name="
+                + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        registeredName = objectName;
+        return objectName;
+    }
+
+    /**
+     * Removes these metrics from the platform MBean server, if registered.
+     *
+     * @throws JMException if they cannot be removed
+     */
+    public synchronized void unregister() throws JMException {
+        if (registeredName != null) {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredName);
+            registeredName = null;
+        }
+    }
+
+    /**
+     * Returns the metrics as text, one group of them per line.
+     *
+     * @return the text
+     */
+    public String format() {
+        long[] totals = totals();
+        long searches = totals[SEARCHES];
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("Queries: %d (%d without a path, %d answered by the distance index)%n",
+                searches + totals[INDEX_QUERIES], totals[FAILED], totals[INDEX_QUERIES]));
+        text.append(String.format("Per search: %.1f nodes settled, %.1f heap pushes, %.1f edges relaxed%n",
+                ratio(totals[SETTLED], searches), ratio(totals[PUSHES], searches),
+                ratio(totals[EDGES], searches)));
+        text.append(String.format("Latency (us, %d timed): p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+                totals[TIMED], percentile(totals, 0.5) / 1e3, percentile(totals, 0.9) / 1e3,
+                percentile(totals, 0.99) / 1e3, percentile(totals, 0.999) / 1e3,
+                percentile(totals, 1) / 1e3));
+        if (connectionCache != null) {
+            text.append(String.format("Connection cache hit rate: %.1f%%%n", 100 * getCacheHitRate()));
+        }
+        text.append(String.format("Loads: %d, %d edges in %.1f ms (%.0f edges/s)",
+                totals[LOADS], totals[LOADED_EDGES], totals[LOAD_NANOS] / 1e6,
+                ratio(totals[LOADED_EDGES], totals[LOAD_NANOS]) * 1e9));
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return format();
+    }
+}
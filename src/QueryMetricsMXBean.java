@@ -0,0 +1,39 @@
+/**
+ * The management interface of QueryMetrics, through which JMX clients such
+ * as jconsole can watch the queries a backend answers and the files it
+ * loads. Latencies are in microseconds.
+ */
+public interface QueryMetricsMXBean {
+
+    public long getQueryCount();
+
+    public long getFailedQueryCount();
+
+    public long getIndexQueryCount();
+
+    public double getAverageSettledNodes();
+
+    public double getAverageHeapPushes();
+
+    public double getAverageEdgesRelaxed();
+
+    public double getLatencyP50Micros();
+
+    public double getLatencyP90Micros();
+
+    public double getLatencyP99Micros();
+
+    public double getLatencyP999Micros();
+
+    public double getMaxLatencyMicros();
+
+    public double getCacheHitRate();
+
+    public long getLoadCount();
+
+    public long getLoadedEdgeCount();
+
+    public double getLoadEdgesPerSecond();
+
+    public void reset();
+}
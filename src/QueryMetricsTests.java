@@ -0,0 +1,146 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.junit.jupiter.api.Test;
+
+public class QueryMetricsTests {
+
+    /**
+     * Test case for latency percentiles falling in the right buckets of the
+     * histogram, within an eighth of the recorded latencies.
+     */
+    @Test
+    public void testBuckets() {
+        for (long nanos = 0; nanos < 1L << 40; nanos = nanos * 3 / 2 + 1) {
+            int bucket = QueryMetrics.bucketOf(nanos);
+            assertTrue(QueryMetrics.bucketLimit(bucket) >= nanos);
+            assertTrue(bucket == 0 || QueryMetrics.bucketLimit(bucket - 1) < nanos);
+            assertTrue(QueryMetrics.bucketLimit(bucket) <= nanos + nanos / 8);
+        }
+        assertEquals(Long.MAX_VALUE,
+                QueryMetrics.bucketLimit(QueryMetrics.bucketOf(Long.MAX_VALUE)));
+
+        QueryMetrics metrics = new QueryMetrics(1);
+        QueryMetrics.Recorder recorder = metrics.recorder();
+        for (int i = 1; i <= 1000; i++) {
+            // record a query that took i microseconds
+            recorder.recordIndexQuery(System.nanoTime() - i * 1000L, true);
+        }
+        assertEquals(1000, metrics.getQueryCount());
+        assertEquals(500, metrics.getLatencyP50Micros(), 500 / 8.0 + 1);
+        assertEquals(990, metrics.getLatencyP99Micros(), 990 / 8.0 + 1);
+        assertTrue(metrics.getMaxLatencyMicros() >= 1000);
+    }
+
+    /**
+     * Test case for the backend recording the queries it answers, on every
+     * thread, the work of their searches and the files it loads.
+     */
+    @Test
+    public void testBackendRecordsQueries() throws Exception {
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        Backend backend = new Backend(graph);
+        backend.readData("socialnetwork.dot");
+        QueryMetrics metrics = backend.getQueryMetrics();
+        assertSame(metrics, graph.getQueryMetrics());
+        assertEquals(1, metrics.getLoadCount());
+        assertEquals(345 - 2, metrics.getLoadedEdgeCount());
+        assertTrue(metrics.getLoadEdgesPerSecond() > 0);
+
+        backend.getDistanceBetween("user0", "user99");
+        backend.getDistanceBetween("user99", "user0");
+        assertThrows(NoSuchElementException.class, () -> backend.getDistanceBetween("user0", "nobody"));
+        // the second query is answered by the cache, and the third misses it
+        // but names someone who is not in the graph, so it is not searched
+        assertEquals(1, metrics.getQueryCount());
+        assertEquals(1 / 3.0, metrics.getCacheHitRate());
+        assertEquals(graph.getLastSettledCount(), metrics.getAverageSettledNodes());
+        assertTrue(metrics.getAverageHeapPushes() >= metrics.getAverageSettledNodes());
+        assertTrue(metrics.getAverageEdgesRelaxed() >= metrics.getAverageSettledNodes());
+
+        graph.insertNode("loner");
+        assertThrows(NoSuchElementException.class, () -> graph.shortestPathData("user0", "loner"));
+        List<Map.Entry<String, String>> pairs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            pairs.add(Map.entry("user" + (i % 100), "user" + (99 - i % 100)));
+        }
+        backend.getDistancesBetween(pairs);
+        assertEquals(202, metrics.getQueryCount());
+        assertEquals(1, metrics.getFailedQueryCount());
+
+        graph.buildHopIndex();
+        graph.shortestPathCost("user0", "user99");
+        assertEquals(1, metrics.getIndexQueryCount());
+        assertEquals(203, metrics.getQueryCount());
+        assertTrue(backend.getMetrics().startsWith(
+                "Queries: 203 (1 without a path, 1 answered by the distance index)"));
+
+        metrics.reset();
+        assertEquals(0, metrics.getQueryCount());
+        assertEquals(0, metrics.getLoadCount());
+        assertEquals(0, metrics.getCacheHitRate());
+        graph.shortestPathCost("user0", "user99");
+        assertEquals(1, metrics.getQueryCount());
+    }
+
+    /**
+     * Test case for the counters of threads that have died being kept, while
+     * their recorders are dropped.
+     */
+    @Test
+    public void testDeadThreadsAreRetired() throws InterruptedException {
+        QueryMetrics metrics = new QueryMetrics(1);
+        metrics.recorder().recordSearch(QueryMetrics.NOT_TIMED, 1, 1, 1, true);
+        for (int i = 0; i < 100; i++) {
+            Thread thread = new Thread(() -> {
+                QueryMetrics.Recorder recorder = metrics.recorder();
+                recorder.recordSearch(recorder.start(), 10, 12, 30, false);
+                metrics.recordLoad(5, 1000);
+            });
+            thread.start();
+            thread.join();
+        }
+        assertEquals(101, metrics.getQueryCount());
+        assertEquals(100, metrics.getFailedQueryCount());
+        assertEquals((1 + 100 * 10) / 101.0, metrics.getAverageSettledNodes(), 1e-9);
+        assertEquals(500, metrics.getLoadedEdgeCount());
+        assertTrue(metrics.getMaxLatencyMicros() > 0);
+        synchronized (metrics.recorders) {
+            // only this thread is still alive
+            assertEquals(1, metrics.recorders.size());
+        }
+
+        metrics.reset();
+        assertEquals(0, metrics.getQueryCount());
+        metrics.recorder().recordSearch(QueryMetrics.NOT_TIMED, 1, 1, 1, true);
+        assertEquals(1, metrics.getQueryCount());
+    }
+
+    /**
+     * Test case for reading the metrics over JMX.
+     */
+    @Test
+    public void testRegister() throws JMException {
+        QueryMetrics metrics = new QueryMetrics();
+        metrics.recorder().recordSearch(QueryMetrics.NOT_TIMED, 10, 12, 30, true);
+        ObjectName name = metrics.register("tests");
+        try {
+            assertEquals(1L, ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(name, "QueryCount"));
+            assertEquals(30.0, ManagementFactory.getPlatformMBeanServer()
+                    .getAttribute(name, "AverageEdgesRelaxed"));
+            assertThrows(JMException.class, () -> new QueryMetrics().register("tests"));
+        } finally {
+            metrics.unregister();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+}
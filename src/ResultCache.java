@@ -0,0 +1,255 @@
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A ResultCache remembers the values computed for a bounded number of keys,
+ * so that repeated requests for the same key can skip recomputing them. When
+ * the cache is full, its EvictionPolicy decides which key to give up:
+ *
+ * LRU evicts the least recently used key.
+ *
+ * WINDOW_TINY_LFU first places new keys in a small LRU window. Keys pushed
+ * out of the window only displace the least recently used key of the main
+ * cache if they have been requested more often, according to a compact
+ * frequency sketch of recent requests. This keeps a burst of one-off
+ * requests from flushing out keys that are requested over and over.
+ *
+ * Every method is synchronized, so a cache can be shared between threads.
+ */
+public class ResultCache<KeyType, ValueType> {
+
+    /**
+     * The strategies a ResultCache can use to choose which key to evict.
+     */
+    public enum EvictionPolicy {
+        /** evict the least recently used key */
+        LRU,
+        /** admit keys from a small LRU window based on their frequency */
+        WINDOW_TINY_LFU
+    }
+
+    protected int capacity;
+    protected EvictionPolicy policy;
+
+    // LinkedHashMaps in access order iterate from least to most recently used
+    protected LinkedHashMap<KeyType, ValueType> window = new LinkedHashMap<>(16, 0.75f, true);
+    protected LinkedHashMap<KeyType, ValueType> main = new LinkedHashMap<>(16, 0.75f, true);
+    protected int windowCapacity;
+    protected FrequencySketch sketch;
+
+    protected long hitCount = 0;
+    protected long missCount = 0;
+    protected long evictionCount = 0;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity the largest number of keys the cache will hold
+     * @param policy the strategy for choosing which key to evict
+     */
+    public ResultCache(int capacity, EvictionPolicy policy) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("capacity must be positive");
+        if (policy == null)
+            throw new NullPointerException("eviction policy cannot be null");
+        this.capacity = capacity;
+        this.policy = policy;
+        if (policy == EvictionPolicy.WINDOW_TINY_LFU) {
+            // the window holds about 1% of the keys, as in W-TinyLFU
+            windowCapacity = Math.max(1, capacity / 100);
+            sketch = new FrequencySketch(capacity);
+        }
+    }
+
+    /**
+     * Retrieves the value cached for a key, and counts a hit or a miss.
+     *
+     * @param key the key to look up
+     * @return the cached value, or null if the key is not cached
+     */
+    public synchronized ValueType get(KeyType key) {
+        if (sketch != null)
+            sketch.increment(key);
+        ValueType value = main.get(key);
+        if (value == null)
+            value = window.get(key);
+        if (value == null)
+            missCount++;
+        else
+            hitCount++;
+        return value;
+    }
+
+    /**
+     * Caches the value computed for a key, evicting another key if the cache
+     * is full. Under WINDOW_TINY_LFU the key may end up not being admitted.
+     *
+     * @param key the key the value was computed for
+     * @param value the value to cache
+     */
+    public synchronized void put(KeyType key, ValueType value) {
+        if (key == null || value == null)
+            throw new NullPointerException("null keys and values not allowed");
+        if (main.containsKey(key)) {
+            main.put(key, value);
+            return;
+        }
+        if (policy == EvictionPolicy.LRU) {
+            main.put(key, value);
+            if (main.size() > capacity)
+                evictEldest(main);
+            return;
+        }
+
+        window.put(key, value);
+        if (window.size() <= windowCapacity)
+            return;
+        // move the window's least recently used key towards the main cache
+        Iterator<Map.Entry<KeyType, ValueType>> oldest = window.entrySet().iterator();
+        Map.Entry<KeyType, ValueType> candidate = oldest.next();
+        oldest.remove();
+        if (main.size() < capacity - windowCapacity) {
+            main.put(candidate.getKey(), candidate.getValue());
+            return;
+        }
+        if (main.isEmpty()) {
+            evictionCount++; // the window is the whole cache
+            return;
+        }
+        KeyType victim = main.keySet().iterator().next();
+        if (sketch.frequency(candidate.getKey()) > sketch.frequency(victim)) {
+            main.remove(victim);
+            main.put(candidate.getKey(), candidate.getValue());
+        }
+        evictionCount++;
+    }
+
+    /**
+     * Removes every key from the cache. The hit and miss counts are kept.
+     */
+    public synchronized void clear() {
+        window.clear();
+        main.clear();
+    }
+
+    /**
+     * Retrieves the number of keys in the cache.
+     *
+     * @return the number of cached keys
+     */
+    public synchronized int getSize() {
+        return window.size() + main.size();
+    }
+
+    /**
+     * Retrieves the largest number of keys the cache will hold.
+     *
+     * @return the capacity of the cache
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Retrieves the number of calls to get that found a cached value.
+     *
+     * @return the number of cache hits
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Retrieves the number of calls to get that found no cached value.
+     *
+     * @return the number of cache misses
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Retrieves the number of keys that were evicted or not admitted.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Retrieves the fraction of calls to get that found a cached value.
+     *
+     * @return the hit rate, or 0 if get was never called
+     */
+    public synchronized double getHitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Removes the least recently used key of a map.
+     *
+     * @param map the map to evict from
+     */
+    protected void evictEldest(LinkedHashMap<KeyType, ValueType> map) {
+        Iterator<KeyType> eldest = map.keySet().iterator();
+        eldest.next();
+        eldest.remove();
+        evictionCount++;
+    }
+
+    /**
+     * A FrequencySketch estimates how often each key was requested recently,
+     * in the manner of a count-min sketch: every key increments one counter
+     * in each of four rows, and its estimate is the smallest of those
+     * counters. Counters saturate at 15, and once ten times as many
+     * increments as the cache's capacity have been counted, every counter is
+     * halved so that old requests fade away.
+     */
+    protected static class FrequencySketch {
+
+        private static final int[] SEEDS = {0x97CB3127, 0xB492B66F, 0x9AE16A3B, 0xC2B2AE35};
+
+        protected byte[][] counters;
+        protected int mask;
+        protected int additions = 0;
+        protected int sampleSize;
+
+        public FrequencySketch(int capacity) {
+            int width = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1;
+            counters = new byte[SEEDS.length][width];
+            mask = width - 1;
+            sampleSize = 10 * Math.max(16, capacity);
+        }
+
+        public void increment(Object key) {
+            int hash = key.hashCode();
+            for (int row = 0; row < SEEDS.length; row++) {
+                int column = index(hash, row);
+                if (counters[row][column] < 15)
+                    counters[row][column]++;
+            }
+            if (++additions == sampleSize) {
+                for (byte[] row : counters)
+                    for (int column = 0; column < row.length; column++)
+                        row[column] >>= 1;
+                additions /= 2;
+            }
+        }
+
+        public int frequency(Object key) {
+            int hash = key.hashCode();
+            int frequency = Integer.MAX_VALUE;
+            for (int row = 0; row < SEEDS.length; row++)
+                frequency = Math.min(frequency, counters[row][index(hash, row)]);
+            return frequency;
+        }
+
+        private int index(int hash, int row) {
+            int h = (hash ^ SEEDS[row]) * SEEDS[row];
+            return (h ^ (h >>> 16)) & mask;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+public class ResultCacheTests {
+
+    /**
+     * Test case for an LRU cache evicting its least recently used key, where
+     * reading a key counts as using it, and for its hit, miss and eviction
+     * counts.
+     */
+    @Test
+    public void testLruEvictionOrder() {
+        ResultCache<String, Integer> cache = new ResultCache<>(3, ResultCache.EvictionPolicy.LRU);
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        assertEquals(1, cache.get("a"));
+        cache.put("d", 4);
+        assertNull(cache.get("b"));
+        assertEquals(3, cache.get("c"));
+        cache.put("e", 5);
+        assertNull(cache.get("a"));
+        assertEquals(4, cache.get("d"));
+        assertEquals(5, cache.get("e"));
+        cache.put("e", 6);
+        assertEquals(6, cache.get("e"));
+
+        assertEquals(3, cache.getSize());
+        assertEquals(5, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+        assertEquals(2, cache.getEvictionCount());
+        assertEquals(5 / 7.0, cache.getHitRate(), 1e-12);
+        cache.clear();
+        assertEquals(0, cache.getSize());
+        assertEquals(5, cache.getHitCount());
+        assertThrows(IllegalArgumentException.class,
+                () -> new ResultCache<String, Integer>(0, ResultCache.EvictionPolicy.LRU));
+        assertThrows(NullPointerException.class, () -> cache.put("a", null));
+    }
+
+    /**
+     * Test case for a key that is requested over and over surviving a scan
+     * of one-off keys under W-TinyLFU, which flushes it out of an LRU cache
+     * of the same size, and for new keys passing through the window before
+     * they reach the main cache.
+     */
+    @Test
+    public void testPopularKeySurvivesScan() {
+        for (ResultCache.EvictionPolicy policy : ResultCache.EvictionPolicy.values()) {
+            ResultCache<String, Integer> cache = new ResultCache<>(100, policy);
+            for (int i = 0; i < 10; i++) {
+                if (cache.get("popular") == null)
+                    cache.put("popular", 0);
+            }
+            for (int i = 0; i < 1000; i++) {
+                String key = "scan" + i;
+                assertNull(cache.get(key));
+                cache.put(key, i);
+            }
+            assertTrue(cache.getSize() <= cache.getCapacity());
+            if (policy == ResultCache.EvictionPolicy.LRU) {
+                assertNull(cache.get("popular"));
+            } else {
+                assertEquals(0, cache.get("popular"));
+                // the window holds the most recent key even when the main
+                // cache does not admit it
+                assertEquals(999, cache.get("scan999"));
+                assertTrue(cache.window.containsKey("scan999"));
+                assertTrue(cache.main.containsKey("popular"));
+            }
+        }
+    }
+
+    /**
+     * Test case for the frequency sketch saturating its counters at 15 and
+     * halving them once it has counted ten times the capacity of requests.
+     */
+    @Test
+    public void testSketchAging() {
+        ResultCache.FrequencySketch sketch = new ResultCache.FrequencySketch(1000);
+        for (int i = 0; i < 20; i++)
+            sketch.increment("hot");
+        assertEquals(15, sketch.frequency("hot"));
+        assertEquals(0, sketch.frequency("cold"));
+
+        // the 10000th increment halves every counter
+        for (int i = 20; i < 9999; i++)
+            sketch.increment(i);
+        assertEquals(15, sketch.frequency("hot"));
+        sketch.increment(-1);
+        assertEquals(7, sketch.frequency("hot"));
+        assertEquals(5000, sketch.additions);
+    }
+
+    /**
+     * Test case for the backend emptying its connection cache once the
+     * graph has changed, so that it never answers with a path computed
+     * before the change.
+     */
+    @Test
+    public void testBackendInvalidatesOnVersionChange() throws IOException {
+        DijkstraGraph<String, Integer> graph = new DijkstraGraph<>(new OpenAddressingMap<>());
+        Backend backend = new Backend(graph, 100, ResultCache.EvictionPolicy.LRU);
+        backend.readData("socialnetwork.dot");
+        ResultCache<?, ?> cache = backend.getConnectionCache();
+
+        int hops = backend.getDistanceBetween("user13", "user99").numberOfIntermediaryFriends();
+        backend.getDistanceBetween("user99", "user13");
+        backend.getDistanceBetween("user1", "user2");
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getHitCount());
+
+        graph.insertEdge("user13", "user99", 1);
+        assertEquals(0, backend.getDistanceBetween("user13", "user99").numberOfIntermediaryFriends());
+        assertTrue(hops > 0);
+        assertEquals(1, cache.getSize());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+}
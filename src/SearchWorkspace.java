@@ -0,0 +1,106 @@
+import java.util.Arrays;
+
+/**
+ * A SearchWorkspace holds the per-node arrays that one side of a shortest
+ * path search writes to: the cost of the best path found to each node, the
+ * node before it on that path, a queue of node ids for breadth first
+ * searches, and an IndexedDaryHeap for Dijkstra's algorithm. All of them are
+ * indexed by node id.
+ *
+ * A workspace is meant to be reused by every search one thread runs, so that
+ * steady state searches allocate nothing. Instead of clearing its arrays
+ * between searches, a workspace stamps each node it reaches with the epoch
+ * of the current search, and nodes stamped by earlier searches are treated as
+ * unreached. Starting a new search therefore costs the same no matter how
+ * many nodes the graph has. A workspace must not be shared between threads.
+ */
+public class SearchWorkspace {
+
+    public double[] costs = new double[0];
+    public int[] predecessors = new int[0];
+    public int[] queue = new int[0];
+    public IndexedDaryHeap heap = new IndexedDaryHeap(0);
+
+    // the epoch of the search that last reached each node
+    protected int[] stamps = new int[0];
+    protected int epoch = 0;
+
+    // The node where the path found by the last search ends on this side.
+    // When partner is not null, the path continues from there through the
+    // predecessors recorded in partner, which searched from the other end.
+    public int meeting = -1;
+    public SearchWorkspace partner = null;
+
+    // the number of nodes the last search settled on this side, meaning
+    // that it expanded their edges
+    public int settledCount = 0;
+    // the number of times the last search reached a node or lowered its
+    // cost, each of which pushes the node onto the heap or the queue
+    public int reachedCount = 0;
+    // the number of edges of the nodes the last search settled on this side
+    public long relaxedCount = 0;
+
+    /**
+     * Prepares this workspace for a new search over a graph whose node ids
+     * are all below nodeCount, so that no node is reached.
+     *
+     * @param nodeCount one more than the largest node id in the graph
+     */
+    public void reset(int nodeCount) {
+        if (stamps.length < nodeCount) {
+            int capacity = Math.max(nodeCount, stamps.length + stamps.length / 2);
+            costs = new double[capacity];
+            predecessors = new int[capacity];
+            queue = new int[capacity];
+            stamps = new int[capacity];
+            epoch = 0;
+        }
+        heap.clear();
+        heap.ensureCapacity(stamps.length);
+        meeting = -1;
+        partner = null;
+        settledCount = 0;
+        reachedCount = 0;
+        relaxedCount = 0;
+        if (++epoch == Integer.MAX_VALUE) {
+            // restart numbering epochs once they run out
+            Arrays.fill(stamps, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * Checks whether the current search has reached a node.
+     *
+     * @param id the id of the node
+     * @return true if reach was called for that node since the last reset
+     */
+    public boolean isReached(int id) {
+        return stamps[id] == epoch;
+    }
+
+    /**
+     * Returns the cost of the best path the current search found to a node.
+     *
+     * @param id the id of the node
+     * @return the cost of that path, or infinity if the node was not reached
+     */
+    public double getCost(int id) {
+        return stamps[id] == epoch ? costs[id] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Records a new best path to a node.
+     *
+     * @param id the id of the node
+     * @param cost the cost of the path
+     * @param predecessor the id of the node before it on the path, or -1 if
+     *        the path begins at this node
+     */
+    public void reach(int id, double cost, int predecessor) {
+        stamps[id] = epoch;
+        reachedCount++;
+        costs[id] = cost;
+        predecessors[id] = predecessor;
+    }
+}
@@ -0,0 +1,531 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A SocialGraphGenerator produces synthetic social networks that are much
+ * larger than the sample network, to test and measure the graph at scale.
+ * People are named user0, user1 and so on, as in the sample network, and
+ * every friendship has weight 1.
+ *
+ * Networks are produced one person at a time, in order, as the friendships
+ * from that person to others, and are streamed straight to a DOT file, a
+ * snapshot or a graph. Every random choice is made by hashing the seed with
+ * the person and the choice being made, rather than by drawing from a
+ * random number generator, so the same seed always produces the same
+ * network, and producing one takes a constant amount of memory however many
+ * edges it has, aside from the friendships of the person being produced.
+ *
+ * Three models are available: preferential attachment (Barabasi and
+ * Albert), where a few people collect most of the friendships; small worlds
+ * (Watts and Strogatz), where people are mostly friends with their
+ * neighbors in a ring, with a few friendships to anyone; and communities
+ * with a power law degree distribution, where most friendships fall within
+ * a group of people.
+ */
+public abstract class SocialGraphGenerator {
+
+    // the number of edges inserted into a graph at once
+    private static final int EDGE_BATCH_SIZE = 1 << 16;
+
+    protected final int nodeCount;
+    protected final long seed;
+
+    // the friendships of the person produced last, as the ids of the other
+    // people, in increasing order and without repeats or self loops
+    protected int[] friends = new int[16];
+    protected int friendCount;
+
+    /**
+     * Creates a generator for a network of nodeCount people.
+     *
+     * @param nodeCount the number of people in the network
+     * @param seed the seed that every random choice is made from
+     */
+    protected SocialGraphGenerator(int nodeCount, long seed) {
+        if (nodeCount < 0)
+            throw new IllegalArgumentException("node count must not be negative");
+        this.nodeCount = nodeCount;
+        this.seed = seed;
+    }
+
+    /**
+     * Creates a generator for a preferential attachment network, where each
+     * person in turn makes friends with edgesPerNode of the people before
+     * them, chosen in proportion to the number of friends they already have.
+     * This is the Barabasi-Albert model, and its degrees follow a power law
+     * with exponent 3.
+     *
+     * A person's friends are chosen by picking a random end of one of the
+     * friendships made before theirs: its first end is known from its
+     * position, and its second end is found by repeating the choice that
+     * made it, so no list of friendships is kept (Sanders and Schulz,
+     * "Scalable generation of scale-free graphs"). Repeated friendships and
+     * self loops that this picks are dropped.
+     *
+     * @param nodeCount the number of people in the network
+     * @param edgesPerNode the number of friends each person makes on joining
+     * @param seed the seed that every random choice is made from
+     * @return the generator
+     */
+    public static SocialGraphGenerator barabasiAlbert(int nodeCount, int edgesPerNode, long seed) {
+        return new PreferentialAttachment(nodeCount, edgesPerNode, seed);
+    }
+
+    /**
+     * Creates a generator for a small world network, where people stand in
+     * a ring and each is friends with the neighbors/2 people that follow
+     * them, except that each of those friendships is replaced, with
+     * probability rewiring, by one to a person chosen at random. This is the
+     * Watts-Strogatz model.
+     *
+     * @param nodeCount the number of people in the network
+     * @param neighbors the number of friends each person has in the ring
+     * @param rewiring the probability that each friendship is replaced
+     * @param seed the seed that every random choice is made from
+     * @return the generator
+     */
+    public static SocialGraphGenerator wattsStrogatz(int nodeCount, int neighbors,
+            double rewiring, long seed) {
+        return new SmallWorld(nodeCount, neighbors, rewiring, seed);
+    }
+
+    /**
+     * Creates a generator for a network of communities, where the number of
+     * friends of each person follows a power law with the given exponent,
+     * and a fraction mixing of each person's friends are chosen from anyone,
+     * while the rest are chosen from within their community. Communities
+     * are consecutive ranges of people whose sizes also follow a power law,
+     * from ten to fifty times the smallest degree.
+     *
+     * @param nodeCount the number of people in the network
+     * @param averageDegree the average number of friends of each person
+     * @param exponent the exponent of the degree distribution, above 2
+     * @param mixing the fraction of friends chosen outside the community
+     * @param seed the seed that every random choice is made from
+     * @return the generator
+     */
+    public static SocialGraphGenerator communities(int nodeCount, double averageDegree,
+            double exponent, double mixing, long seed) {
+        return new Communities(nodeCount, averageDegree, exponent, mixing, seed);
+    }
+
+    /**
+     * Produces the friendships of a person into friends and friendCount,
+     * in any order and possibly with repeats and self loops. People are
+     * always produced in order, starting from 0, so a generator can keep
+     * state from one person to the next.
+     *
+     * @param node the id of the person
+     */
+    protected abstract void generate(int node);
+
+    /**
+     * Returns the number of people in the network.
+     *
+     * @return the number of people
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the name of a person.
+     *
+     * @param node the id of the person
+     * @return the person's name
+     */
+    public String name(int node) {
+        return "user" + node;
+    }
+
+    /**
+     * Adds a friend to the friendships of the person being produced.
+     *
+     * @param friend the id of the friend
+     */
+    protected void addFriend(int friend) {
+        if (friendCount == friends.length)
+            friends = Arrays.copyOf(friends, friends.length * 2);
+        friends[friendCount++] = friend;
+    }
+
+    /**
+     * Produces the friendships of a person, and sorts them, dropping repeats
+     * and self loops.
+     *
+     * @param node the id of the person
+     */
+    protected void produce(int node) {
+        friendCount = 0;
+        generate(node);
+        Arrays.sort(friends, 0, friendCount);
+        int kept = 0;
+        for (int i = 0; i < friendCount; i++) {
+            if (friends[i] != node && (kept == 0 || friends[kept - 1] != friends[i]))
+                friends[kept++] = friends[i];
+        }
+        friendCount = kept;
+    }
+
+    /**
+     * Counts the friendships in the network, by producing all of them.
+     *
+     * @return the number of edges
+     */
+    public long countEdges() {
+        long edgeCount = 0;
+        for (int node = 0; node < nodeCount; node++) {
+            produce(node);
+            edgeCount += friendCount;
+        }
+        return edgeCount;
+    }
+
+    /**
+     * Writes the network to a DOT file, replacing the file if it exists.
+     *
+     * @param file the DOT file to write
+     * @return the number of edges written
+     * @throws IOException if the file cannot be written
+     */
+    public long writeDot(Path file) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file)) {
+            return writeDot(out);
+        }
+    }
+
+    /**
+     * Writes the network in DOT to a writer.
+     *
+     * @param out the writer to write to
+     * @return the number of edges written
+     * @throws IOException if the writer cannot be written to
+     */
+    public long writeDot(Writer out) throws IOException {
+        long edgeCount = 0;
+        out.write("graph socialnetwork {\n");
+        for (int node = 0; node < nodeCount; node++) {
+            produce(node);
+            if (friendCount == 0) {
+                // name people without friendships of their own, so they
+                // are in the graph even if no one chooses them
+                out.write("    \"user");
+                out.write(Integer.toString(node));
+                out.write("\";\n");
+            }
+            for (int i = 0; i < friendCount; i++) {
+                out.write("    \"user");
+                out.write(Integer.toString(node));
+                out.write("\" -- \"user");
+                out.write(Integer.toString(friends[i]));
+                out.write("\";\n");
+            }
+            edgeCount += friendCount;
+        }
+        out.write("}\n");
+        return edgeCount;
+    }
+
+    /**
+     * Writes the network to a snapshot file, replacing the file if it
+     * exists. The network is produced twice, first to count its edges for
+     * the snapshot's header.
+     *
+     * @param file the snapshot file to write
+     * @return the number of edges written
+     * @throws IOException if the network has too many edges for a snapshot,
+     *         or the file cannot be written
+     */
+    public long writeSnapshot(Path file) throws IOException {
+        long edgeCount = countEdges();
+        if (edgeCount > Integer.MAX_VALUE)
+            throw new IOException(edgeCount + " edges are too many for a snapshot");
+        try (GraphSnapshot.Writer out = new GraphSnapshot.Writer(file,
+                GraphSnapshot.WEIGHTS_INT, nodeCount, (int) edgeCount)) {
+            for (int node = 0; node < nodeCount; node++) {
+                out.writeNode(name(node));
+            }
+            Integer weight = 1;
+            for (int node = 0; node < nodeCount; node++) {
+                produce(node);
+                out.writeAdjacency(friendCount);
+                for (int i = 0; i < friendCount; i++) {
+                    out.writeEdge(friends[i], weight);
+                }
+            }
+        }
+        return edgeCount;
+    }
+
+    /**
+     * Inserts the network into a graph, in batches of edges.
+     *
+     * @param graph the graph to insert the people and friendships into
+     * @return the number of edges inserted
+     */
+    public long insertInto(GraphADT<String, Integer> graph) {
+        graph.insertNodes(new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return name(index);
+            }
+
+            @Override
+            public int size() {
+                return nodeCount;
+            }
+        });
+        long edgeCount = 0;
+        List<WeightedEdge<String, Integer>> batch = new ArrayList<>(EDGE_BATCH_SIZE);
+        for (int node = 0; node < nodeCount; node++) {
+            produce(node);
+            String name = name(node);
+            for (int i = 0; i < friendCount; i++) {
+                batch.add(new WeightedEdge<>(name, name(friends[i]), 1));
+                if (batch.size() == EDGE_BATCH_SIZE) {
+                    graph.insertEdges(batch);
+                    batch.clear();
+                }
+            }
+            edgeCount += friendCount;
+        }
+        graph.insertEdges(batch);
+        return edgeCount;
+    }
+
+    /**
+     * Returns a random 64 bit number for a choice, by hashing the seed with
+     * the two numbers that identify the choice.
+     *
+     * @param first the first number identifying the choice
+     * @param second the second number identifying the choice
+     * @return the random number
+     */
+    protected long random(long first, long second) {
+        return mix(seed + mix(first * 0x9E3779B97F4A7C15L + second));
+    }
+
+    /**
+     * Mixes the bits of a number, with the finalizer of SplitMix64.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Scales a random number to a number from 0 up to, but not including,
+     * bound.
+     *
+     * @param random the random number
+     * @param bound the positive bound, below 2^62
+     * @return the scaled number
+     */
+    protected static long below(long random, long bound) {
+        return Math.multiplyHigh(random >>> 1, bound << 1);
+    }
+
+    /**
+     * Scales a random number to a fraction from 0 up to, but not including,
+     * 1.
+     *
+     * @param random the random number
+     * @return the fraction
+     */
+    protected static double fraction(long random) {
+        return (random >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * A generator for the Barabasi-Albert model. Friendship e, counting from
+     * 0, is made by person e / edgesPerNode + 1 on joining, and its other
+     * end is a random end of one of the friendships 0 to e - 1.
+     */
+    protected static class PreferentialAttachment extends SocialGraphGenerator {
+
+        protected final int edgesPerNode;
+
+        protected PreferentialAttachment(int nodeCount, int edgesPerNode, long seed) {
+            super(nodeCount, seed);
+            if (edgesPerNode < 1)
+                throw new IllegalArgumentException("edges per node must be positive");
+            this.edgesPerNode = edgesPerNode;
+        }
+
+        @Override
+        protected void generate(int node) {
+            if (node == 0)
+                return;
+            long first = (long) (node - 1) * edgesPerNode;
+            for (long edge = first; edge < first + edgesPerNode; edge++) {
+                addFriend(friendOf(edge));
+            }
+        }
+
+        /**
+         * Finds the other end of a friendship. Each step at least halves the
+         * friendship being looked at, so this takes a logarithmic number of
+         * steps.
+         */
+        protected int friendOf(long edge) {
+            while (edge > 0) {
+                long end = below(random(edge, 0), 2 * edge);
+                if ((end & 1) == 0)
+                    return (int) ((end >> 1) / edgesPerNode + 1);
+                edge = end >> 1;
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * A generator for the Watts-Strogatz model.
+     */
+    protected static class SmallWorld extends SocialGraphGenerator {
+
+        protected final int neighbors;
+        protected final double rewiring;
+
+        protected SmallWorld(int nodeCount, int neighbors, double rewiring, long seed) {
+            super(nodeCount, seed);
+            if (neighbors < 2 || neighbors % 2 != 0)
+                throw new IllegalArgumentException("neighbors must be even and at least 2");
+            if (!(rewiring >= 0 && rewiring <= 1))
+                throw new IllegalArgumentException("rewiring must be a probability");
+            this.neighbors = neighbors;
+            this.rewiring = rewiring;
+        }
+
+        @Override
+        protected void generate(int node) {
+            for (int i = 1; i <= neighbors / 2; i++) {
+                if (fraction(random(node, 2 * i)) < rewiring)
+                    addFriend((int) below(random(node, 2 * i + 1), nodeCount));
+                else
+                    addFriend((int) ((node + (long) i) % nodeCount));
+            }
+        }
+    }
+
+    /**
+     * A generator for networks of communities. Each person makes half of
+     * their friendships, and the people who choose them make the other
+     * half, so that degrees average out to averageDegree.
+     */
+    protected static class Communities extends SocialGraphGenerator {
+
+        protected final double exponent;
+        protected final double mixing;
+        protected final double minDegree;
+        protected final int minCommunity;
+        protected final int maxCommunity;
+
+        // the community of the person produced last
+        protected int community;
+        protected int communityStart;
+        protected int communityEnd;
+
+        protected Communities(int nodeCount, double averageDegree, double exponent,
+                double mixing, long seed) {
+            super(nodeCount, seed);
+            if (!(exponent > 2))
+                throw new IllegalArgumentException("exponent must be above 2");
+            if (!(averageDegree >= 1))
+                throw new IllegalArgumentException("average degree must be at least 1");
+            if (!(mixing >= 0 && mixing <= 1))
+                throw new IllegalArgumentException("mixing must be a fraction");
+            this.exponent = exponent;
+            this.mixing = mixing;
+            // the mean of a power law starting from x is x (a - 1) / (a - 2)
+            this.minDegree = averageDegree * (exponent - 2) / (exponent - 1);
+            this.minCommunity = (int) Math.ceil(10 * minDegree);
+            this.maxCommunity = 50 * minCommunity;
+        }
+
+        /**
+         * Draws a number from a power law with the given exponent, starting
+         * from min and cut off at max.
+         */
+        protected static double powerLaw(long random, double exponent, double min, double max) {
+            double value = min * Math.pow(1 - fraction(random), -1 / (exponent - 1));
+            return Math.min(value, max);
+        }
+
+        @Override
+        protected void generate(int node) {
+            if (node == 0) {
+                community = -1;
+                communityEnd = 0;
+            }
+            while (node >= communityEnd) {
+                community++;
+                communityStart = communityEnd;
+                int size = (int) powerLaw(random(community, -1), 2, minCommunity, maxCommunity);
+                communityEnd = (int) Math.min(nodeCount, (long) communityStart + size);
+            }
+
+            double degree = powerLaw(random(node, 0), exponent, minDegree, nodeCount - 1);
+            // round half the degree up or down at random, keeping its mean
+            double half = degree / 2;
+            int made = (int) half + (fraction(random(node, 1)) < half - (int) half ? 1 : 0);
+            int communitySize = communityEnd - communityStart;
+            for (int i = 0; i < made; i++) {
+                long choice = random(node, 2 * i + 2);
+                long friend = random(node, 2 * i + 3);
+                if (fraction(choice) < mixing || communitySize == 1)
+                    addFriend((int) below(friend, nodeCount));
+                else
+                    addFriend(communityStart + (int) below(friend, communitySize));
+            }
+        }
+    }
+
+    /**
+     * Writes a synthetic network to a DOT file or, when the file name ends
+     * with .snapshot, to a snapshot.
+     *
+     * @param args the model (ba, ws or communities), the number of people,
+     *        their average number of friends, the file to write, and
+     *        optionally the seed
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 4 && args.length != 5) {
+            System.out.println("Usage: java SocialGraphGenerator <ba|ws|communities> <nodes> "
+                    + "<average degree> <output.dot|output.snapshot> [seed]");
+            System.exit(1);
+        }
+        int nodes = Integer.parseInt(args[1]);
+        int degree = Integer.parseInt(args[2]);
+        long seed = args.length == 5 ? Long.parseLong(args[4]) : 0;
+        SocialGraphGenerator generator;
+        switch (args[0]) {
+            case "ba":
+                generator = barabasiAlbert(nodes, Math.max(1, degree / 2), seed);
+                break;
+            case "ws":
+                generator = wattsStrogatz(nodes, Math.max(2, degree / 2 * 2), 0.1, seed);
+                break;
+            case "communities":
+                generator = communities(nodes, degree, 2.5, 0.2, seed);
+                break;
+            default:
+                System.out.println("Unknown model " + args[0]);
+                System.exit(1);
+                return;
+        }
+        long start = System.nanoTime();
+        Path file = Paths.get(args[3]);
+        long edges = args[3].endsWith(".snapshot") ? generator.writeSnapshot(file)
+                : generator.writeDot(file);
+        System.out.printf("Wrote %d nodes and %d edges to %s in %.1f s%n", nodes, edges, file,
+                (System.nanoTime() - start) / 1e9);
+    }
+}
@@ -0,0 +1,95 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class SocialGraphGeneratorTests {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Test case for a network being the same for the same seed, and the
+     * same whether it is inserted directly or loaded through
+     * Backend.readData from a DOT file or a snapshot.
+     */
+    @Test
+    public void testSameNetworkEverywhere() throws IOException {
+        SocialGraphGenerator[] generators = {
+            SocialGraphGenerator.barabasiAlbert(2000, 3, 19),
+            SocialGraphGenerator.wattsStrogatz(2000, 6, 0.2, 19),
+            SocialGraphGenerator.communities(2000, 8, 2.5, 0.3, 19),
+        };
+        for (SocialGraphGenerator generator : generators) {
+            DijkstraGraph<String, Integer> inserted = new DijkstraGraph<>(new OpenAddressingMap<>());
+            long edgeCount = generator.insertInto(inserted);
+            assertEquals(2000, inserted.getNodeCount());
+            assertEquals(edgeCount, inserted.getEdgeCount());
+            assertEquals(edgeCount, generator.countEdges());
+
+            Path dot = directory.resolve("network.dot");
+            Path snapshot = directory.resolve("network.snapshot");
+            assertEquals(edgeCount, generator.writeDot(dot));
+            assertEquals(edgeCount, generator.writeSnapshot(snapshot));
+            for (Path file : new Path[] {dot, snapshot}) {
+                DijkstraGraph<String, Integer> loaded = new DijkstraGraph<>(new OpenAddressingMap<>());
+                new Backend(loaded).readData(file.toString());
+                assertEquals(inserted.getNodeCount(), loaded.getNodeCount());
+                assertEquals(inserted.getEdgeCount(), loaded.getEdgeCount());
+                for (BaseGraph<String, Integer>.Node node : inserted.nodeTable) {
+                    for (BaseGraph<String, Integer>.Edge edge : node.edgesLeaving) {
+                        assertTrue(loaded.containsEdge(node.data, edge.successor.data));
+                    }
+                }
+            }
+        }
+
+        StringWriter first = new StringWriter();
+        StringWriter second = new StringWriter();
+        StringWriter other = new StringWriter();
+        SocialGraphGenerator.communities(500, 6, 2.5, 0.3, 7).writeDot(first);
+        SocialGraphGenerator.communities(500, 6, 2.5, 0.3, 7).writeDot(second);
+        SocialGraphGenerator.communities(500, 6, 2.5, 0.3, 8).writeDot(other);
+        assertEquals(first.toString(), second.toString());
+        assertNotEquals(first.toString(), other.toString());
+    }
+
+    /**
+     * Test case for the shape of the networks of each model.
+     */
+    @Test
+    public void testModels() {
+        // everyone after the first befriends up to 4 people who joined before them
+        DijkstraGraph<String, Integer> attachment = new DijkstraGraph<>(new OpenAddressingMap<>());
+        long edgeCount = SocialGraphGenerator.barabasiAlbert(5000, 4, 1).insertInto(attachment);
+        assertTrue(edgeCount > 0.99 * 4 * 4999 && edgeCount <= 4 * 4999);
+        int maxDegree = 0;
+        for (BaseGraph<String, Integer>.Node node : attachment.nodeTable) {
+            assertTrue(node.edgesLeaving.size() <= 4);
+            for (BaseGraph<String, Integer>.Edge edge : node.edgesLeaving) {
+                assertTrue(edge.successor.id < node.id);
+            }
+            maxDegree = Math.max(maxDegree, node.edgesLeaving.size() + node.edgesEntering.size());
+        }
+        // preferential attachment makes hubs far above the average degree of 8
+        assertTrue(maxDegree > 100, "max degree " + maxDegree);
+
+        // without rewiring, a small world is a ring
+        DijkstraGraph<String, Integer> ring = new DijkstraGraph<>(new OpenAddressingMap<>());
+        assertEquals(3000, SocialGraphGenerator.wattsStrogatz(1000, 6, 0, 1).insertInto(ring));
+        assertTrue(ring.containsEdge("user999", "user2"));
+        assertEquals(167, ring.shortestPathCost("user0", "user500"));
+        DijkstraGraph<String, Integer> rewired = new DijkstraGraph<>(new OpenAddressingMap<>());
+        SocialGraphGenerator.wattsStrogatz(1000, 6, 0.2, 1).insertInto(rewired);
+        assertTrue(rewired.shortestPathCost("user0", "user500") < 20);
+
+        DijkstraGraph<String, Integer> communities = new DijkstraGraph<>(new OpenAddressingMap<>());
+        edgeCount = SocialGraphGenerator.communities(20000, 10, 2.5, 0.2, 1).insertInto(communities);
+        double averageDegree = 2.0 * edgeCount / 20000;
+        assertTrue(averageDegree > 8 && averageDegree < 11, "average degree " + averageDegree);
+    }
+}
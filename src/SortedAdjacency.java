@@ -0,0 +1,161 @@
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * A SortedAdjacency is an immutable snapshot of who is connected to whom in
+ * a BaseGraph, for the analyses that look at neighborhoods rather than at
+ * paths: each node's neighbors are stored once, in increasing order of
+ * their ids, without the node itself, whichever direction the edges to
+ * them point in. Two neighborhoods can then be intersected by merging them,
+ * in time linear in their sizes.
+ *
+ * Like a CsrGraph, the snapshot is in compressed sparse row form: the
+ * neighbors of node i are in the neighbors array from position offsets[i]
+ * up to (but not including) offsets[i+1]. Nodes are numbered by their ids
+ * in the graph when the snapshot was taken, and the snapshot records the
+ * graph's version at that time, so that the graph can tell when it has
+ * become stale.
+ *
+ * @param NodeType is the data type stored at each graph node
+ */
+public class SortedAdjacency<NodeType> {
+
+    protected Object[] data; // the data stored at each node, by id
+    protected int[] offsets;
+    protected int[] neighbors;
+    protected long version;
+
+    // Assigns each node's data its id, so ids can be looked up by data
+    protected NodeInterner<NodeType> ids = new NodeInterner<>();
+
+    /**
+     * Creates a snapshot over arrays that were already filled in. The arrays
+     * are not copied, and must not be modified afterwards.
+     *
+     * @param data the data stored at each node
+     * @param offsets the start of each node's row, followed by
+     *        neighbors.length
+     * @param neighbors the ids of each node's neighbors, row by row, in
+     *        increasing order within each row
+     * @param version the version of the graph the rows were taken from
+     */
+    protected SortedAdjacency(Object[] data, int[] offsets, int[] neighbors, long version) {
+        this.data = data;
+        this.offsets = offsets;
+        this.neighbors = neighbors;
+        this.version = version;
+        for (int i = 0; i < data.length; i++)
+            ids.intern(getData(i));
+    }
+
+    /**
+     * Takes a snapshot of the neighborhoods of a graph. Each row is sorted
+     * and stripped of repeated neighbors and self loops in parallel with the
+     * others, and the rows are then packed together.
+     *
+     * @param graph the graph to take the neighborhoods of, which must not
+     *        change while they are taken
+     * @return the new snapshot
+     */
+    public static <NodeType, EdgeType extends Number> SortedAdjacency<NodeType> build(
+            BaseGraph<NodeType, EdgeType> graph) {
+        long version = graph.version;
+        int nodeCount = graph.nodeTable.size();
+        Object[] data = new Object[nodeCount];
+        int[] bounds = new int[nodeCount + 1]; // room for each row before it is packed
+        for (BaseGraph<NodeType, EdgeType>.Node node : graph.nodeTable) {
+            data[node.id] = node.data;
+            bounds[node.id + 1] = node.edgesLeaving.size() + node.edgesEntering.size();
+        }
+        for (int id = 0; id < nodeCount; id++)
+            bounds[id + 1] += bounds[id];
+
+        int[] unpacked = new int[bounds[nodeCount]];
+        int[] degrees = new int[nodeCount];
+        IntStream.range(0, nodeCount).parallel().forEach(id -> {
+            BaseGraph<NodeType, EdgeType>.Node node = graph.nodeTable.get(id);
+            int start = bounds[id];
+            int end = start;
+            for (BaseGraph<NodeType, EdgeType>.Edge edge : node.edgesLeaving)
+                unpacked[end++] = edge.other(node).id;
+            for (BaseGraph<NodeType, EdgeType>.Edge edge : node.edgesEntering)
+                unpacked[end++] = edge.predecessor.id;
+            Arrays.sort(unpacked, start, end);
+            int degree = 0;
+            for (int i = start; i < end; i++) {
+                int neighbor = unpacked[i];
+                if (neighbor != id && (degree == 0 || unpacked[start + degree - 1] != neighbor))
+                    unpacked[start + degree++] = neighbor;
+            }
+            degrees[id] = degree;
+        });
+
+        int[] offsets = new int[nodeCount + 1];
+        for (int id = 0; id < nodeCount; id++)
+            offsets[id + 1] = offsets[id] + degrees[id];
+        int[] neighbors = new int[offsets[nodeCount]];
+        IntStream.range(0, nodeCount).parallel().forEach(id ->
+                System.arraycopy(unpacked, bounds[id], neighbors, offsets[id], degrees[id]));
+        return new SortedAdjacency<>(data, offsets, neighbors, version);
+    }
+
+    /**
+     * Return the number of nodes in the graph.
+     *
+     * @return the number of nodes in the graph
+     */
+    public int getNodeCount() {
+        return data.length;
+    }
+
+    /**
+     * Return the number of distinct pairs of nodes that are connected, which
+     * is the number of friendships in a social network.
+     *
+     * @return the number of connected pairs
+     */
+    public long getPairCount() {
+        return neighbors.length / 2;
+    }
+
+    /**
+     * Return the version of the graph this snapshot was taken from.
+     *
+     * @return the version of the graph at the time
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Return the id of the node that stores the provided data.
+     *
+     * @param data the node contents to look for
+     * @return the id of that node, or -1 if no node stores data
+     */
+    public int idOf(NodeType data) {
+        return ids.idOf(data);
+    }
+
+    /**
+     * Return the data stored at a node.
+     *
+     * @param id the id of the node
+     * @return the data stored at that node
+     */
+    @SuppressWarnings("unchecked")
+    public NodeType getData(int id) {
+        return (NodeType) data[id];
+    }
+
+    /**
+     * Return the number of distinct neighbors a node has, not counting
+     * itself.
+     *
+     * @param id the id of the node
+     * @return the number of entries in that node's row
+     */
+    public int degree(int id) {
+        return offsets[id + 1] - offsets[id];
+    }
+}
@@ -0,0 +1,231 @@
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An UndirectedGraph stores friendships, which are symmetric, once each:
+ * an edge between two nodes is a single Edge that is listed in the
+ * edgesLeaving of both of them, and edgesEntering is always empty. Each
+ * node's edgesLeaving is therefore its whole adjacency, so searches walk a
+ * single list per node, and Edge.other gives the node at its far end.
+ *
+ * The order of the two nodes given for an edge does not matter once it is
+ * inserted: inserting (b, a) after (a, b) updates the weight of the same
+ * edge, and either order finds or removes it. An edge keeps the nodes it
+ * was first inserted with as its predecessor and successor, and a self loop
+ * is listed once at its node.
+ *
+ * An UndirectedGraph must not be changed while other threads search it.
+ * A graph that is changed and searched concurrently is a
+ * ConcurrentDijkstraGraph, which stores each edge in one direction. Its
+ * searches and statistics follow edges both ways, so it gives the same
+ * answers, and only its nodes keep two lists of edges instead of one.
+ *
+ * @param NodeType is the data type stored at each graph node
+ * @param EdgeType is the numeric data type stored at each graph edge
+ */
+public class UndirectedGraph<NodeType, EdgeType extends Number>
+        extends DijkstraGraph<NodeType, EdgeType> {
+
+    /**
+     * Constructor that sets the map that the graph uses.
+     *
+     * @param map the map that the graph uses to map a data object to the node
+     * object it is stored in
+     */
+    public UndirectedGraph(MapADT<NodeType, Node> map) {
+        super(map);
+    }
+
+    /**
+     * Creates a node without a list of entering edges, which would always be
+     * empty.
+     */
+    @Override
+    protected Node createNode(NodeType data) {
+        Node node = new Node(data);
+        node.edgesEntering = Collections.emptyList();
+        return node;
+    }
+
+    /**
+     * Removes a node from nodeTable, and removes each of its edges from the
+     * node at the edge's other end.
+     */
+    @Override
+    protected void detachNode(Node oldNode) {
+        removeFromTable(oldNode);
+        for (Edge edge : oldNode.edgesLeaving) {
+            if (edge.predecessor == oldNode) {
+                unlinkEntering(edge);
+            } else {
+                unlinkLeaving(edge);
+            }
+            weightRemoved(edge.data);
+            this.edgeCount--;
+            edgeRemoved(edge);
+        }
+    }
+
+    /**
+     * Insert or update many edges at once, with the same result as calling
+     * insertEdge for each of them in order.
+     *
+     * @param edges the edges to insert, with their weights
+     * @return the number of edges that were inserted or updated, counting
+     *         repeated edges each time, which leaves out only edges whose
+     *         nodes are not found in the graph
+     */
+    @Override
+    public int insertEdges(Collection<? extends WeightedEdge<NodeType, EdgeType>> edges) {
+        int count = 0;
+        for (WeightedEdge<NodeType, EdgeType> edge : edges) {
+            Node predNode = nodes.getOrNull(edge.predecessor);
+            Node succNode = nodes.getOrNull(edge.successor);
+            if (predNode == null || succNode == null)
+                continue;
+            putEdge(predNode, succNode, edge.weight);
+            count++;
+        }
+        if (count > 0)
+            version++;
+        return count;
+    }
+
+    /**
+     * Finds the edge between two nodes in either order, through the index of
+     * either node when it has one, and otherwise by scanning the edges of the
+     * node with fewer of them.
+     */
+    @Override
+    protected Edge findEdge(Node predNode, Node succNode) {
+        if (predNode.successorIndex != null)
+            return predNode.successorIndex.get(succNode);
+        if (succNode.successorIndex != null)
+            return succNode.successorIndex.get(predNode);
+        Node from = predNode.edgesLeaving.size() <= succNode.edgesLeaving.size()
+                ? predNode : succNode;
+        Node to = from == predNode ? succNode : predNode;
+        List<Edge> edges = from.edgesLeaving;
+        for (int i = 0; i < edges.size(); i++)
+            if (edges.get(i).other(from) == to)
+                return edges.get(i);
+        return null;
+    }
+
+    /**
+     * Appends a new edge to the adjacency of both of its nodes, and to the
+     * index of each node that has one or now needs one.
+     */
+    @Override
+    protected void link(Edge edge) {
+        append(edge);
+        index(edge.predecessor, edge);
+        if (edge.successor != edge.predecessor)
+            index(edge.successor, edge);
+    }
+
+    /**
+     * Adds an edge that was just appended to a node's adjacency to the
+     * node's index, building the index once the node has more than
+     * EDGE_INDEX_THRESHOLD edges.
+     */
+    private void index(Node node, Edge edge) {
+        if (node.successorIndex != null)
+            node.successorIndex.put(edge.other(node), edge);
+        else if (node.edgesLeaving.size() > EDGE_INDEX_THRESHOLD)
+            indexSuccessors(node);
+    }
+
+    /**
+     * Appends a new edge to the adjacency of both of its nodes, recording its
+     * position in the predecessor's adjacency as its leavingPosition and in
+     * the successor's as its enteringPosition.
+     */
+    @Override
+    protected void append(Edge edge) {
+        edge.leavingPosition = edge.predecessor.edgesLeaving.size();
+        edge.predecessor.edgesLeaving.add(edge);
+        if (edge.successor != edge.predecessor) {
+            edge.enteringPosition = edge.successor.edgesLeaving.size();
+            edge.successor.edgesLeaving.add(edge);
+        }
+    }
+
+    /**
+     * Builds the index of a node's edges by the node at their other end.
+     */
+    @Override
+    protected void indexSuccessors(Node node) {
+        node.successorIndex = new HashMap<>(node.edgesLeaving.size() * 2);
+        for (Edge edge : node.edgesLeaving)
+            node.successorIndex.put(edge.other(node), edge);
+    }
+
+    /**
+     * Removes an edge from its predecessor's adjacency and index.
+     */
+    @Override
+    protected void unlinkLeaving(Edge edge) {
+        unlink(edge.predecessor, edge, edge.leavingPosition);
+        if (edge.predecessor.successorIndex != null)
+            edge.predecessor.successorIndex.remove(edge.successor);
+    }
+
+    /**
+     * Removes an edge from its successor's adjacency and index, unless it is
+     * a self loop, which is only listed at its predecessor.
+     */
+    @Override
+    protected void unlinkEntering(Edge edge) {
+        if (edge.successor == edge.predecessor)
+            return;
+        unlink(edge.successor, edge, edge.enteringPosition);
+        if (edge.successor.successorIndex != null)
+            edge.successor.successorIndex.remove(edge.predecessor);
+    }
+
+    /**
+     * Removes an edge from a node's adjacency, by moving the node's last edge
+     * into its position.
+     */
+    private void unlink(Node node, Edge edge, int position) {
+        List<Edge> edges = node.edgesLeaving;
+        Edge last = edges.remove(edges.size() - 1);
+        if (last != edge) {
+            edges.set(position, last);
+            if (last.predecessor == node)
+                last.leavingPosition = position;
+            else
+                last.enteringPosition = position;
+        }
+    }
+
+    /**
+     * Returns the number of edges a node has, counting a self loop once.
+     *
+     * @param data the data item stored in the node
+     * @return the number of edges at that node
+     * @throws java.util.NoSuchElementException if data is not found in the
+     *         graph
+     */
+    public int getDegree(NodeType data) {
+        return findNode(data).edgesLeaving.size();
+    }
+
+    /**
+     * Return the average number of edges each node has, counting a self loop
+     * once, which is the average number of friends when the graph stores
+     * friendships. Every other edge counts at both of its nodes.
+     *
+     * @return the number of edges per node, or NaN for an empty graph
+     */
+    @Override
+    public double getAverageDegree() {
+        long total = 0;
+        for (Node node : nodeTable)
+            total += node.edgesLeaving.size();
+        return (double) total / getNodeCount();
+    }
+}
@@ -0,0 +1,144 @@
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class UndirectedGraphTests {
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Test case for an undirected graph holding one edge per pair of nodes,
+     * in either order, and finding the same shortest paths as a directed
+     * graph with the same edges, while edges are inserted and removed
+     * around nodes with and without an edge index.
+     */
+    @Test
+    public void testMatchesDirectedGraph() {
+        Random random = new Random(21);
+        for (int round = 0; round < 20; round++) {
+            int nodeCount = 5 + random.nextInt(40);
+            UndirectedGraph<Integer, Integer> graph = new UndirectedGraph<>(new OpenAddressingMap<>());
+            // the weight of each edge, by its nodes in increasing order
+            Map<List<Integer>, Integer> edges = new HashMap<>();
+            for (int i = 0; i < nodeCount; i++)
+                graph.insertNode(i);
+            for (int i = 0; i < nodeCount * 4; i++) {
+                int pred = random.nextInt(nodeCount);
+                int succ = random.nextInt(pred + 1);
+                int weight = 1 + random.nextInt(9);
+                if (random.nextBoolean())
+                    graph.insertEdge(pred, succ, weight);
+                else
+                    graph.insertEdge(succ, pred, weight);
+                edges.put(List.of(succ, pred), weight);
+                if (random.nextInt(4) == 0) {
+                    int other = random.nextInt(nodeCount);
+                    List<Integer> key = List.of(Math.min(pred, other), Math.max(pred, other));
+                    assertEquals(edges.remove(key) != null, graph.removeEdge(other, pred));
+                }
+            }
+            assertEquals(edges.size(), graph.getEdgeCount());
+
+            DijkstraGraph<Integer, Integer> directed = new DijkstraGraph<>(new OpenAddressingMap<>());
+            for (int i = 0; i < nodeCount; i++)
+                directed.insertNode(i);
+            long degreeSum = 0;
+            for (Map.Entry<List<Integer>, Integer> edge : edges.entrySet()) {
+                int first = edge.getKey().get(0);
+                int second = edge.getKey().get(1);
+                directed.insertEdge(first, second, edge.getValue());
+                assertEquals(edge.getValue(), graph.getEdge(second, first));
+                assertTrue(graph.containsEdge(first, second));
+                degreeSum += first == second ? 1 : 2;
+            }
+            assertEquals((double) degreeSum / nodeCount, graph.getAverageDegree(), 1e-9);
+
+            for (int i = 0; i < 20; i++) {
+                int start = random.nextInt(nodeCount);
+                int end = random.nextInt(nodeCount);
+                try {
+                    double cost = directed.shortestPathCost(start, end);
+                    assertEquals(cost, graph.shortestPathCost(start, end));
+                    List<Integer> path = graph.shortestPathData(start, end);
+                    assertEquals(start, path.get(0));
+                    assertEquals(end, path.get(path.size() - 1));
+                } catch (NoSuchElementException e) {
+                    assertThrows(NoSuchElementException.class, () -> graph.shortestPathCost(start, end));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test case for the degrees and edge count of a node with a self loop,
+     * and for removing a node along with its edges.
+     */
+    @Test
+    public void testSelfLoopsAndRemoveNode() {
+        UndirectedGraph<String, Integer> graph = new UndirectedGraph<>(new OpenAddressingMap<>());
+        for (String name : new String[] {"hub", "a", "b", "c"})
+            graph.insertNode(name);
+        graph.insertEdge("hub", "hub", 1);
+        graph.insertEdge("hub", "a", 1);
+        graph.insertEdge("b", "hub", 1);
+        graph.insertEdge("a", "b", 1);
+        graph.insertEdge("c", "c", 1);
+        assertEquals(5, graph.getEdgeCount());
+        assertEquals(3, graph.getDegree("hub"));
+        assertEquals(2, graph.getDegree("a"));
+        assertEquals(1, graph.getDegree("c"));
+        assertEquals(8 / 4.0, graph.getAverageDegree());
+        assertEquals(1, graph.shortestPathCost("b", "a"));
+        assertEquals(List.of("a", "hub"), graph.shortestPathData("a", "hub"));
+
+        assertTrue(graph.removeNode("hub"));
+        assertEquals(2, graph.getEdgeCount());
+        assertEquals(1, graph.getDegree("a"));
+        assertEquals(1, graph.getDegree("b"));
+        assertFalse(graph.containsEdge("a", "hub"));
+        assertThrows(NoSuchElementException.class, () -> graph.getDegree("hub"));
+        assertTrue(graph.removeEdge("c", "c"));
+        assertEquals(0, graph.getDegree("c"));
+    }
+
+    /**
+     * Test case for loading the sample network into an undirected graph,
+     * both from DOT and from a snapshot, and for the backend reporting the
+     * same statistics for it as for a directed graph.
+     */
+    @Test
+    public void testSampleNetwork() throws IOException {
+        UndirectedGraph<String, Integer> graph = new UndirectedGraph<>(new OpenAddressingMap<>());
+        Backend backend = new Backend(graph);
+        backend.readData("socialnetwork.dot");
+        DijkstraGraph<String, Integer> directed = new DijkstraGraph<>(new OpenAddressingMap<>());
+        new DotLoader().load(Paths.get("socialnetwork.dot"), directed);
+        assertEquals(directed.getNodeCount(), graph.getNodeCount());
+        // the file lists no friendship in both directions
+        assertEquals(directed.getEdgeCount(), graph.getEdgeCount());
+        assertEquals(directed.shortestPathData("user0", "user99").size(),
+                graph.shortestPathData("user0", "user99").size());
+        // friends are counted the same way however the graph stores them
+        assertEquals(new Backend(directed).getStats(), backend.getStats());
+
+        Path snapshot = directory.resolve("socialnetwork.snapshot");
+        GraphSnapshot.write(graph, snapshot);
+        UndirectedGraph<String, Integer> loaded = new UndirectedGraph<>(new OpenAddressingMap<>());
+        assertEquals(graph.getEdgeCount(), GraphSnapshot.load(snapshot, loaded, weight -> (int) weight));
+        assertEquals(graph.getEdgeCount(), loaded.getEdgeCount());
+        for (BaseGraph<String, Integer>.Node node : graph.nodeTable) {
+            assertEquals(node.edgesLeaving.size(), loaded.getDegree(node.data));
+        }
+    }
+}
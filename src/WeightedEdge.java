@@ -0,0 +1,41 @@
+/**
+ * A WeightedEdge names an edge by the data in its two nodes, along with its
+ * weight, so that many edges can be passed to a graph at once.
+ *
+ * @param NodeType is the data type stored at each graph node
+ * @param EdgeType is the numeric data type stored at each graph edge
+ */
+public class WeightedEdge<NodeType, EdgeType extends Number> {
+
+    public final NodeType predecessor;
+    public final NodeType successor;
+    public final EdgeType weight; // null for edges that are only named, to be removed
+
+    /**
+     * Creates an edge with a weight, to be inserted.
+     *
+     * @param predecessor the data item contained in the edge's source node
+     * @param successor the data item contained in the edge's target node
+     * @param weight the non-negative weight of the edge
+     */
+    public WeightedEdge(NodeType predecessor, NodeType successor, EdgeType weight) {
+        this.predecessor = predecessor;
+        this.successor = successor;
+        this.weight = weight;
+    }
+
+    /**
+     * Creates an edge without a weight, to be removed.
+     *
+     * @param predecessor the data item contained in the edge's source node
+     * @param successor the data item contained in the edge's target node
+     */
+    public WeightedEdge(NodeType predecessor, NodeType successor) {
+        this(predecessor, successor, null);
+    }
+
+    @Override
+    public String toString() {
+        return predecessor + " -> " + successor + (weight == null ? "" : " (" + weight + ")");
+    }
+}